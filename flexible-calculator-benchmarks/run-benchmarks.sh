@@ -0,0 +1,13 @@
+#!/bin/sh
+# Builds the calculator and the benchmarks, then runs every benchmark single-threaded
+# and with four threads under the GC profiler. Results go to baseline/ as JMH JSON.
+# Extra arguments are passed to JMH, e.g. ./run-benchmarks.sh ExpressionParserBenchmark
+set -e
+cd "$(dirname "$0")"
+
+# The Maven wrapper lives in the calculator module
+(cd ../flexible-calculator && ./mvnw -q -DskipTests install && ./mvnw -q -f ../flexible-calculator-benchmarks/pom.xml package)
+
+mkdir -p baseline
+java -jar target/benchmarks.jar -t 1 -prof gc -rf json -rff baseline/threads-1.json "$@"
+java -jar target/benchmarks.jar -t 4 -prof gc -rf json -rff baseline/threads-4.json "$@"
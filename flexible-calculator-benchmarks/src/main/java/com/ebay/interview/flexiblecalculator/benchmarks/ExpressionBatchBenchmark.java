@@ -0,0 +1,83 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionBatch;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One row of variable values evaluated against a batch of formulas that all
+ * use the same normalization factor, either as an {@link ExpressionBatch}
+ * sharing it or as separately compiled expressions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ExpressionBatchBenchmark {
+
+    @Param({"10", "200"})
+    public int formulas;
+
+    private ExpressionEvaluator evaluator;
+    private ExpressionBatch batch;
+    private CompiledExpression[] expressions;
+    private double[] slots;
+
+    @Setup
+    public void setUp() {
+        CalculatorProperties properties = new CalculatorProperties();
+        evaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(properties), properties);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < formulas; i++) {
+            texts.add("(a + b) * (c - d) * " + (i + 1) + " + (a + b) * (c - d) / (b + " + (i % 7 + 1) + ")");
+        }
+        batch = evaluator.compileBatch(texts);
+        expressions = new CompiledExpression[formulas];
+        for (int i = 0; i < formulas; i++) {
+            // Same variable order as the batch: a, b, c, d
+            expressions[i] = evaluator.compile(texts.get(i));
+        }
+        slots = new double[]{1.5, 2.5, 10, 4};
+    }
+
+    @TearDown
+    public void tearDown() {
+        evaluator.shutdown();
+    }
+
+    @Benchmark
+    public EvaluationResult[] shared() {
+        return batch.evaluate(slots);
+    }
+
+    @Benchmark
+    public double separate() {
+        double sum = 0;
+        for (CompiledExpression expression : expressions) {
+            sum += expression.evaluate(slots);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link ExpressionEvaluator#evaluate(String)} cost. One evaluator
+ * is shared by all benchmark threads, as in the application.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ExpressionEvaluatorBenchmark {
+
+    // Distinct variants cycled through by the uncached benchmark; far more than the cache holds
+    private static final int VARIANTS = 4096;
+    private static final int CACHE_SIZE = 64;
+
+    @Param({Expressions.SHORT, Expressions.LONG, Expressions.NESTED, Expressions.LITERALS})
+    public String kind;
+
+    private ExpressionEvaluator evaluator;
+    private String expression;
+    private String[] variants;
+
+    @Setup
+    public void setUp() {
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getCache().setExpressionSize(CACHE_SIZE);
+        evaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(properties), properties);
+        expression = Expressions.of(kind);
+
+        // Same shape with a different final literal, so each lookup misses the expression cache
+        variants = new String[VARIANTS];
+        for (int i = 0; i < VARIANTS; i++) {
+            variants[i] = expression + " + " + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        evaluator.shutdown();
+    }
+
+    @Benchmark
+    public double evaluateCached() {
+        return evaluator.evaluate(expression);
+    }
+
+    @Benchmark
+    public double evaluateUncached(Cursor cursor) {
+        return evaluator.evaluate(variants[cursor.next(VARIANTS)]);
+    }
+
+    @Benchmark
+    public EvaluationResult evaluateErrors(Cursor cursor) {
+        return evaluator.evaluateSafely(Expressions.ERRORS[cursor.next(Expressions.ERRORS.length)]);
+    }
+
+    // Per-thread position so threads do not contend on a shared counter
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position;
+
+        int next(int bound) {
+            int current = position;
+            position = current + 1 == bound ? 0 : current + 1;
+            return current;
+        }
+    }
+}
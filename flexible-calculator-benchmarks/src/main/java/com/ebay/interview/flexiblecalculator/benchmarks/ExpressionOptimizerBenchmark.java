@@ -0,0 +1,71 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interpreted evaluation of an already compiled expression with the optimizer
+ * off, strict and relaxed. Code generation is disabled so the difference is the
+ * plan alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ExpressionOptimizerBenchmark {
+
+    static final String POLYNOMIAL = "polynomial";
+
+    @Param({"off", "strict", "relaxed"})
+    public String mode;
+
+    @Param({Expressions.NESTED, Expressions.LONG, POLYNOMIAL})
+    public String kind;
+
+    private ExpressionEvaluator evaluator;
+    private CompiledExpression expression;
+    private double[] slots;
+
+    @Setup
+    public void setUp() {
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getOptimizer().setMode(mode);
+        properties.getCodegen().setThreshold(0);
+        evaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(properties), properties);
+        expression = evaluator.compile(POLYNOMIAL.equals(kind)
+                ? "2 * x * x * x * x + 3 * x * x * x - 4 * x * x + 5 * x + 6" : Expressions.of(kind));
+        slots = expression.newSlots();
+        if (slots.length > 0) {
+            slots[0] = 1.5;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        evaluator.shutdown();
+    }
+
+    @Benchmark
+    public double evaluate() {
+        return expression.evaluate(slots);
+    }
+}
@@ -0,0 +1,53 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+import com.ebay.interview.flexiblecalculator.model.Token;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import com.ebay.interview.flexiblecalculator.utils.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Tokenizing cost, both into Token lists and into a reused TokenBuffer
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ExpressionParserBenchmark {
+
+    @Param({Expressions.SHORT, Expressions.LONG, Expressions.NESTED, Expressions.LITERALS, Expressions.INTEGERS})
+    public String kind;
+
+    private ExpressionParser parser;
+    private TokenBuffer buffer;
+    private String expression;
+
+    @Setup
+    public void setUp() {
+        parser = new ExpressionParser();
+        buffer = new TokenBuffer();
+        expression = Expressions.of(kind);
+    }
+
+    @Benchmark
+    public List<Token> parse() {
+        return parser.parse(expression);
+    }
+
+    @Benchmark
+    public TokenBuffer tokenize() {
+        return parser.tokenize(expression, buffer);
+    }
+}
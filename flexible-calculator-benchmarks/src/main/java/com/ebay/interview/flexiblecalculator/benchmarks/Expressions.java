@@ -0,0 +1,88 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+/**
+ * Expression corpora shared by the benchmarks. Every valid expression stays
+ * within the default -1e6..1e6 range so it measures the success path.
+ */
+final class Expressions {
+
+    static final String SHORT = "short";
+    static final String LONG = "long";
+    static final String NESTED = "nested";
+    static final String LITERALS = "literals";
+    static final String INTEGERS = "integers";
+
+    // One of each failure the evaluator reports: division by zero, bad character,
+    // unbalanced parentheses, out-of-range literal and misplaced operator
+    static final String[] ERRORS = {"10 / 0", "5 & 6", "(1 + 2", "2000000 + 1", "1 + * 2"};
+
+    private Expressions() {
+    }
+
+    static String of(String kind) {
+        switch (kind) {
+            case SHORT:
+                return "3 + 2 * 4";
+            case LONG:
+                return longExpression(200);
+            case NESTED:
+                return nestedExpression(64);
+            case LITERALS:
+                return literalExpression(100);
+            case INTEGERS:
+                return integerExpression(100);
+            default:
+                throw new IllegalArgumentException("Unknown expression kind: " + kind);
+        }
+    }
+
+    // 1 + 2 * 3 - 4 / 5 + ... with operators cycling through all four
+    private static String longExpression(int terms) {
+        char[] operators = {'+', '*', '-', '/'};
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            if (i > 0) {
+                expression.append(' ').append(operators[(i - 1) % operators.length]).append(' ');
+            }
+            expression.append(i % 9 + 1);
+        }
+        return expression.toString();
+    }
+
+    // ((((1 + 1) * 1) + 1) * 1) ... nested depth levels deep
+    private static String nestedExpression(int depth) {
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            expression.append('(');
+        }
+        expression.append('1');
+        for (int i = 0; i < depth; i++) {
+            expression.append(i % 2 == 0 ? " + 1)" : " * 1)");
+        }
+        return expression.toString();
+    }
+
+    // Decimal literals of varying length, which exercise number parsing
+    private static String literalExpression(int literals) {
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < literals; i++) {
+            if (i > 0) {
+                expression.append(" + ");
+            }
+            expression.append(i % 97).append('.').append(125 + i * 7919 % 100000);
+        }
+        return expression.toString();
+    }
+
+    // Integer literals of up to 4 digits, which take the tokenizer's integer path
+    private static String integerExpression(int literals) {
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < literals; i++) {
+            if (i > 0) {
+                expression.append(" + ");
+            }
+            expression.append(i * 7919 % 10_000);
+        }
+        return expression.toString();
+    }
+}
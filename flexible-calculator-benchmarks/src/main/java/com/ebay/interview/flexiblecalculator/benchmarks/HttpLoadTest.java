@@ -0,0 +1,114 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test for the HTTP evaluation service: each client sends
+ * {@code POST /evaluate} and waits for the answer before sending the next one.
+ * Prints throughput and latency percentiles once the run is over.
+ *
+ * <pre>java -cp target/benchmarks.jar com.ebay.interview.flexiblecalculator.benchmarks.HttpLoadTest \
+ *     [url] [clients] [seconds]</pre>
+ */
+public final class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create((args.length > 0 ? args[0] : "http://127.0.0.1:8080") + "/evaluate");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        // The first fifth of the run warms up the server and is not measured
+        long warmupEnd = System.nanoTime() + seconds * 200_000_000L;
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        Client[] loops = new Client[clients];
+        CompletableFuture<?>[] done = new CompletableFuture<?>[clients];
+        for (int i = 0; i < clients; i++) {
+            loops[i] = new Client(client, uri, i, warmupEnd, end);
+            done[i] = loops[i].start();
+        }
+        CompletableFuture.allOf(done).join();
+
+        long[] latencies = new long[0];
+        long errors = 0;
+        for (Client loop : loops) {
+            int from = latencies.length;
+            latencies = Arrays.copyOf(latencies, from + loop.count);
+            System.arraycopy(loop.latencies, 0, latencies, from, loop.count);
+            errors += loop.errors.get();
+        }
+        Arrays.sort(latencies);
+        double measured = seconds * 0.8;
+        System.out.printf("clients=%d requests=%d errors=%d throughput=%.0f req/s p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                clients, latencies.length, errors, latencies.length / measured,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static final class Client {
+
+        private final HttpClient client;
+        private final URI uri;
+        private final int id;
+        private final long warmupEnd;
+        private final long end;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicLong errors = new AtomicLong();
+        private long[] latencies = new long[1024];
+        private int count;
+        private int sequence;
+
+        Client(HttpClient client, URI uri, int id, long warmupEnd, long end) {
+            this.client = client;
+            this.uri = uri;
+            this.id = id;
+            this.warmupEnd = warmupEnd;
+            this.end = end;
+        }
+
+        CompletableFuture<Void> start() {
+            next();
+            return done;
+        }
+
+        private void next() {
+            long start = System.nanoTime();
+            if (start >= end) {
+                done.complete(null);
+                return;
+            }
+            // A mix of repeated and distinct expressions so both cache hits and misses are exercised
+            String expression = Expressions.of(Expressions.SHORT) + " + " + (id + sequence++) % 100;
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"expression\":\"" + expression + "\"}"))
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long finish = System.nanoTime();
+                if (error != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                } else if (start >= warmupEnd) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = finish - start;
+                }
+                next();
+            });
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import com.ebay.interview.flexiblecalculator.utils.TokenBuffer;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Single-threaded timing of the parser, evaluator and range validator
+ * workloads of the JMH benchmarks, for machines where JMH cannot be fetched.
+ * Each workload runs in one JVM with the same warmup and measurement
+ * iterations, but without forks and with a plain result sink in place of
+ * JMH's Blackhole, so its scores are a rough stand-in for
+ * {@code threads-1.json} rather than a replacement.
+ * Allocation per operation is read from the thread's allocation counter,
+ * like {@code gc.alloc.rate.norm}.
+ *
+ * <pre>java -cp target/benchmarks.jar com.ebay.interview.flexiblecalculator.benchmarks.PlainBaseline</pre>
+ */
+public final class PlainBaseline {
+
+    private static final int ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 1_000_000_000L;
+    // Operations between clock reads
+    private static final int BATCH = 256;
+    private static final int VARIANTS = 4096;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Every result is folded in here and printed, so no workload can be optimized away
+    private static double sink;
+
+    public static void main(String[] args) {
+        System.out.printf("| Benchmark | kind | ns/op | B/op |%n|---|---|---:|---:|%n");
+
+        ExpressionParser parser = new ExpressionParser();
+        TokenBuffer buffer = new TokenBuffer();
+        for (String kind : new String[]{Expressions.SHORT, Expressions.LONG, Expressions.NESTED,
+                Expressions.LITERALS, Expressions.INTEGERS}) {
+            String expression = Expressions.of(kind);
+            run("ExpressionParserBenchmark.parse", kind, i -> parser.parse(expression).size());
+            run("ExpressionParserBenchmark.tokenize", kind, i -> parser.tokenize(expression, buffer).size());
+        }
+
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getCache().setExpressionSize(64);
+        ExpressionEvaluator evaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(properties),
+                properties);
+        try {
+            for (String kind : new String[]{Expressions.SHORT, Expressions.LONG, Expressions.NESTED,
+                    Expressions.LITERALS}) {
+                String expression = Expressions.of(kind);
+                String[] variants = new String[VARIANTS];
+                for (int i = 0; i < VARIANTS; i++) {
+                    variants[i] = expression + " + " + i;
+                }
+                run("ExpressionEvaluatorBenchmark.evaluateCached", kind, i -> evaluator.evaluate(expression));
+                run("ExpressionEvaluatorBenchmark.evaluateUncached", kind,
+                        i -> evaluator.evaluate(variants[i % VARIANTS]));
+                run("ExpressionEvaluatorBenchmark.evaluateErrors", kind, i -> evaluator.evaluateSafely(
+                        Expressions.ERRORS[i % Expressions.ERRORS.length]).getErrorOffset());
+            }
+        } finally {
+            evaluator.shutdown();
+        }
+
+        RangeValidator rangeValidator = new RangeValidator();
+        double[] values = {12345.678, 2e6};
+        run("RangeValidatorBenchmark.validateInRange", "", i -> {
+            rangeValidator.validateInput(values[0]);
+            rangeValidator.validateOutput(values[0]);
+            return i;
+        });
+        run("RangeValidatorBenchmark.validateOutOfRange", "", i -> {
+            try {
+                rangeValidator.validateInput(values[1]);
+                return 0;
+            } catch (IllegalArgumentException e) {
+                return e.getMessage().length();
+            }
+        });
+
+        System.out.println();
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    // Prints the mean of the measured iterations, after as many warmup iterations
+    private static void run(String benchmark, String kind, IntToDoubleFunction operation) {
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            measure(operation);
+        }
+        double nanos = 0;
+        double bytes = 0;
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            double[] score = measure(operation);
+            nanos += score[0];
+            bytes += score[1];
+        }
+        System.out.printf("| %s | %s | %.1f | %.0f |%n", benchmark, kind, nanos / ITERATIONS, bytes / ITERATIONS);
+    }
+
+    // One iteration; returns its ns/op and bytes/op. The operation gets a non-negative counter
+    private static double[] measure(IntToDoubleFunction operation) {
+        long thread = Thread.currentThread().getId();
+        long allocated = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long end = start + ITERATION_NANOS;
+        long operations = 0;
+        double result = 0;
+        long now;
+        do {
+            for (int i = 0; i < BATCH; i++) {
+                result += operation.applyAsDouble((int) (operations + i) & Integer.MAX_VALUE);
+            }
+            operations += BATCH;
+            now = System.nanoTime();
+        } while (now < end);
+        sink += result;
+        return new double[]{(double) (now - start) / operations,
+                (double) (THREADS.getThreadAllocatedBytes(thread) - allocated) / operations};
+    }
+}
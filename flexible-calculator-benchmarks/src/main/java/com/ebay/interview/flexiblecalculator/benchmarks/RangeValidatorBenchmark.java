@@ -0,0 +1,72 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+import com.ebay.interview.flexiblecalculator.service.RangePolicy;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Bounds checks in and out of range, and checks racing against policy swaps
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RangeValidatorBenchmark {
+
+    private RangeValidator rangeValidator;
+    private RangePolicy wide;
+    private RangePolicy narrow;
+    // Fields rather than constants so the JIT cannot fold the checks away
+    private double inRange = 12345.678;
+    private double outOfRange = 2e6;
+
+    @Setup
+    public void setUp() {
+        rangeValidator = new RangeValidator();
+        wide = rangeValidator.getPolicy();
+        narrow = wide.withOutputRange(-1e5, 1e5);
+    }
+
+    @Benchmark
+    public void validateInRange() {
+        rangeValidator.validateInput(inRange);
+        rangeValidator.validateOutput(inRange);
+    }
+
+    @Benchmark
+    public void validateOutOfRange(Blackhole blackhole) {
+        try {
+            rangeValidator.validateInput(outOfRange);
+        } catch (IllegalArgumentException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    @Group("swap")
+    @GroupThreads(3)
+    public void validateWhileSwapping() {
+        rangeValidator.validateOutput(inRange);
+    }
+
+    @Benchmark
+    @Group("swap")
+    @GroupThreads(1)
+    public void swapPolicy() {
+        rangeValidator.setPolicy(rangeValidator.getPolicy() == wide ? narrow : wide);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time-to-first-result of one-shot runs ({@code echo "1+2" | java -jar ...}) for
+ * each startup optimization of the {@code startup} build profile, added one at
+ * a time: lazy initialization, AOT bean definitions, C1-only compilation and the
+ * CDS archive. Each run is a fresh JVM; prints the median and p90 wall time
+ * until the result line appears and until the process exits.
+ *
+ * <pre>java -cp target/benchmarks.jar com.ebay.interview.flexiblecalculator.benchmarks.StartupBenchmark \
+ *     [startup dir] [runs]</pre>
+ */
+public final class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        File dir = new File(args.length > 0 ? args[0] : "../flexible-calculator/target/startup");
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String jar = new File(dir, "flexible-calculator.jar").getPath();
+        String archive = new File(dir, "flexible-calculator.jsa").getPath();
+
+        String[] names = {"plain", "+lazy", "+aot", "+c1", "+cds"};
+        String[] added = {null, "-Dspring.main.lazy-initialization=true", "-Dspring.aot.enabled=true",
+                "-XX:TieredStopAtLevel=1", "-XX:SharedArchiveFile=" + archive};
+        List<List<String>> flags = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        for (String flag : added) {
+            if (flag != null) {
+                current.add(flag);
+            }
+            flags.add(new ArrayList<>(current));
+        }
+
+        long[][] firstResult = new long[names.length][runs];
+        long[][] exit = new long[names.length][runs];
+        // One unmeasured round warms the file system cache; variants then take turns
+        // so that drift in machine load affects them all alike
+        for (int i = -1; i < runs; i++) {
+            for (int v = 0; v < names.length; v++) {
+                once(flags.get(v), jar, firstResult[v], exit[v], Math.max(i, 0));
+            }
+        }
+        for (int v = 0; v < names.length; v++) {
+            Arrays.sort(firstResult[v]);
+            Arrays.sort(exit[v]);
+            System.out.printf("%-6s first result: median=%d ms p90=%d ms   exit: median=%d ms p90=%d ms%n", names[v],
+                    firstResult[v][runs / 2], firstResult[v][(int) Math.ceil(runs * 0.9) - 1],
+                    exit[v][runs / 2], exit[v][(int) Math.ceil(runs * 0.9) - 1]);
+        }
+    }
+
+    private static void once(List<String> flags, String jar, long[] firstResult, long[] exit, int index)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(flags);
+        command.add("-jar");
+        command.add(jar);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write("1+2\n".getBytes(StandardCharsets.UTF_8));
+        }
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                // Piped input is evaluated in streaming mode, which prints bare results
+                if (line.equals("3.0")) {
+                    firstResult[index] = (System.nanoTime() - start) / 1_000_000;
+                }
+            }
+        }
+        process.waitFor();
+        exit[index] = (System.nanoTime() - start) / 1_000_000;
+        if (firstResult[index] == 0) {
+            throw new IllegalStateException("No result from " + command);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ebay.interview.flexiblecalculator.benchmarks;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.tcp.EvaluationClient;
+import com.ebay.interview.flexiblecalculator.tcp.TcpEvaluationServer;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loopback latency test for the binary protocol. Runs one connection first
+ * with a single request in flight, then with {@code window} requests pipelined
+ * per write, and prints latency percentiles in microseconds. Starts a server
+ * in-process unless host and port are given.
+ *
+ * <pre>java -cp target/benchmarks.jar com.ebay.interview.flexiblecalculator.benchmarks.TcpLoadTest \
+ *     [seconds] [window] [host port]</pre>
+ */
+public final class TcpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int window = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        TcpEvaluationServer server = null;
+        ExpressionEvaluator evaluator = null;
+        String host = "127.0.0.1";
+        int port;
+        if (args.length > 3) {
+            host = args[2];
+            port = Integer.parseInt(args[3]);
+        } else {
+            CalculatorProperties properties = new CalculatorProperties();
+            properties.getTcp().setPort(0);
+            properties.getTcp().setLoops(1);
+            evaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties);
+            server = new TcpEvaluationServer(evaluator, properties);
+            server.start();
+            port = server.getPort();
+        }
+
+        try (EvaluationClient client = EvaluationClient.connect(host, port)) {
+            run(client, 1, seconds);
+            run(client, window, seconds);
+        } finally {
+            if (server != null) {
+                server.stop();
+                evaluator.shutdown();
+            }
+        }
+    }
+
+    private static void run(EvaluationClient client, int window, int seconds) throws Exception {
+        String[] expressions = new String[window];
+        for (int i = 0; i < window; i++) {
+            expressions[i] = Expressions.of(Expressions.SHORT) + " + " + i % 100;
+        }
+        long[] latencies = new long[1 << 20];
+        int count = 0;
+        // The first fifth of the run is warm-up and not recorded
+        long start = System.nanoTime();
+        long warmupEnd = start + seconds * 200_000_000L;
+        long end = start + seconds * 1_000_000_000L;
+        long measuredStart = 0;
+
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            long sent = now;
+            CompletableFuture<EvaluationResult>[] results = client.submitAll(expressions);
+            long[] received = new long[window];
+            for (int i = 0; i < window; i++) {
+                int index = i;
+                results[i].thenRun(() -> received[index] = System.nanoTime());
+            }
+            CompletableFuture.allOf(results).join();
+            if (sent < warmupEnd) {
+                continue;
+            }
+            if (measuredStart == 0) {
+                measuredStart = sent;
+            }
+            for (long time : received) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = time - sent;
+            }
+        }
+        double elapsed = (System.nanoTime() - measuredStart) / 1e9;
+
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        System.out.printf("window=%d requests=%d throughput=%.0f req/s p50=%.1f us p90=%.1f us p99=%.1f us p99.9=%.1f us max=%.1f us%n",
+                window, count, count / elapsed, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), percentile(sorted, 0.999), percentile(sorted, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e3;
+    }
+}
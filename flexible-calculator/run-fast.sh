@@ -0,0 +1,12 @@
+#!/bin/sh
+# Runs the calculator from target/startup as built by ./mvnw -Pstartup package, tuned for
+# short one-shot runs such as echo "1+2" | ./run-fast.sh:
+#   - AOT-generated bean definitions instead of classpath scanning and reflection
+#   - lazy bean initialization, so beans the run never touches are not created
+#   - the CDS archive recorded during the build, so classes load pre-parsed
+#   - C1 compilation only, which stops C2 competing with startup for CPU
+# Long-running modes (--input, --serve) are faster with plain java -jar.
+DIR="$(dirname "$0")/target/startup"
+exec java -XX:SharedArchiveFile="$DIR/flexible-calculator.jsa" -XX:TieredStopAtLevel=1 \
+    -Dspring.aot.enabled=true -Dspring.main.lazy-initialization=true \
+    -jar "$DIR/flexible-calculator.jar" "$@"
@@ -1,12 +1,15 @@
 package com.ebay.interview.flexiblecalculator;
 
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties(CalculatorProperties.class)
 public class FlexibleCalculatorApplication {
 
     public static void main(String[] args) {
        SpringApplication.run(FlexibleCalculatorApplication.class, args);
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,142 @@
 package com.ebay.interview.flexiblecalculator.component;
 
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.metrics.MetricsServer;
+import com.ebay.interview.flexiblecalculator.model.BulkEvaluationSummary;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.BulkFileEvaluationService;
+import com.ebay.interview.flexiblecalculator.service.SinglePassEvaluator;
+import com.ebay.interview.flexiblecalculator.service.StreamEvaluationService;
 import com.ebay.interview.flexiblecalculator.service.UserInteractionService;
+import com.ebay.interview.flexiblecalculator.tcp.TcpEvaluationServer;
+import com.ebay.interview.flexiblecalculator.web.HttpEvaluationServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 @Component
 public class CalculatorCommandLineRunner implements CommandLineRunner {
 
+    private static final Logger logger = LoggerFactory.getLogger(CalculatorCommandLineRunner.class);
+
     @Autowired
     private UserInteractionService userInteractionService;
 
+    @Autowired
+    private BulkFileEvaluationService bulkFileEvaluationService;
+
+    @Autowired
+    private StreamEvaluationService streamEvaluationService;
+
+    @Autowired
+    private SinglePassEvaluator singlePassEvaluator;
+
+    @Autowired
+    private HttpEvaluationServer httpEvaluationServer;
+
+    @Autowired
+    private TcpEvaluationServer tcpEvaluationServer;
+
+    @Autowired
+    private MetricsServer metricsServer;
+
+    @Autowired
+    private CalculatorProperties properties;
+
     @Override
-    public void run(String... args) {
-        userInteractionService.start();
+    public void run(String... args) throws IOException {
+        boolean http = properties.getHttp().isEnabled() || Arrays.asList(args).contains("--serve");
+        boolean tcp = properties.getTcp().isEnabled() || Arrays.asList(args).contains("--serve-tcp");
+        if (http || tcp) {
+            // The servers' threads keep the application running until it is shut down
+            metricsServer.start();
+            if (http) {
+                httpEvaluationServer.start();
+            }
+            if (tcp) {
+                tcpEvaluationServer.start();
+            }
+            return;
+        }
+
+        String expressionFile = option(args, "--expression-file");
+        if (expressionFile != null) {
+            evaluateExpressionFile(Paths.get(expressionFile));
+            return;
+        }
+
+        String input = option(args, "--input");
+        String output = option(args, "--output");
+
+        if (input == null && output == null) {
+            if (Arrays.asList(args).contains("--stream") || streaming()) {
+                // Results go straight to standard output; nothing is logged per line
+                streamEvaluationService.evaluate(System.in, new FileOutputStream(FileDescriptor.out));
+            } else {
+                userInteractionService.start();
+            }
+            return;
+        }
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Bulk mode requires both --input <file> and --output <file>");
+        }
+
+        Path inputPath = Paths.get(input);
+        Path outputPath = Paths.get(output);
+        logger.info("Evaluating {} into {}", inputPath, outputPath);
+        BulkEvaluationSummary summary = bulkFileEvaluationService.evaluateFile(inputPath, outputPath);
+        logger.info("Evaluated {} lines in {} chunks ({} resumed from checkpoint), {} errors",
+                summary.getLines(), summary.getChunks(), summary.getResumedChunks(), summary.getErrors());
+    }
+
+    // One expression, however large, read and evaluated in a single pass
+    private void evaluateExpressionFile(Path path) throws IOException {
+        logger.info("Evaluating the expression in {}", path);
+        EvaluationResult result;
+        try (FileChannel channel = FileChannel.open(path)) {
+            result = singlePassEvaluator.evaluateSafely(channel);
+        }
+        if (result.isSuccess()) {
+            logger.info("Result: {}", result.getValue());
+        } else {
+            logger.error("Error evaluating expression: {}", result.getErrorMessage());
+        }
+    }
+
+    private boolean streaming() {
+        switch (properties.getStream().getMode()) {
+            case "on":
+                return true;
+            case "off":
+                return false;
+            case "auto":
+                // Piped or redirected input, e.g. cat expressions.txt | java -jar ...; redirecting only stdout keeps the prompt
+                return StreamEvaluationService.isPipedInput();
+            default:
+                throw new IllegalArgumentException("Unknown stream mode: " + properties.getStream().getMode());
+        }
+    }
+
+    // Accepts both "--name value" and "--name=value"
+    static String option(String[] args, String name) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(name) && i + 1 < args.length) {
+                return args[i + 1];
+            }
+            if (args[i].startsWith(name + "=")) {
+                return args[i].substring(name.length() + 1);
+            }
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package com.ebay.interview.flexiblecalculator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "calculator")
+public class CalculatorProperties {
+
+    private final Cache cache = new Cache();
+    private final Memo memo = new Memo();
+    private final Codegen codegen = new Codegen();
+    private final Optimizer optimizer = new Optimizer();
+    private final Precision precision = new Precision();
+    private final Batch batch = new Batch();
+    private final Bulk bulk = new Bulk();
+    private final Stream stream = new Stream();
+    private final SinglePass singlePass = new SinglePass();
+    private final Columnar columnar = new Columnar();
+    private final Range range = new Range();
+    private final Metrics metrics = new Metrics();
+    private final Http http = new Http();
+    private final Tcp tcp = new Tcp();
+
+    @Data
+    public static class Cache {
+        // Maximum number of compiled expressions kept, keyed by expression text
+        private int expressionSize = 4096;
+        // Maximum number of shared plans kept, keyed by expression shape
+        private int planSize = 1024;
+    }
+
+    @Data
+    public static class Memo {
+        // Remember results across restarts in a memory-mapped file, looked up before an expression is parsed
+        private boolean enabled = false;
+        private String file = "calculator-memo.bin";
+        // Entries kept; past this, entries not read since the clock hand last passed are evicted
+        private int size = 1_000_000;
+    }
+
+    @Data
+    public static class Codegen {
+        // Evaluations after which an expression is compiled to bytecode; 0 disables code generation
+        private int threshold = 1000;
+        // Plans longer than this stay interpreted to keep generated methods well under the JVM size limit
+        private int maxPlanLength = 2000;
+    }
+
+    @Data
+    public static class Optimizer {
+        // "off", "strict" (folding and IEEE-safe identities) or "relaxed" (also reassociation and Horner form)
+        private String mode = "off";
+    }
+
+    @Data
+    public static class Precision {
+        // "double", or "hybrid" to print exact decimal results in the console (see HybridEvaluator)
+        private String mode = "double";
+        // MathContext for expressions that cannot be evaluated exactly in double
+        private int digits = 34;
+        private String roundingMode = "HALF_EVEN";
+    }
+
+    @Data
+    public static class Batch {
+        // Worker threads for batch evaluation; 0 uses one per available processor
+        private int parallelism = 0;
+        // Batches smaller than this are evaluated sequentially on the calling thread
+        private int sequentialThreshold = 512;
+    }
+
+    @Data
+    public static class Bulk {
+        // Target size in bytes of each input chunk; chunks always end on a line boundary
+        private int chunkSize = 8 * 1024 * 1024;
+    }
+
+    @Data
+    public static class Stream {
+        // "auto" evaluates standard input as a stream when it is a pipe or file; "on" or "off" forces it
+        private String mode = "auto";
+        // Bytes read before complete lines are handed to the workers, unless the input pauses first
+        private int blockSize = 64 * 1024;
+        private int outputBufferSize = 1024 * 1024;
+    }
+
+    @Data
+    public static class SinglePass {
+        // Deepest nesting of pending operands and operators before an expression is rejected
+        private int maxDepth = 10_000;
+        // Longest number or name, in characters
+        private int maxTokenLength = 1024;
+    }
+
+    @Data
+    public static class Columnar {
+        // Rows per block; each plan instruction runs as one loop over a block
+        private int blockSize = 1024;
+        // Use the JDK Vector API when the JVM was started with --add-modules jdk.incubator.vector
+        private boolean vectorApi = true;
+    }
+
+    @Data
+    public static class Range {
+        // Profile installed at startup; others can be switched to at runtime through RangeValidator
+        private String active = "default";
+        // Named input and output limits, e.g. calculator.range.profiles.strict.max-input=1000
+        private final Map<String, Profile> profiles = new LinkedHashMap<>(Map.of("default", new Profile()));
+    }
+
+    @Data
+    public static class Profile {
+        private double minInput = -1e6;
+        private double maxInput = 1e6;
+        private double minOutput = -1e6;
+        private double maxOutput = 1e6;
+        // Exact long arithmetic for integers past 2^53; about twice as slow, and only used when a limit reaches 2^53
+        private boolean exactIntegers = false;
+    }
+
+    @Data
+    public static class Metrics {
+        // Serve Prometheus metrics at http://host:port/metrics
+        private boolean enabled = true;
+        private String host = "127.0.0.1";
+        private int port = 9464;
+        // One evaluation in this many is timed; counts are always exact
+        private int sampleInterval = 1024;
+        // One cache miss in this many has its parse, validate and compile stages timed
+        private int compileSampleInterval = 16;
+    }
+
+    @Data
+    public static class Http {
+        // Start the JSON evaluation service instead of the console (same as the --serve argument)
+        private boolean enabled = false;
+        private String host = "127.0.0.1";
+        private int port = 8080;
+        // Pending connections the operating system queues before accepting
+        private int backlog = 1024;
+        // "auto" uses virtual threads on Java 21+ and platform threads otherwise; "virtual" or "platform" forces one
+        private String executor = "auto";
+        // Platform thread pool size and queue, used when not on virtual threads
+        private int threads = 200;
+        private int queueCapacity = 10_000;
+        private int maxRequestBytes = 1024 * 1024;
+        private int maxBatchSize = 10_000;
+    }
+
+    @Data
+    public static class Tcp {
+        // Start the binary protocol server (same as the --serve-tcp argument)
+        private boolean enabled = false;
+        private String host = "127.0.0.1";
+        private int port = 9470;
+        private int backlog = 1024;
+        // Selector loops serving connections; 0 uses one per available processor
+        private int loops = 0;
+        // Larger request frames close the connection
+        private int maxFrameBytes = 64 * 1024;
+    }
+}
@@ -0,0 +1,247 @@
+package com.ebay.interview.flexiblecalculator.metrics;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.CacheStats;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.utils.LruCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the evaluation pipeline: stage latencies, evaluation and error
+ * counts, and cache and pool state.
+ *
+ * <p>A cached evaluation takes tens of nanoseconds, less than a pair of
+ * {@link System#nanoTime()} calls on some machines, so evaluations are
+ * counted in per-thread probes with plain writes and summed on scrape, and
+ * only one call in {@code calculator.metrics.sample-interval} is timed.
+ */
+@Component
+public class EvaluationMetrics {
+
+    private static final String STAGE_HELP = "Latency of evaluation stages in seconds, sampled";
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final int sampleInterval;
+    private final int compileSampleInterval;
+
+    private final LatencyHistogram evaluateLatency;
+    private final LatencyHistogram parseLatency;
+    private final LatencyHistogram validateLatency;
+    private final LatencyHistogram compileLatency;
+
+    private final LongAdder divisionByZeroErrors;
+    private final LongAdder rangeErrors;
+    private final LongAdder syntaxErrors;
+    private final LongAdder otherErrors;
+
+    private final ThreadLocal<Probe> probes = ThreadLocal.withInitial(this::newProbe);
+    private final ConcurrentLinkedQueue<Probe> liveProbes = new ConcurrentLinkedQueue<>();
+    // Evaluations counted by threads that have since terminated
+    private final LongAdder retiredEvaluations = new LongAdder();
+    private final AtomicInteger registrations = new AtomicInteger();
+
+    public EvaluationMetrics() {
+        this(new CalculatorProperties());
+    }
+
+    @Autowired
+    public EvaluationMetrics(CalculatorProperties properties) {
+        this.sampleInterval = Math.max(1, properties.getMetrics().getSampleInterval());
+        this.compileSampleInterval = Math.max(1, properties.getMetrics().getCompileSampleInterval());
+
+        evaluateLatency = registry.histogram("calculator_stage_seconds", STAGE_HELP, "stage=\"evaluate\"");
+        parseLatency = registry.histogram("calculator_stage_seconds", STAGE_HELP, "stage=\"parse\"");
+        validateLatency = registry.histogram("calculator_stage_seconds", STAGE_HELP, "stage=\"validate\"");
+        compileLatency = registry.histogram("calculator_stage_seconds", STAGE_HELP, "stage=\"compile\"");
+
+        registry.counter("calculator_evaluations_total", "Expressions evaluated", "", this::evaluations);
+        String errorHelp = "Failed evaluations by error type";
+        divisionByZeroErrors = registry.counter("calculator_errors_total", errorHelp, "type=\"division_by_zero\"");
+        rangeErrors = registry.counter("calculator_errors_total", errorHelp, "type=\"range\"");
+        syntaxErrors = registry.counter("calculator_errors_total", errorHelp, "type=\"syntax\"");
+        otherErrors = registry.counter("calculator_errors_total", errorHelp, "type=\"other\"");
+    }
+
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    // The calling thread's probe; look it up once per evaluation
+    public Probe probe() {
+        return probes.get();
+    }
+
+    public void recordError(RuntimeException error) {
+        switch (ErrorCode.of(error)) {
+            case DIVISION_BY_ZERO:
+                divisionByZeroErrors.increment();
+                break;
+            case INPUT_OUT_OF_RANGE:
+            case OUTPUT_OUT_OF_RANGE:
+                rangeErrors.increment();
+                break;
+            case UNKNOWN:
+                otherErrors.increment();
+                break;
+            default:
+                syntaxErrors.increment();
+        }
+    }
+
+    public void bindCache(String name, LruCache<?, ?> cache) {
+        bindCache(name, cache::stats);
+    }
+
+    public void bindCache(String name, Supplier<CacheStats> stats) {
+        String labels = "cache=\"" + name + "\"";
+        registry.gauge("calculator_cache_size", "Entries in a cache", labels, () -> stats.get().getSize());
+        registry.counter("calculator_cache_hits_total", "Cache hits", labels, () -> stats.get().getHitCount());
+        registry.counter("calculator_cache_misses_total", "Cache misses", labels, () -> stats.get().getMissCount());
+        registry.counter("calculator_cache_evictions_total", "Cache evictions", labels,
+                () -> stats.get().getEvictionCount());
+    }
+
+    // The pool may be created lazily, so it is looked up on every scrape
+    public void bindPool(String name, int parallelism, Supplier<ForkJoinPool> pool) {
+        String labels = "pool=\"" + name + "\"";
+        registry.gauge("calculator_pool_parallelism", "Configured worker threads", labels, () -> parallelism);
+        registry.gauge("calculator_pool_threads", "Started worker threads", labels, () -> {
+            ForkJoinPool current = pool.get();
+            return current == null ? 0 : current.getPoolSize();
+        });
+        registry.gauge("calculator_pool_active_threads", "Worker threads running tasks", labels, () -> {
+            ForkJoinPool current = pool.get();
+            return current == null ? 0 : current.getActiveThreadCount();
+        });
+        registry.gauge("calculator_pool_queued_tasks", "Tasks waiting in the pool", labels, () -> {
+            ForkJoinPool current = pool.get();
+            return current == null ? 0 : current.getQueuedTaskCount() + current.getQueuedSubmissionCount();
+        });
+    }
+
+    public String scrape() {
+        return registry.scrape();
+    }
+
+    public long evaluations() {
+        long total = retiredEvaluations.sum();
+        for (Probe probe : liveProbes) {
+            total += probe.evaluations();
+        }
+        sweep();
+        return total;
+    }
+
+    private Probe newProbe() {
+        Probe probe = new Probe(Thread.currentThread());
+        liveProbes.add(probe);
+        // Threads come and go (virtual threads especially), so dead probes are folded in regularly
+        if ((registrations.incrementAndGet() & 1023) == 0) {
+            sweep();
+        }
+        return probe;
+    }
+
+    private void sweep() {
+        for (Probe probe : liveProbes) {
+            Thread owner = probe.owner.get();
+            if ((owner == null || !owner.isAlive()) && liveProbes.remove(probe)) {
+                retiredEvaluations.add(probe.evaluations());
+            }
+        }
+    }
+
+    /**
+     * Per-thread recording state. Only the owning thread writes to it; the
+     * evaluation count is published with opaque writes for scrapes to read.
+     */
+    public final class Probe {
+
+        private final WeakReference<Thread> owner;
+        @SuppressWarnings("unused") // Accessed through EVALUATIONS
+        private long evaluations;
+        private int countdown = sampleInterval;
+        private int compileCountdown = compileSampleInterval;
+        private boolean sampling;
+        private long startNanos;
+
+        private Probe(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        public void begin() {
+            EVALUATIONS.setOpaque(this, (long) EVALUATIONS.getOpaque(this) + 1);
+            if (--countdown == 0) {
+                countdown = sampleInterval;
+                sampling = true;
+                startNanos = System.nanoTime();
+            }
+        }
+
+        public void end() {
+            if (sampling) {
+                sampling = false;
+                evaluateLatency.record(System.nanoTime() - startNanos);
+            }
+        }
+
+        public void fail(RuntimeException error) {
+            end();
+            recordError(error);
+        }
+
+        // Starts timing the parse, validate and compile stages of a cache miss; 0 when this miss is not sampled
+        public long beginCompile() {
+            if (--compileCountdown == 0) {
+                compileCountdown = compileSampleInterval;
+                return System.nanoTime();
+            }
+            return 0;
+        }
+
+        public long parsed(long since) {
+            return lap(parseLatency, since);
+        }
+
+        public long validated(long since) {
+            return lap(validateLatency, since);
+        }
+
+        public long compiled(long since) {
+            return lap(compileLatency, since);
+        }
+
+        private long lap(LatencyHistogram histogram, long since) {
+            if (since == 0) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            histogram.record(now - since);
+            return now == 0 ? 1 : now;
+        }
+
+        long evaluations() {
+            return (long) EVALUATIONS.getOpaque(this);
+        }
+    }
+
+    private static final VarHandle EVALUATIONS;
+
+    static {
+        try {
+            EVALUATIONS = MethodHandles.lookup().findVarHandle(Probe.class, "evaluations", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
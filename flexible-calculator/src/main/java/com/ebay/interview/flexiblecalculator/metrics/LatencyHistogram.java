@@ -0,0 +1,60 @@
+package com.ebay.interview.flexiblecalculator.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two nanosecond buckets from
+ * 64ns to about 1s, exported as a Prometheus histogram so percentiles can be
+ * computed with {@code histogram_quantile}.
+ */
+public final class LatencyHistogram {
+
+    private static final int MIN_SHIFT = 6;
+    private static final int MAX_SHIFT = 30;
+    // One bucket per power of two plus a final +Inf bucket
+    static final int BUCKETS = MAX_SHIFT - MIN_SHIFT + 2;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[bucketOf(nanos)].increment();
+        sumNanos.add(nanos);
+    }
+
+    // Index of the smallest bucket whose upper bound is at least nanos
+    static int bucketOf(long nanos) {
+        int shift = 64 - Long.numberOfLeadingZeros(Math.max(1, nanos) - 1);
+        return Math.min(Math.max(shift, MIN_SHIFT), MAX_SHIFT + 1) - MIN_SHIFT;
+    }
+
+    // Upper bound of a bucket in seconds; the last bucket is unbounded
+    static double upperBoundSeconds(int bucket) {
+        return bucket == BUCKETS - 1 ? Double.POSITIVE_INFINITY : (1L << (bucket + MIN_SHIFT)) / 1e9;
+    }
+
+    long bucketCount(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ebay.interview.flexiblecalculator.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named meters written out in the Prometheus text exposition format.
+ * Registration is synchronized; recording goes straight to the lock-free
+ * meters and never touches the registry.
+ */
+public class MetricsRegistry {
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    // Labels are given preformatted, e.g. stage="parse"; an empty string means none
+    public LongAdder counter(String name, String help, String labels) {
+        LongAdder counter = new LongAdder();
+        register(name, help, "counter", new Series(labels, counter::sum, null));
+        return counter;
+    }
+
+    // A counter whose value is owned elsewhere, such as cache hit counts
+    public void counter(String name, String help, String labels, DoubleSupplier value) {
+        register(name, help, "counter", new Series(labels, value, null));
+    }
+
+    public void gauge(String name, String help, String labels, DoubleSupplier value) {
+        register(name, help, "gauge", new Series(labels, value, null));
+    }
+
+    public LatencyHistogram histogram(String name, String help, String labels) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        register(name, help, "histogram", new Series(labels, null, histogram));
+        return histogram;
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        List<Family> snapshot;
+        synchronized (families) {
+            snapshot = new ArrayList<>(families.values());
+        }
+        for (Family family : snapshot) {
+            family.writeTo(out);
+        }
+        return out.toString();
+    }
+
+    private void register(String name, String help, String type, Series series) {
+        synchronized (families) {
+            Family family = families.computeIfAbsent(name, key -> new Family(key, help, type));
+            if (!family.type.equals(type)) {
+                throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+            }
+            family.add(series);
+        }
+    }
+
+    private static final class Family {
+
+        private final String name;
+        private final String help;
+        private final String type;
+        private volatile List<Series> series = List.of();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        void add(Series added) {
+            List<Series> next = new ArrayList<>(series);
+            next.add(added);
+            series = List.copyOf(next);
+        }
+
+        void writeTo(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            for (Series each : series) {
+                if (each.histogram != null) {
+                    writeHistogram(out, each);
+                } else {
+                    sample(out, name, each.labels, null, each.value.getAsDouble());
+                }
+            }
+        }
+
+        private void writeHistogram(StringBuilder out, Series each) {
+            long cumulative = 0;
+            for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+                cumulative += each.histogram.bucketCount(bucket);
+                double bound = LatencyHistogram.upperBoundSeconds(bucket);
+                String le = "le=\"" + (Double.isInfinite(bound) ? "+Inf" : Double.toString(bound)) + "\"";
+                sample(out, name + "_bucket", each.labels, le, cumulative);
+            }
+            sample(out, name + "_sum", each.labels, null, each.histogram.sumSeconds());
+            // The count is the +Inf bucket so both agree even while samples are recorded
+            sample(out, name + "_count", each.labels, null, cumulative);
+        }
+
+        private static void sample(StringBuilder out, String name, String labels, String extra, double value) {
+            out.append(name);
+            if (!labels.isEmpty() || extra != null) {
+                out.append('{').append(labels);
+                if (extra != null) {
+                    out.append(labels.isEmpty() ? "" : ",").append(extra);
+                }
+                out.append('}');
+            }
+            out.append(' ');
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                out.append((long) value);
+            } else {
+                out.append(value);
+            }
+            out.append('\n');
+        }
+    }
+
+    private static final class Series {
+
+        private final String labels;
+        private final DoubleSupplier value;
+        private final LatencyHistogram histogram;
+
+        Series(String labels, DoubleSupplier value, LatencyHistogram histogram) {
+            this.labels = labels;
+            this.value = value;
+            this.histogram = histogram;
+        }
+    }
+}
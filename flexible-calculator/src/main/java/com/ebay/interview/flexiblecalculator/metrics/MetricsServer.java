@@ -0,0 +1,93 @@
+package com.ebay.interview.flexiblecalculator.metrics;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves {@code GET /metrics} in the Prometheus text format on
+ * {@code calculator.metrics.host}:{@code calculator.metrics.port}.
+ * Started only alongside the HTTP and TCP servers, so one-off console and
+ * batch runs never bind the port.
+ */
+@Component
+public class MetricsServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServer.class);
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final EvaluationMetrics metrics;
+    private final CalculatorProperties.Metrics settings;
+    private HttpServer server;
+
+    @Autowired
+    public MetricsServer(EvaluationMetrics metrics, CalculatorProperties properties) {
+        this.metrics = metrics;
+        this.settings = properties.getMetrics();
+    }
+
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(settings.getHost(), settings.getPort()), 0);
+        } catch (IOException e) {
+            // Metrics are optional; a busy port must not stop the calculator
+            logger.warn("Metrics endpoint not started on {}:{}: {}", settings.getHost(), settings.getPort(), e.getMessage());
+            return;
+        }
+        server.createContext("/metrics", this::handle);
+
+        // The dispatcher thread inherits daemon status from the thread that starts it,
+        // so start it from a daemon thread to let the application exit normally
+        Thread starter = new Thread(server::start, "metrics-server-start");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Metrics available at http://{}:{}/metrics", settings.getHost(), getPort());
+    }
+
+    // The bound port, which differs from the configured one when that is 0; -1 if not running
+    public int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = metrics.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+import lombok.Data;
+
+@Data
+public class BulkEvaluationSummary {
+
+    private final long lines;
+    private final long errors;
+    private final int chunks;
+    // Chunks skipped because a checkpoint showed they were already written
+    private final int resumedChunks;
+}
@@ -0,0 +1,18 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+import lombok.Data;
+
+@Data
+public class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+    private final int maximumSize;
+
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0.0 : (double) hitCount / requests;
+    }
+}
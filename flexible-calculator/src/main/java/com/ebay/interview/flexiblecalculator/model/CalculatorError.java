@@ -0,0 +1,18 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+/**
+ * An error caused by the expression being evaluated rather than by the
+ * calculator. Implementations carry no stack trace: invalid input is routine
+ * in bulk workloads, and capturing a trace costs more than the evaluation.
+ */
+public interface CalculatorError {
+
+    ErrorCode getCode();
+
+    // Offset in the expression text, or -1 when the error has no single position
+    int getOffset();
+
+    static int offsetOf(RuntimeException error) {
+        return error instanceof CalculatorError ? ((CalculatorError) error).getOffset() : -1;
+    }
+}
@@ -0,0 +1,28 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+/**
+ * Division by zero; see CalculatorError. Every throw creates its own
+ * instance: sharing one would share its mutable suppressed-exception list,
+ * which ArithmeticException offers no constructor to disable.
+ */
+public final class DivisionByZeroException extends ArithmeticException implements CalculatorError {
+
+    public DivisionByZeroException() {
+        super("Cannot divide by zero");
+    }
+
+    @Override
+    public ErrorCode getCode() {
+        return ErrorCode.DIVISION_BY_ZERO;
+    }
+
+    @Override
+    public int getOffset() {
+        return -1;
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
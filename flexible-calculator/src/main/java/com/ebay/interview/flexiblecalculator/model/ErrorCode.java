@@ -0,0 +1,39 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+/**
+ * Machine-readable cause of a failed evaluation, reported in
+ * {@link EvaluationResult#getErrorCode()} alongside the message.
+ */
+public enum ErrorCode {
+
+    EMPTY_EXPRESSION,
+    INVALID_CHARACTER,
+    INVALID_NUMBER,
+    MISMATCHED_PARENTHESES,
+    // An operator or operand is missing or out of place
+    INVALID_SYNTAX,
+    UNBOUND_VARIABLE,
+    UNKNOWN_FUNCTION,
+    // Nesting or a token beyond the limits of the single-pass evaluator
+    LIMIT_EXCEEDED,
+    INPUT_OUT_OF_RANGE,
+    OUTPUT_OUT_OF_RANGE,
+    DIVISION_BY_ZERO,
+    // Any other rejected argument, such as an unknown range profile
+    INVALID_ARGUMENT,
+    // An error known only by type and message, e.g. one decoded from the binary protocol
+    UNKNOWN;
+
+    public static ErrorCode of(RuntimeException error) {
+        if (error instanceof CalculatorError) {
+            return ((CalculatorError) error).getCode();
+        }
+        if (error instanceof NumberFormatException) {
+            return INVALID_NUMBER;
+        }
+        if (error instanceof IllegalArgumentException) {
+            return INVALID_ARGUMENT;
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of evaluating one expression: either a value, or the code, offset,
+ * type and message of the error that prevented it.
+ */
+@Data
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EvaluationResult {
+
+    private static final EvaluationResult DIVISION_BY_ZERO = fromError(new DivisionByZeroException());
+
+    private final boolean success;
+    private final double value;
+    // Null on success; UNKNOWN for errors decoded from a type and message alone
+    private final ErrorCode errorCode;
+    // Offset of the error in the expression text, or -1 when it has none
+    private final int errorOffset;
+    private final String errorType;
+    private final String errorMessage;
+
+    public static EvaluationResult success(double value) {
+        return new EvaluationResult(true, value, null, -1, null, null);
+    }
+
+    public static EvaluationResult failure(RuntimeException error) {
+        // The result for the most common runtime error is preallocated, so reporting it allocates nothing more
+        return error instanceof DivisionByZeroException ? DIVISION_BY_ZERO : fromError(error);
+    }
+
+    public static EvaluationResult failure(String errorType, String errorMessage) {
+        return failure(ErrorCode.UNKNOWN, -1, errorType, errorMessage);
+    }
+
+    // An error received from elsewhere, e.g. decoded from the binary protocol
+    public static EvaluationResult failure(ErrorCode errorCode, int errorOffset, String errorType, String errorMessage) {
+        return new EvaluationResult(false, Double.NaN, errorCode, errorOffset, errorType, errorMessage);
+    }
+
+    private static EvaluationResult fromError(RuntimeException error) {
+        // Calculator errors are stackless subclasses; report them under the standard exception type
+        Class<?> type = error instanceof CalculatorError ? error.getClass().getSuperclass() : error.getClass();
+        return new EvaluationResult(false, Double.NaN, ErrorCode.of(error), CalculatorError.offsetOf(error),
+                type.getSimpleName(), error.getMessage());
+    }
+}
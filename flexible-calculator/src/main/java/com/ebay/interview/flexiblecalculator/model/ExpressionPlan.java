@@ -0,0 +1,117 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+
+/**
+ * Immutable postfix program for one expression shape. Literal operands are
+ * referenced by their slot index, so every expression with the same shape
+ * (e.g. {@code 1+2*3} and {@code 4+5*6}) shares a single plan. Variables are
+ * resolved to numeric slots in order of first appearance, and functions to
+ * their {@link com.ebay.interview.flexiblecalculator.operator.OperatorRegistry} id.
+ */
+public final class ExpressionPlan {
+
+    public static final byte CONST = 0;
+    public static final byte ADD = 1;
+    public static final byte SUBTRACT = 2;
+    public static final byte MULTIPLY = 3;
+    public static final byte DIVIDE = 4;
+    public static final byte VARIABLE = 5;
+    // Emitted only by ExpressionOptimizer: push a folded constant without an input check,
+    // verify a range obligation left by folding, and check the top of the stack as an output
+    public static final byte FOLDED = 6;
+    public static final byte CHECK = 7;
+    public static final byte CHECK_OUTPUT = 8;
+    // Apply the OperatorRegistry entry whose id is the operand to the values on top of the stack
+    public static final byte CALL = 9;
+
+    private final String shape;
+    private final byte[] code;
+    private final int[] operands;
+    private final int constantCount;
+    private final String[] variables;
+    private final int maxStackDepth;
+    private final boolean pure;
+
+    public ExpressionPlan(String shape, byte[] code, int[] operands, int constantCount, String[] variables,
+                          int maxStackDepth) {
+        this.shape = shape;
+        this.code = code.clone();
+        this.operands = operands.clone();
+        this.constantCount = constantCount;
+        this.variables = variables.clone();
+        this.maxStackDepth = maxStackDepth;
+        this.pure = callsOnlyPureFunctions(code, operands);
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    public int length() {
+        return code.length;
+    }
+
+    public byte opcode(int pc) {
+        return code[pc];
+    }
+
+    public int operand(int pc) {
+        return operands[pc];
+    }
+
+    public int getConstantCount() {
+        return constantCount;
+    }
+
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    public String variableName(int slot) {
+        return variables[slot];
+    }
+
+    // Returns the slot bound to the given variable, or -1 if the plan does not use it
+    public int slotOf(String variable) {
+        for (int slot = 0; slot < variables.length; slot++) {
+            if (variables[slot].equals(variable)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    // False if the plan calls an impure function, so equal inputs may give different results
+    public boolean isPure() {
+        return pure;
+    }
+
+    private static boolean callsOnlyPureFunctions(byte[] code, int[] operands) {
+        for (int pc = 0; pc < code.length; pc++) {
+            if (code[pc] == CALL && !OperatorRegistry.standard().get(operands[pc]).isPure()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static byte opcodeOf(char operator) {
+        switch (operator) {
+            case '+':
+                return ADD;
+            case '-':
+                return SUBTRACT;
+            case '*':
+                return MULTIPLY;
+            case '/':
+                return DIVIDE;
+            default:
+                throw new IllegalArgumentException("Invalid operator: " + operator);
+        }
+    }
+}
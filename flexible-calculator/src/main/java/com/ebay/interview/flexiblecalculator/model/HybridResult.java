@@ -0,0 +1,23 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Value of an expression evaluated by the hybrid evaluator, and whether it
+ * was computed exactly in {@code double} or promoted to {@code BigDecimal}.
+ */
+@Data
+public class HybridResult {
+
+    public enum Path {
+        // Every literal and intermediate result was exactly representable
+        DOUBLE,
+        // Evaluated in BigDecimal under the configured MathContext
+        DECIMAL
+    }
+
+    private final BigDecimal value;
+    private final Path path;
+}
@@ -0,0 +1,33 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+// Syntax, binding and range errors; see CalculatorError
+public class InvalidExpressionException extends IllegalArgumentException implements CalculatorError {
+
+    private final ErrorCode code;
+    private final int offset;
+
+    public InvalidExpressionException(ErrorCode code, String message) {
+        this(code, -1, message);
+    }
+
+    public InvalidExpressionException(ErrorCode code, int offset, String message) {
+        super(message);
+        this.code = code;
+        this.offset = offset;
+    }
+
+    @Override
+    public ErrorCode getCode() {
+        return code;
+    }
+
+    @Override
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+// A malformed numeric literal; see CalculatorError
+public class InvalidNumberException extends NumberFormatException implements CalculatorError {
+
+    private final int offset;
+
+    public InvalidNumberException(int offset, String message) {
+        super(message);
+        this.offset = offset;
+    }
+
+    @Override
+    public ErrorCode getCode() {
+        return ErrorCode.INVALID_NUMBER;
+    }
+
+    @Override
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
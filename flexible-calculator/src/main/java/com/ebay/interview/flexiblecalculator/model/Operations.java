@@ -1,8 +0,0 @@
-package com.ebay.interview.flexiblecalculator.model;
-
-public enum Operations {
-    ADD,
-    SUBTRACT,
-    MULTIPLY,
-    DIVIDE
-}
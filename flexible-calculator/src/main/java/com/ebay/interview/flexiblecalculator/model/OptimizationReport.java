@@ -0,0 +1,19 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+import lombok.Data;
+
+@Data
+public class OptimizationReport {
+
+    // Operands and operators, before and after optimization; range checks are not counted
+    private final int nodesBefore;
+    private final int nodesAfter;
+    // Operations on constants evaluated at compile time
+    private final int foldedConstants;
+    // Operations dropped by IEEE-safe identities such as x * 1 and x - 0
+    private final int identities;
+    // Chains of + or * whose constants were gathered into one (relaxed mode only)
+    private final int reassociatedChains;
+    // Polynomials rewritten into Horner form (relaxed mode only)
+    private final int hornerRewrites;
+}
@@ -0,0 +1,17 @@
+package com.ebay.interview.flexiblecalculator.model;
+
+import lombok.Data;
+
+@Data
+public class SharingReport {
+
+    private final int expressions;
+    // Operands and operators of the expressions compiled one by one
+    private final int nodesBefore;
+    // Distinct nodes left once identical subtrees are shared
+    private final int nodesAfter;
+
+    public int deduplicatedNodes() {
+        return nodesBefore - nodesAfter;
+    }
+}
@@ -3,5 +3,10 @@ package com.ebay.interview.flexiblecalculator.model;
 public enum TokenType {
     NUMBER,
     OPERATOR,
-    PARENTHESIS
+    PARENTHESIS,
+    VARIABLE,
+    // A function name followed by an opening parenthesis, e.g. sqrt in sqrt(2)
+    FUNCTION,
+    // Separates function arguments
+    COMMA
 }
\ No newline at end of file
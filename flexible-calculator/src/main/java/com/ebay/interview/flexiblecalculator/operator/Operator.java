@@ -0,0 +1,97 @@
+package com.ebay.interview.flexiblecalculator.operator;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Describes one infix operator or function known to {@link OperatorRegistry}:
+ * its symbol or name, arity, precedence, associativity and purity, and a
+ * primitive implementation. Compiled expressions refer to operators by their
+ * registry id and call the implementation directly, without boxing.
+ */
+@Getter
+@ToString
+public final class Operator {
+
+    public enum Kind {
+        // Binary and written between its operands, e.g. a + b
+        INFIX,
+        // Written as a call, e.g. pow(a, b)
+        FUNCTION
+    }
+
+    public enum Associativity {
+        LEFT,
+        RIGHT
+    }
+
+    private final String symbol;
+    private final Kind kind;
+    private final int arity;
+    // Infix operators only; higher binds tighter, + is 1 and * is 2
+    private final int precedence;
+    private final Associativity associativity;
+    // Same arguments, same result and no side effects, so calls may be folded and shared
+    private final boolean pure;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final DoubleUnaryOperator unary;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final DoubleBinaryOperator binary;
+
+    private Operator(String symbol, Kind kind, int arity, int precedence, Associativity associativity, boolean pure,
+                     DoubleUnaryOperator unary, DoubleBinaryOperator binary) {
+        this.symbol = symbol;
+        this.kind = kind;
+        this.arity = arity;
+        this.precedence = precedence;
+        this.associativity = associativity;
+        this.pure = pure;
+        this.unary = unary;
+        this.binary = binary;
+    }
+
+    public static Operator infix(char symbol, int precedence, Associativity associativity,
+                                 DoubleBinaryOperator implementation) {
+        if (precedence < 1) {
+            throw new IllegalArgumentException("Precedence must be positive: " + precedence);
+        }
+        return new Operator(String.valueOf(symbol), Kind.INFIX, 2, precedence, associativity, true, null,
+                implementation);
+    }
+
+    public static Operator function(String name, DoubleUnaryOperator implementation) {
+        return new Operator(name, Kind.FUNCTION, 1, 0, Associativity.LEFT, true, implementation, null);
+    }
+
+    public static Operator function(String name, DoubleBinaryOperator implementation) {
+        return new Operator(name, Kind.FUNCTION, 2, 0, Associativity.LEFT, true, null, implementation);
+    }
+
+    // A copy that is never folded at compile time or shared between expressions, e.g. a random number source
+    public Operator impure() {
+        return new Operator(symbol, kind, arity, precedence, associativity, false, unary, binary);
+    }
+
+    public boolean isFunction() {
+        return kind == Kind.FUNCTION;
+    }
+
+    public double apply(double a) {
+        return unary.applyAsDouble(a);
+    }
+
+    public double apply(double a, double b) {
+        return binary.applyAsDouble(a, b);
+    }
+
+    // The implementation as a DoubleUnaryOperator or DoubleBinaryOperator, for generated code to call directly
+    public Object getImplementation() {
+        return arity == 1 ? unary : binary;
+    }
+}
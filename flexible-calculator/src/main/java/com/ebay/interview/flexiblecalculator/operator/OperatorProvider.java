@@ -0,0 +1,14 @@
+package com.ebay.interview.flexiblecalculator.operator;
+
+import java.util.List;
+
+/**
+ * Supplies additional operators and functions. Implementations are found with
+ * {@link java.util.ServiceLoader}: list the class name in
+ * {@code META-INF/services/com.ebay.interview.flexiblecalculator.operator.OperatorProvider}
+ * on the classpath and give it a public no-argument constructor.
+ */
+public interface OperatorProvider {
+
+    List<Operator> operators();
+}
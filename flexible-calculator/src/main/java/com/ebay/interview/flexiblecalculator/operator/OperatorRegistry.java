@@ -0,0 +1,183 @@
+package com.ebay.interview.flexiblecalculator.operator;
+
+import com.ebay.interview.flexiblecalculator.model.DivisionByZeroException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Every operator and function the calculator understands, numbered by id. The
+ * tokenizer, the compiler's precedence rules and every evaluator read them from
+ * here. The four arithmetic operators come first, with ids 0 to 3 in the order
+ * of their {@link com.ebay.interview.flexiblecalculator.model.ExpressionPlan}
+ * opcodes, followed by the built-in functions and then those of each
+ * {@link OperatorProvider} on the classpath. The registry is built once and
+ * never changes, so ids are stable for the life of the JVM.
+ */
+public final class OperatorRegistry {
+
+    // Operators with ids below this have opcodes of their own; the rest are evaluated as calls
+    public static final int ARITHMETIC_OPERATORS = 4;
+
+    private static final List<Operator> BUILT_IN = List.of(
+            Operator.infix('+', 1, Operator.Associativity.LEFT, Double::sum),
+            Operator.infix('-', 1, Operator.Associativity.LEFT, (a, b) -> a - b),
+            Operator.infix('*', 2, Operator.Associativity.LEFT, (a, b) -> a * b),
+            Operator.infix('/', 2, Operator.Associativity.LEFT, OperatorRegistry::divide),
+            Operator.function("sqrt", Math::sqrt),
+            Operator.function("pow", Math::pow),
+            Operator.function("min", Math::min),
+            Operator.function("max", Math::max));
+
+    private final Operator[] operators;
+    // Infix operator ids by symbol character; -1 where there is none
+    private final int[] infixIds = new int[128];
+    // Infix operator precedence by symbol character; -1 where there is none, e.g. for parentheses
+    private final int[] precedences = new int[128];
+    private final Map<String, Integer> functionIds = new HashMap<>();
+    // Function ids by the first character of their name, for matching names in place
+    private final int[][] functionsByInitial = new int[128][];
+
+    private OperatorRegistry(List<Operator> operators) {
+        this.operators = operators.toArray(new Operator[0]);
+        Arrays.fill(infixIds, -1);
+        Arrays.fill(precedences, -1);
+        for (int id = 0; id < this.operators.length; id++) {
+            Operator operator = this.operators[id];
+            if (operator.isFunction()) {
+                if (!isName(operator.getSymbol()) || functionIds.putIfAbsent(operator.getSymbol(), id) != null) {
+                    throw new IllegalStateException("Invalid or duplicate function: " + operator.getSymbol());
+                }
+                char initial = operator.getSymbol().charAt(0);
+                int[] ids = functionsByInitial[initial];
+                ids = ids == null ? new int[1] : Arrays.copyOf(ids, ids.length + 1);
+                ids[ids.length - 1] = id;
+                functionsByInitial[initial] = ids;
+            } else {
+                char symbol = operator.getSymbol().charAt(0);
+                if (!isSymbol(symbol) || infixIds[symbol] >= 0) {
+                    throw new IllegalStateException("Invalid or duplicate operator: " + symbol);
+                }
+                infixIds[symbol] = id;
+                precedences[symbol] = operator.getPrecedence();
+            }
+        }
+    }
+
+    // The built-in operators and functions followed by those of every OperatorProvider on the classpath
+    public static OperatorRegistry standard() {
+        return Standard.INSTANCE;
+    }
+
+    // Like standard(), with providers looked up through the given class loader; a new registry on every call
+    public static OperatorRegistry load(ClassLoader classLoader) {
+        List<Operator> operators = new ArrayList<>(BUILT_IN);
+        for (OperatorProvider provider : ServiceLoader.load(OperatorProvider.class, classLoader)) {
+            operators.addAll(provider.operators());
+        }
+        return new OperatorRegistry(operators);
+    }
+
+    public Operator get(int id) {
+        return operators[id];
+    }
+
+    public int size() {
+        return operators.length;
+    }
+
+    public List<Operator> getOperators() {
+        return Collections.unmodifiableList(Arrays.asList(operators));
+    }
+
+    // Id of the infix operator written as symbol, or -1
+    public int infixId(char symbol) {
+        return symbol < infixIds.length ? infixIds[symbol] : -1;
+    }
+
+    public boolean isInfix(char symbol) {
+        return infixId(symbol) >= 0;
+    }
+
+    // Precedence of the infix operator written as symbol; -1 for anything else, so parentheses bind loosest
+    // on a shunting-yard operator stack
+    public int precedence(char symbol) {
+        return symbol < precedences.length ? precedences[symbol] : -1;
+    }
+
+    public boolean isRightAssociative(char symbol) {
+        int id = infixId(symbol);
+        return id >= 0 && operators[id].getAssociativity() == Operator.Associativity.RIGHT;
+    }
+
+    // Id of the function with the given name, or -1
+    public int functionId(String name) {
+        Integer id = functionIds.get(name);
+        return id != null ? id : -1;
+    }
+
+    // Like functionId(String), without copying the name out of the expression
+    public int functionId(CharSequence expression, int start, int end) {
+        if (start >= end || expression.charAt(start) >= functionsByInitial.length) {
+            return -1;
+        }
+        int[] ids = functionsByInitial[expression.charAt(start)];
+        if (ids != null) {
+            for (int id : ids) {
+                String name = operators[id].getSymbol();
+                if (name.length() == end - start && regionMatches(expression, start, name)) {
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence expression, int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (expression.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Names follow the tokenizer's identifier rules
+    private static boolean isName(String name) {
+        if (name.isEmpty() || !isNameChar(name.charAt(0)) || (name.charAt(0) >= '0' && name.charAt(0) <= '9')) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!isNameChar(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNameChar(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+    }
+
+    // Printable ASCII the tokenizer does not already use for numbers, names, grouping or argument lists
+    private static boolean isSymbol(char symbol) {
+        return symbol > ' ' && symbol < 127 && !Character.isLetterOrDigit(symbol)
+                && "._(),".indexOf(symbol) < 0;
+    }
+
+    private static double divide(double a, double b) {
+        if (b == 0) throw new DivisionByZeroException();
+        return a / b;
+    }
+
+    // Loaded on first use, so providers are looked up once per JVM
+    private static final class Standard {
+
+        private static final OperatorRegistry INSTANCE = load(Thread.currentThread().getContextClassLoader());
+    }
+}
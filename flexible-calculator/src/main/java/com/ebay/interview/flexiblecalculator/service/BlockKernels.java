@@ -0,0 +1,20 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+/**
+ * Element-wise loops over blocks of rows used by {@link ColumnarEvaluator}.
+ * Operators are {@link com.ebay.interview.flexiblecalculator.model.ExpressionPlan}
+ * opcodes; output arrays are written from index 0.
+ */
+interface BlockKernels {
+
+    void apply(byte opcode, double[] a, int aOffset, double[] b, int bOffset, double[] out, int length);
+
+    void applyScalarRight(byte opcode, double[] a, int aOffset, double b, double[] out, int length);
+
+    void applyScalarLeft(byte opcode, double a, double[] b, int bOffset, double[] out, int length);
+
+    // False if any value is below min, above max or NaN; a NaN row is left to the row-by-row pass
+    boolean allWithin(double[] values, int offset, int length, double min, double max);
+
+    boolean containsZero(double[] values, int offset, int length);
+}
@@ -0,0 +1,291 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.BulkEvaluationSummary;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates a file with one expression per line and writes one result per
+ * line to an output file. The input is memory-mapped in line-aligned chunks
+ * that are evaluated in parallel, while results are written in input order.
+ * After each chunk is written, a checkpoint next to the output file records
+ * the progress, so an interrupted run resumes after the last written chunk.
+ */
+@Service
+public class BulkFileEvaluationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkFileEvaluationService.class);
+
+    static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    static final String ERROR_PREFIX = "ERROR: ";
+    private static final int BOUNDARY_SCAN_SIZE = 8192;
+
+    private final ExpressionEvaluator expressionEvaluator;
+    private final int chunkSize;
+    private final int parallelism;
+
+    @Autowired
+    public BulkFileEvaluationService(ExpressionEvaluator expressionEvaluator, CalculatorProperties properties) {
+        this.expressionEvaluator = expressionEvaluator;
+        this.chunkSize = properties.getBulk().getChunkSize();
+        int configured = properties.getBatch().getParallelism();
+        this.parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    public BulkEvaluationSummary evaluateFile(Path input, Path output) throws IOException {
+        Path checkpointPath = checkpointFor(output);
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long inputSize = in.size();
+            long inputModified = Files.getLastModifiedTime(input).toMillis();
+
+            Checkpoint checkpoint = Checkpoint.load(checkpointPath);
+            if (checkpoint == null || !checkpoint.matches(input, inputSize, inputModified, chunkSize)
+                    || checkpoint.outputOffset > out.size()) {
+                checkpoint = new Checkpoint(input, inputSize, inputModified, chunkSize);
+            } else {
+                logger.info("Resuming {} after {} completed chunks", input, checkpoint.chunks);
+            }
+            int resumedChunks = checkpoint.chunks;
+
+            // Drop any output written after the last checkpoint
+            out.truncate(checkpoint.outputOffset);
+            out.position(checkpoint.outputOffset);
+
+            ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "bulk-evaluator");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>();
+                long next = checkpoint.inputOffset;
+                while (next < inputSize || !inFlight.isEmpty()) {
+                    // Keep a bounded number of chunks in memory
+                    while (next < inputSize && inFlight.size() < parallelism * 2) {
+                        long end = nextLineBoundary(in, next, inputSize);
+                        MappedByteBuffer region = in.map(FileChannel.MapMode.READ_ONLY, next, end - next);
+                        long chunkEnd = end;
+                        inFlight.add(workers.submit(() -> evaluateChunk(region, chunkEnd)));
+                        next = end;
+                    }
+
+                    ChunkResult chunk = await(inFlight.poll());
+                    writeFully(out, ByteBuffer.wrap(chunk.output, 0, chunk.length));
+                    out.force(false);
+                    checkpoint.advance(chunk.inputEnd, out.position(), chunk.lines, chunk.errors);
+                    checkpoint.save(checkpointPath);
+                }
+            } finally {
+                workers.shutdownNow();
+            }
+
+            Files.deleteIfExists(checkpointPath);
+            return new BulkEvaluationSummary(checkpoint.lines, checkpoint.errors, checkpoint.chunks, resumedChunks);
+        }
+    }
+
+    static Path checkpointFor(Path output) {
+        return output.resolveSibling(output.getFileName() + CHECKPOINT_SUFFIX);
+    }
+
+    // Returns the offset just past the first newline at or after start + chunkSize, or the end of the file
+    private long nextLineBoundary(FileChannel in, long start, long size) throws IOException {
+        long position = Math.min(start + chunkSize, size);
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < size) {
+            scan.clear();
+            int read = in.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return checkChunkLength(start, position + i + 1);
+                }
+            }
+            position += read;
+        }
+        return checkChunkLength(start, size);
+    }
+
+    private static long checkChunkLength(long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Line starting near offset " + start + " is too long to map");
+        }
+        return end;
+    }
+
+    private ChunkResult evaluateChunk(ByteBuffer region, long inputEnd) {
+        ResultOutput output = new ResultOutput(region.remaining() + region.remaining() / 2);
+        byte[] line = new byte[256];
+        long lines = 0;
+        long errors = 0;
+
+        while (region.hasRemaining()) {
+            int length = 0;
+            byte b = 0;
+            while (region.hasRemaining() && (b = region.get()) != '\n') {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+
+            EvaluationResult result = expressionEvaluator.evaluateSafely(new String(line, 0, length, StandardCharsets.UTF_8));
+            if (result.isSuccess()) {
+                output.writeAscii(Double.toString(result.getValue()));
+            } else {
+                output.writeAscii(ERROR_PREFIX);
+                output.writeUtf8(String.valueOf(result.getErrorMessage()));
+                errors++;
+            }
+            output.write('\n');
+            lines++;
+        }
+        return new ChunkResult(output.buffer(), output.size(), inputEnd, lines, errors);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static ChunkResult await(Future<ChunkResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while evaluating file", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to evaluate chunk", e.getCause());
+        }
+    }
+
+    private static final class ChunkResult {
+
+        private final byte[] output;
+        private final int length;
+        private final long inputEnd;
+        private final long lines;
+        private final long errors;
+
+        ChunkResult(byte[] output, int length, long inputEnd, long lines, long errors) {
+            this.output = output;
+            this.length = length;
+            this.inputEnd = inputEnd;
+            this.lines = lines;
+            this.errors = errors;
+        }
+    }
+
+    // Progress of one input file, saved as a properties file next to the output
+    private static final class Checkpoint {
+
+        private final String input;
+        private final long inputSize;
+        private final long inputModified;
+        private final int chunkSize;
+        private long inputOffset;
+        private long outputOffset;
+        private int chunks;
+        private long lines;
+        private long errors;
+
+        Checkpoint(Path input, long inputSize, long inputModified, int chunkSize) {
+            this(input.toAbsolutePath().toString(), inputSize, inputModified, chunkSize);
+        }
+
+        private Checkpoint(String input, long inputSize, long inputModified, int chunkSize) {
+            this.input = input;
+            this.inputSize = inputSize;
+            this.inputModified = inputModified;
+            this.chunkSize = chunkSize;
+        }
+
+        boolean matches(Path path, long size, long modified, int chunkSize) {
+            return path.toAbsolutePath().toString().equals(input) && inputSize == size
+                    && inputModified == modified && this.chunkSize == chunkSize;
+        }
+
+        void advance(long inputOffset, long outputOffset, long lines, long errors) {
+            this.inputOffset = inputOffset;
+            this.outputOffset = outputOffset;
+            this.chunks++;
+            this.lines += lines;
+            this.errors += errors;
+        }
+
+        void save(Path path) throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("input", input);
+            properties.setProperty("input.size", Long.toString(inputSize));
+            properties.setProperty("input.modified", Long.toString(inputModified));
+            properties.setProperty("chunk.size", Integer.toString(chunkSize));
+            properties.setProperty("input.offset", Long.toString(inputOffset));
+            properties.setProperty("output.offset", Long.toString(outputOffset));
+            properties.setProperty("chunks", Integer.toString(chunks));
+            properties.setProperty("lines", Long.toString(lines));
+            properties.setProperty("errors", Long.toString(errors));
+
+            // Write then rename so a crash never leaves a half-written checkpoint
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temporary)) {
+                properties.store(stream, "Bulk evaluation progress");
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        static Checkpoint load(Path path) throws IOException {
+            if (!Files.exists(path)) {
+                return null;
+            }
+            Properties properties = new Properties();
+            try (InputStream stream = Files.newInputStream(path)) {
+                properties.load(stream);
+                Checkpoint checkpoint = new Checkpoint(properties.getProperty("input"),
+                        Long.parseLong(properties.getProperty("input.size")),
+                        Long.parseLong(properties.getProperty("input.modified")),
+                        Integer.parseInt(properties.getProperty("chunk.size")));
+                checkpoint.inputOffset = Long.parseLong(properties.getProperty("input.offset"));
+                checkpoint.outputOffset = Long.parseLong(properties.getProperty("output.offset"));
+                checkpoint.chunks = Integer.parseInt(properties.getProperty("chunks"));
+                checkpoint.lines = Long.parseLong(properties.getProperty("lines"));
+                checkpoint.errors = Long.parseLong(properties.getProperty("errors"));
+                return checkpoint;
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring unreadable checkpoint {}: {}", path, e.getMessage());
+                return null;
+            }
+        }
+    }
+}
@@ -1,35 +1,43 @@
 package com.ebay.interview.flexiblecalculator.service;
 
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
 import org.springframework.expression.Operation;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.BiFunction;
-
 @Service
 public class Calculator {
 
-    private final Map<Operation, BiFunction<Double, Double, Double>> operationMap = new HashMap<>();
-
-    public Calculator() {
-        // Initialize the operation map with supported operations
-        operationMap.put(Operation.ADD, Double::sum);
-        operationMap.put(Operation.SUBTRACT, (a, b) -> a - b);
-        operationMap.put(Operation.MULTIPLY, (a, b) -> a * b);
-        operationMap.put(Operation.DIVIDE, (a, b) -> {
-            if (b == 0) {
-                throw new ArithmeticException("Division by zero");
-            }
-            return a / b;
-        });
-    }
+    // Operations are looked up in the same registry that drives expression evaluation
+    private final OperatorRegistry registry = OperatorRegistry.standard();
 
     public double calculate(Operation operation, double num1, double num2) {
-        BiFunction<Double, Double, Double> operationFunction = operationMap.get(operation);
-        if (operationFunction == null) {
+        int id = operation == null ? -1 : registry.infixId(symbolOf(operation));
+        if (id < 0) {
             throw new IllegalArgumentException("Operation not supported: " + operation);
         }
-        return operationFunction.apply(num1, num2);
+        if (operation == Operation.DIVIDE && num2 == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return registry.get(id).apply(num1, num2);
+    }
+
+    // Symbols the registry would use for each operation; MODULUS and POWER need an OperatorProvider
+    private static char symbolOf(Operation operation) {
+        switch (operation) {
+            case ADD:
+                return '+';
+            case SUBTRACT:
+                return '-';
+            case MULTIPLY:
+                return '*';
+            case DIVIDE:
+                return '/';
+            case MODULUS:
+                return '%';
+            case POWER:
+                return '^';
+            default:
+                return 0;
+        }
     }
-}
\ No newline at end of file
+}
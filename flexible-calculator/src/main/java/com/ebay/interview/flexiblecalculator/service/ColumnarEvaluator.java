@@ -0,0 +1,292 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Evaluates one {@link CompiledExpression} over many rows held as columns,
+ * one {@code double[]} per variable. Rows are processed in blocks and each
+ * plan instruction runs as a single loop over the block, using the JDK Vector
+ * API when the {@code jdk.incubator.vector} module is loaded.
+ *
+ * <p>Functions and plugin operators run as a plain loop calling their
+ * implementation once per row. Range and division-by-zero checks are done once per block. A block that
+ * fails a check is re-evaluated row by row so the error thrown is exactly the
+ * one {@link CompiledExpression#evaluate(double[])} reports for the first
+ * failing row; results of earlier rows have been written by then.
+ */
+@Service
+public class ColumnarEvaluator {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNELS = "com.ebay.interview.flexiblecalculator.service.VectorBlockKernels";
+
+    private final BlockKernels kernels;
+    private final int blockSize;
+
+    @Autowired
+    public ColumnarEvaluator(CalculatorProperties properties) {
+        this(properties.getColumnar().getBlockSize(), properties.getColumnar().isVectorApi());
+    }
+
+    public ColumnarEvaluator(int blockSize, boolean useVectorApi) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.kernels = useVectorApi ? loadKernels() : new ScalarBlockKernels();
+    }
+
+    // True when block loops use the Vector API rather than auto-vectorized scalar loops
+    public boolean isVectorized() {
+        return !(kernels instanceof ScalarBlockKernels);
+    }
+
+    // Columns are keyed by variable name; every variable of the expression must be present
+    public double[] evaluate(CompiledExpression expression, Map<String, double[]> columns, int rows) {
+        double[][] bySlot = new double[expression.getVariables().size()][];
+        for (int slot = 0; slot < bySlot.length; slot++) {
+            String name = expression.getVariables().get(slot);
+            bySlot[slot] = columns.get(name);
+            if (bySlot[slot] == null) {
+                throw new IllegalArgumentException("Missing column for variable: " + name);
+            }
+        }
+        double[] results = new double[rows];
+        evaluate(expression, bySlot, results);
+        return results;
+    }
+
+    // Columns are indexed by variable slot (see CompiledExpression#slotOf); one result per row is written to results
+    public void evaluate(CompiledExpression expression, double[][] columns, double[] results) {
+        int rows = results.length;
+        int variables = expression.getVariables().size();
+        if (columns.length < variables) {
+            throw new IllegalArgumentException("Expected " + variables + " columns but got " + columns.length);
+        }
+        for (int slot = 0; slot < variables; slot++) {
+            if (columns[slot].length < rows) {
+                throw new IllegalArgumentException("Column " + expression.getVariables().get(slot)
+                        + " has " + columns[slot].length + " rows but " + rows + " were requested");
+            }
+        }
+        if (rows == 0) {
+            return;
+        }
+        RangePolicy policy = expression.currentPolicy();
+        if (policy == null) {
+            // Bounds are unknown, so nothing can be checked per block
+            evaluateRows(expression, null, columns, 0, rows, results);
+            return;
+        }
+        if (policy.exceedsExactIntegers()) {
+            // Integers are evaluated exactly in long arithmetic, which blocks of doubles cannot do
+            evaluateRows(expression, policy, columns, 0, rows, results);
+            return;
+        }
+
+        Block block = new Block(expression, policy, Math.min(blockSize, rows));
+        for (int from = 0; from < rows; from += blockSize) {
+            int length = Math.min(blockSize, rows - from);
+            if (!block.evaluate(columns, from, length, results)) {
+                evaluateRows(expression, policy, columns, from, length, results);
+            }
+        }
+    }
+
+    private static void evaluateRows(CompiledExpression expression, RangePolicy policy, double[][] columns, int from,
+                                     int length, double[] results) {
+        double[] slots = expression.newSlots();
+        EvaluationWorkspace workspace = EvaluationWorkspace.forCurrentThread();
+        for (int row = from, end = from + length; row < end; row++) {
+            for (int slot = 0; slot < slots.length; slot++) {
+                slots[slot] = columns[slot][row];
+            }
+            results[row] = policy != null ? expression.evaluate(slots, workspace, policy) : expression.evaluate(slots, workspace);
+        }
+    }
+
+    private static BlockKernels loadKernels() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (BlockKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall back to scalar loops
+            }
+        }
+        return new ScalarBlockKernels();
+    }
+
+    // Per-call scratch state: one buffer per stack slot plus the operand stack itself
+    private final class Block {
+
+        private final CompiledExpression expression;
+        private final ExpressionPlan plan;
+        private final double[][] buffers;
+        // An operand is either a scalar (array null) or length values of array starting at offset
+        private final double[][] arrays;
+        private final int[] offsets;
+        private final double[] scalars;
+
+        private final double minInput;
+        private final double maxInput;
+        private final double minOutput;
+        private final double maxOutput;
+        // The output range without infinities, for function results
+        private final double finiteMin;
+        private final double finiteMax;
+
+        Block(CompiledExpression expression, RangePolicy policy, int capacity) {
+            this.expression = expression;
+            this.plan = expression.getPlan();
+            int depth = Math.max(1, plan.getMaxStackDepth());
+            this.buffers = new double[depth][capacity];
+            this.arrays = new double[depth][];
+            this.offsets = new int[depth];
+            this.scalars = new double[depth];
+            this.minInput = policy.getMinInput();
+            this.maxInput = policy.getMaxInput();
+            this.minOutput = policy.getMinOutput();
+            this.maxOutput = policy.getMaxOutput();
+            this.finiteMin = Math.max(minOutput, -Double.MAX_VALUE);
+            this.finiteMax = Math.min(maxOutput, Double.MAX_VALUE);
+        }
+
+        // False if any check failed; nothing has been written to results in that case
+        boolean evaluate(double[][] columns, int from, int length, double[] results) {
+            int top = 0;
+            for (int pc = 0, size = plan.length(); pc < size; pc++) {
+                byte opcode = plan.opcode(pc);
+                if (opcode == ExpressionPlan.CONST) {
+                    double value = expression.constant(plan.operand(pc));
+                    if (value < minInput || value > maxInput) {
+                        return false;
+                    }
+                    arrays[top] = null;
+                    scalars[top++] = value;
+                } else if (opcode == ExpressionPlan.VARIABLE) {
+                    double[] column = columns[plan.operand(pc)];
+                    if (!kernels.allWithin(column, from, length, minInput, maxInput)) {
+                        return false;
+                    }
+                    arrays[top] = column;
+                    offsets[top++] = from;
+                } else if (opcode == ExpressionPlan.FOLDED) {
+                    arrays[top] = null;
+                    scalars[top++] = expression.constant(plan.operand(pc));
+                } else if (opcode == ExpressionPlan.CHECK) {
+                    if (!expression.obligation(plan.operand(pc)).satisfiedBy(minInput, maxInput, minOutput, maxOutput)) {
+                        return false;
+                    }
+                } else if (opcode == ExpressionPlan.CHECK_OUTPUT) {
+                    int t = top - 1;
+                    if (arrays[t] == null
+                            ? scalars[t] < minOutput || scalars[t] > maxOutput
+                            : !kernels.allWithin(arrays[t], offsets[t], length, minOutput, maxOutput)) {
+                        return false;
+                    }
+                } else if (opcode == ExpressionPlan.CALL) {
+                    Operator operator = OperatorRegistry.standard().get(plan.operand(pc));
+                    top -= operator.getArity() - 1;
+                    if (!call(operator, top - 1, length)) {
+                        return false;
+                    }
+                } else {
+                    int b = --top;
+                    int a = top - 1;
+                    if (!apply(opcode, a, b, length)) {
+                        return false;
+                    }
+                }
+            }
+
+            if (arrays[0] == null) {
+                Arrays.fill(results, from, from + length, scalars[0]);
+            } else {
+                System.arraycopy(arrays[0], offsets[0], results, from, length);
+            }
+            return true;
+        }
+
+        // Applies the operator to stack entry a, and a + 1 if binary, leaving the result in a
+        private boolean call(Operator operator, int a, int length) {
+            boolean binary = operator.getArity() == 2;
+            int b = a + 1;
+            double[] out = buffers[a];
+            try {
+                if (arrays[a] == null && (!binary || arrays[b] == null)) {
+                    double result = binary ? operator.apply(scalars[a], scalars[b]) : operator.apply(scalars[a]);
+                    if (!(result >= finiteMin && result <= finiteMax)) {
+                        return false;
+                    }
+                    scalars[a] = result;
+                    return true;
+                }
+                if (!binary) {
+                    double[] x = arrays[a];
+                    int offset = offsets[a];
+                    for (int i = 0; i < length; i++) out[i] = operator.apply(x[offset + i]);
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        out[i] = operator.apply(arrays[a] == null ? scalars[a] : arrays[a][offsets[a] + i],
+                                arrays[b] == null ? scalars[b] : arrays[b][offsets[b] + i]);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // A plugin that throws fails the block, and the row-by-row pass reports the first failing row
+                return false;
+            }
+            // Calls without a finite result fail the block, and the row-by-row pass reports them
+            if (!kernels.allWithin(out, 0, length, finiteMin, finiteMax)) {
+                return false;
+            }
+            arrays[a] = out;
+            offsets[a] = 0;
+            return true;
+        }
+
+        // Applies opcode to stack entries a and b, leaving the result in a
+        private boolean apply(byte opcode, int a, int b, int length) {
+            if (arrays[a] == null && arrays[b] == null) {
+                if (opcode == ExpressionPlan.DIVIDE && scalars[b] == 0) {
+                    return false;
+                }
+                double result = CompiledExpression.apply(opcode, scalars[a], scalars[b]);
+                if (result < minOutput || result > maxOutput) {
+                    return false;
+                }
+                scalars[a] = result;
+                return true;
+            }
+
+            if (opcode == ExpressionPlan.DIVIDE
+                    && (arrays[b] == null ? scalars[b] == 0 : kernels.containsZero(arrays[b], offsets[b], length))) {
+                return false;
+            }
+
+            // Writing over an operand's own buffer is safe since each element only reads its own index
+            double[] out = buffers[a];
+            if (arrays[b] == null) {
+                kernels.applyScalarRight(opcode, arrays[a], offsets[a], scalars[b], out, length);
+            } else if (arrays[a] == null) {
+                kernels.applyScalarLeft(opcode, scalars[a], arrays[b], offsets[b], out, length);
+            } else {
+                kernels.apply(opcode, arrays[a], offsets[a], arrays[b], offsets[b], out, length);
+            }
+            // Calls without a finite result fail the block, and the row-by-row pass reports them
+            if (!kernels.allWithin(out, 0, length, finiteMin, finiteMax)) {
+                return false;
+            }
+            arrays[a] = out;
+            offsets[a] = 0;
+            return true;
+        }
+    }
+}
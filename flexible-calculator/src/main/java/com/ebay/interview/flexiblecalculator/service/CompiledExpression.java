@@ -0,0 +1,472 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.model.DivisionByZeroException;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import com.ebay.interview.flexiblecalculator.model.InvalidExpressionException;
+import com.ebay.interview.flexiblecalculator.model.OptimizationReport;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+import com.ebay.interview.flexiblecalculator.utils.NumberParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An expression ready for repeated evaluation: a shared {@link ExpressionPlan}
+ * bound to this expression's literal values. Variables are read from a
+ * caller-supplied slot array (see {@link #slotOf(String)}). Range limits come
+ * from the {@link RangeValidator}'s current policy unless a {@link RangePolicy}
+ * is passed per call or bound with {@link #withPolicy(RangePolicy)}. Instances
+ * may be evaluated concurrently; once an expression has been evaluated often
+ * enough it switches from the interpreter to code from {@link ExpressionCodeGenerator}.
+ * An {@link ExpressionOptimizer} may replace the plan with a private, optimized one.
+ *
+ * <p>Under a policy whose bounds reach 2^53 or beyond, integer literals and
+ * whole-number variables are evaluated as exact {@code long}s, switching to
+ * {@code double} only when an operation overflows, a division leaves a
+ * remainder or a function is called. Narrower policies keep to {@code double}, which is already exact there.
+ */
+public final class CompiledExpression {
+
+    private static final double[] NO_SLOTS = new double[0];
+    private static final Tier[] NO_TIERS = new Tier[0];
+    private static final RangeObligation[] NO_OBLIGATIONS = new RangeObligation[0];
+    // Generated code is kept for this many policies at once; the oldest is dropped first
+    private static final int MAX_TIERS = 4;
+    // No exact long value: a constant evaluated as a double, or an overflowed or fractional result.
+    // Never a long operand itself, as isInteger excludes -2^63. The same sentinel NumberParser and TokenBuffer
+    // use for literals that are not exact integers
+    static final long INEXACT = NumberParser.INEXACT;
+    private static final double LONG_LIMIT = 0x1p63;
+
+    private final String expression;
+    private final ExpressionPlan plan;
+    private final double[] constants;
+    // Exact value of each integer constant, including literals a double would round; INEXACT for the rest
+    private final long[] integers;
+    private final RangeCheck rangeCheck;
+    private final List<String> variables;
+    // Range checks owed by an optimized plan's CHECK instructions
+    private final RangeObligation[] obligations;
+    private final OptimizationReport optimization;
+
+    private final ExpressionCodeGenerator codeGenerator;
+    private final int compileThreshold;
+    // Racy by design: a lost increment only delays code generation
+    private int evaluations;
+    private volatile Tier[] tiers = NO_TIERS;
+
+    public CompiledExpression(String expression, ExpressionPlan plan, double[] constants, RangeValidator rangeValidator) {
+        this(expression, plan, constants, rangeValidator, null, 0);
+    }
+
+    public CompiledExpression(String expression, ExpressionPlan plan, double[] constants, RangeValidator rangeValidator,
+                              ExpressionCodeGenerator codeGenerator, int compileThreshold) {
+        this(expression, plan, constants, integersOf(constants), rangeValidator, codeGenerator, compileThreshold);
+    }
+
+    // integers holds each constant's exact value, or Long.MIN_VALUE if it is not an integer (see ExpressionCompiler)
+    public CompiledExpression(String expression, ExpressionPlan plan, double[] constants, long[] integers,
+                              RangeValidator rangeValidator, ExpressionCodeGenerator codeGenerator, int compileThreshold) {
+        if (constants.length != plan.getConstantCount()) {
+            throw new IllegalArgumentException("Plan expects " + plan.getConstantCount()
+                    + " constants but got " + constants.length);
+        }
+        if (integers.length != constants.length) {
+            throw new IllegalArgumentException("Expected " + constants.length + " integers but got " + integers.length);
+        }
+        this.expression = expression;
+        this.plan = plan;
+        this.constants = constants.clone();
+        this.integers = integers.clone();
+        this.rangeCheck = rangeValidator;
+        this.codeGenerator = compileThreshold > 0 ? codeGenerator : null;
+        this.compileThreshold = compileThreshold;
+        this.obligations = NO_OBLIGATIONS;
+        this.optimization = null;
+
+        List<String> names = new ArrayList<>(plan.getVariableCount());
+        for (int slot = 0; slot < plan.getVariableCount(); slot++) {
+            names.add(plan.variableName(slot));
+        }
+        this.variables = Collections.unmodifiableList(names);
+    }
+
+    private CompiledExpression(CompiledExpression source, RangePolicy policy) {
+        this.expression = source.expression;
+        this.plan = source.plan;
+        this.constants = source.constants;
+        this.integers = source.integers;
+        this.rangeCheck = policy;
+        this.variables = source.variables;
+        this.codeGenerator = source.codeGenerator;
+        this.compileThreshold = source.compileThreshold;
+        this.obligations = source.obligations;
+        this.optimization = source.optimization;
+    }
+
+    private CompiledExpression(CompiledExpression source, ExpressionPlan plan, double[] constants, long[] integers,
+                               RangeObligation[] obligations, OptimizationReport optimization) {
+        this.expression = source.expression;
+        this.plan = plan;
+        this.constants = constants;
+        this.integers = integers;
+        this.rangeCheck = source.rangeCheck;
+        this.variables = source.variables;
+        this.codeGenerator = source.codeGenerator;
+        this.compileThreshold = source.compileThreshold;
+        this.obligations = obligations;
+        this.optimization = optimization;
+    }
+
+    // The same expression running an optimized plan; see ExpressionOptimizer
+    CompiledExpression optimized(ExpressionPlan plan, double[] constants, long[] integers, RangeObligation[] obligations,
+                                 OptimizationReport optimization) {
+        return new CompiledExpression(this, plan, constants, integers, obligations, optimization);
+    }
+
+    // A copy of this expression that always evaluates under the given policy
+    public CompiledExpression withPolicy(RangePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Range policy cannot be null");
+        }
+        return new CompiledExpression(this, policy);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public ExpressionPlan getPlan() {
+        return plan;
+    }
+
+    // Node counts before and after optimization; null if the plan was not optimized
+    public OptimizationReport getOptimization() {
+        return optimization;
+    }
+
+    double constant(int index) {
+        return constants[index];
+    }
+
+    // Exact value of a constant, or INEXACT if it is evaluated as a double
+    long integer(int index) {
+        return integers[index];
+    }
+
+    RangeObligation obligation(int index) {
+        return obligations[index];
+    }
+
+    // Null when the range validator does not expose a policy
+    RangePolicy currentPolicy() {
+        return rangeCheck.currentPolicy();
+    }
+
+    // Variable names in slot order
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    public int slotOf(String variable) {
+        int slot = plan.slotOf(variable);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Unknown variable: " + variable);
+        }
+        return slot;
+    }
+
+    // Allocates a slot array sized for this expression's variables
+    public double[] newSlots() {
+        return new double[variables.size()];
+    }
+
+    public double evaluate() {
+        return evaluate(NO_SLOTS, EvaluationWorkspace.forCurrentThread());
+    }
+
+    public double evaluate(double[] slots) {
+        return evaluate(slots, EvaluationWorkspace.forCurrentThread());
+    }
+
+    // Evaluates using a caller-owned workspace; allocates nothing once the workspace has grown to fit
+    public double evaluate(double[] slots, EvaluationWorkspace workspace) {
+        checkSlots(slots);
+        return run(slots, workspace, rangeCheck);
+    }
+
+    public double evaluate(double[] slots, RangePolicy policy) {
+        return evaluate(slots, EvaluationWorkspace.forCurrentThread(), policy);
+    }
+
+    // Evaluates under the given policy instead of the one this expression is bound to
+    public double evaluate(double[] slots, EvaluationWorkspace workspace, RangePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Range policy cannot be null");
+        }
+        checkSlots(slots);
+        return run(slots, workspace, policy);
+    }
+
+    // True once this expression runs as generated bytecode for the current range policy
+    public boolean isGenerated() {
+        Tier current = tierFor(rangeCheck.currentPolicy());
+        return current != null && current.code != null;
+    }
+
+    private void checkSlots(double[] slots) {
+        if (slots.length < variables.size()) {
+            if (slots.length == 0) {
+                throw new InvalidExpressionException(ErrorCode.UNBOUND_VARIABLE, "Unbound variables in expression: " + variables);
+            }
+            throw new IllegalArgumentException("Expected " + variables.size() + " variable values but got " + slots.length);
+        }
+    }
+
+    private double run(double[] slots, EvaluationWorkspace workspace, RangeCheck check) {
+        // Read the policy once so a concurrent swap never applies halfway through an evaluation
+        RangePolicy policy = check.currentPolicy();
+        if (policy != null && policy.exceedsExactIntegers()) {
+            return interpretIntegers(slots, workspace, policy);
+        }
+        Tier current = tierFor(policy);
+        if (current == null) {
+            if (policy == null || codeGenerator == null || ++evaluations < compileThreshold) {
+                return interpret(slots, workspace, policy != null ? policy : check);
+            }
+            current = tierUp(policy);
+        }
+        return current.code != null ? current.code.evaluate(slots) : interpret(slots, workspace, policy);
+    }
+
+    private Tier tierFor(RangePolicy policy) {
+        for (Tier tier : tiers) {
+            if (tier.policy == policy) {
+                return tier;
+            }
+        }
+        return null;
+    }
+
+    private synchronized Tier tierUp(RangePolicy policy) {
+        Tier current = tierFor(policy);
+        if (current != null) {
+            return current;
+        }
+        GeneratedExpression code = codeGenerator.generate(plan, constants, obligations, policy.getMinInput(),
+                policy.getMaxInput(), policy.getMinOutput(), policy.getMaxOutput());
+        current = new Tier(code, policy);
+
+        Tier[] previous = tiers;
+        int kept = Math.min(previous.length, MAX_TIERS - 1);
+        Tier[] next = new Tier[kept + 1];
+        System.arraycopy(previous, previous.length - kept, next, 0, kept);
+        next[kept] = current;
+        tiers = next;
+        return current;
+    }
+
+    private double interpret(double[] slots, EvaluationWorkspace workspace, RangeCheck rangeCheck) {
+        double[] stack = workspace.values(plan.getMaxStackDepth());
+        int top = 0;
+
+        for (int pc = 0, length = plan.length(); pc < length; pc++) {
+            byte opcode = plan.opcode(pc);
+            if (opcode == ExpressionPlan.CONST) {
+                double value = constants[plan.operand(pc)];
+
+                // Validate input value
+                rangeCheck.validateInput(value);
+
+                stack[top++] = value;
+            } else if (opcode == ExpressionPlan.VARIABLE) {
+                double value = slots[plan.operand(pc)];
+
+                // Bound values are validated like literals
+                rangeCheck.validateInput(value);
+
+                stack[top++] = value;
+            } else if (opcode == ExpressionPlan.FOLDED) {
+                // Checked by the CHECK instruction in front of it
+                stack[top++] = constants[plan.operand(pc)];
+            } else if (opcode == ExpressionPlan.CHECK) {
+                obligations[plan.operand(pc)].check(rangeCheck);
+            } else if (opcode == ExpressionPlan.CHECK_OUTPUT) {
+                rangeCheck.validateOutput(stack[top - 1]);
+            } else if (opcode == ExpressionPlan.CALL) {
+                top = call(plan.operand(pc), stack, top);
+                rangeCheck.validateOutput(stack[top - 1]);
+            } else {
+                double b = stack[--top];
+                double a = stack[top - 1];
+                double result = apply(opcode, a, b);
+
+                // Validate output value
+                rangeCheck.validateOutput(result);
+
+                stack[top - 1] = result;
+            }
+        }
+
+        return stack[0];
+    }
+
+    // Like interpret, but every operand also carries an exact long while it is a whole number
+    private double interpretIntegers(double[] slots, EvaluationWorkspace workspace, RangeCheck rangeCheck) {
+        int depth = plan.getMaxStackDepth();
+        double[] stack = workspace.values(depth);
+        long[] exact = workspace.integers(depth);
+        boolean[] integral = workspace.flags(depth);
+        int top = 0;
+
+        for (int pc = 0, length = plan.length(); pc < length; pc++) {
+            byte opcode = plan.opcode(pc);
+            if (opcode == ExpressionPlan.CONST || opcode == ExpressionPlan.FOLDED) {
+                int index = plan.operand(pc);
+                double value = constants[index];
+                if (opcode == ExpressionPlan.CONST) {
+                    rangeCheck.validateInput(value);
+                }
+                integral[top] = integers[index] != INEXACT;
+                exact[top] = integers[index];
+                stack[top++] = value;
+            } else if (opcode == ExpressionPlan.VARIABLE) {
+                double value = slots[plan.operand(pc)];
+                rangeCheck.validateInput(value);
+                integral[top] = isInteger(value);
+                exact[top] = (long) value;
+                stack[top++] = value;
+            } else if (opcode == ExpressionPlan.CHECK) {
+                obligations[plan.operand(pc)].check(rangeCheck);
+            } else if (opcode == ExpressionPlan.CHECK_OUTPUT) {
+                rangeCheck.validateOutput(stack[top - 1]);
+            } else if (opcode == ExpressionPlan.CALL) {
+                // Functions take and return doubles; the operands' doubles are their longs correctly rounded
+                top = call(plan.operand(pc), stack, top);
+                rangeCheck.validateOutput(stack[top - 1]);
+                integral[top - 1] = false;
+            } else {
+                int b = --top;
+                int a = top - 1;
+                if (integral[a] && integral[b]) {
+                    long result = applyExact(opcode, exact[a], exact[b]);
+                    if (result != INEXACT) {
+                        rangeCheck.validateOutput((double) result);
+                        exact[a] = result;
+                        stack[a] = result;
+                        continue;
+                    }
+                }
+                // Promoted: the operands' doubles are their longs correctly rounded
+                double result = apply(opcode, stack[a], stack[b]);
+                rangeCheck.validateOutput(result);
+                integral[a] = false;
+                stack[a] = result;
+            }
+        }
+
+        return stack[0];
+    }
+
+    // The exact result, or INEXACT if it overflows a long or a division leaves a remainder
+    static long applyExact(byte opcode, long a, long b) {
+        if (opcode == ExpressionPlan.DIVIDE) {
+            if (b == 0) throw divisionByZero();
+            return a % b == 0 ? a / b : INEXACT;
+        }
+        try {
+            switch (opcode) {
+                case ExpressionPlan.ADD:
+                    return Math.addExact(a, b);
+                case ExpressionPlan.SUBTRACT:
+                    return Math.subtractExact(a, b);
+                case ExpressionPlan.MULTIPLY:
+                    return Math.multiplyExact(a, b);
+                default:
+                    throw new IllegalArgumentException("Invalid opcode: " + opcode);
+            }
+        } catch (ArithmeticException e) {
+            return INEXACT;
+        }
+    }
+
+    // Whole numbers a long holds exactly; -0.0 is left to double so its sign survives
+    static boolean isInteger(double value) {
+        return value == (long) value && Math.abs(value) < LONG_LIMIT
+                && (value != 0 || Double.doubleToRawLongBits(value) == 0);
+    }
+
+    private static long[] integersOf(double[] constants) {
+        long[] integers = new long[constants.length];
+        for (int i = 0; i < constants.length; i++) {
+            integers[i] = integerOf(constants[i]);
+        }
+        return integers;
+    }
+
+    // The value as a long if it is an integer, otherwise INEXACT
+    static long integerOf(double value) {
+        return isInteger(value) ? (long) value : INEXACT;
+    }
+
+    static double apply(byte opcode, double a, double b) {
+        switch (opcode) {
+            case ExpressionPlan.ADD:
+                return a + b;
+            case ExpressionPlan.SUBTRACT:
+                return a - b;
+            case ExpressionPlan.MULTIPLY:
+                return a * b;
+            case ExpressionPlan.DIVIDE:
+                if (b == 0) throw divisionByZero();
+                return a / b;
+            default:
+                throw new IllegalArgumentException("Invalid opcode: " + opcode);
+        }
+    }
+
+    // Applies a registry operator to the top of the stack and returns the new top
+    static int call(int id, double[] stack, int top) {
+        Operator operator = OperatorRegistry.standard().get(id);
+        if (operator.getArity() == 1) {
+            stack[top - 1] = checkResult(id, operator.apply(stack[top - 1]));
+            return top;
+        }
+        stack[top - 2] = checkResult(id, operator.apply(stack[top - 2], stack[top - 1]));
+        return top - 1;
+    }
+
+    // A call without a finite result, such as sqrt(0-1), fails rather than yielding NaN or an infinity
+    static double checkResult(int id, double result) {
+        if (result - result != 0) {
+            throw noResult(id);
+        }
+        return result;
+    }
+
+    // Also called from generated code
+    static IllegalArgumentException noResult(int id) {
+        return new InvalidExpressionException(ErrorCode.INVALID_ARGUMENT,
+                OperatorRegistry.standard().get(id).getSymbol() + " has no finite result for these arguments");
+    }
+
+    // Also called from generated code
+    static ArithmeticException divisionByZero() {
+        return new DivisionByZeroException();
+    }
+
+    // Generated code together with the policy whose bounds were baked into it
+    private static final class Tier {
+
+        private final GeneratedExpression code;
+        private final RangePolicy policy;
+
+        Tier(GeneratedExpression code, RangePolicy policy) {
+            this.code = code;
+            this.policy = policy;
+        }
+    }
+}
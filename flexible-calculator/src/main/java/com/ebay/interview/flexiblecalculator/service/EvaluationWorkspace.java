@@ -0,0 +1,78 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.utils.TokenBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Growable primitive stacks used while compiling and evaluating expressions.
+ * A workspace is reused across calls, so evaluation allocates nothing once it
+ * has grown to fit. Workspaces are not thread-safe: pass one per thread, or
+ * use the pooled instance from {@link #forCurrentThread()}.
+ */
+public final class EvaluationWorkspace {
+
+    private static final int DEFAULT_CAPACITY = 32;
+    private static final ThreadLocal<EvaluationWorkspace> POOL = ThreadLocal.withInitial(EvaluationWorkspace::new);
+
+    private double[] values;
+    private byte[] operators;
+    private long[] integers;
+    private boolean[] flags;
+    private TokenBuffer tokens;
+
+    public EvaluationWorkspace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EvaluationWorkspace(int capacity) {
+        values = new double[Math.max(capacity, 1)];
+        operators = new byte[Math.max(capacity, 1)];
+        integers = new long[Math.max(capacity, 1)];
+        flags = new boolean[Math.max(capacity, 1)];
+    }
+
+    public static EvaluationWorkspace forCurrentThread() {
+        return POOL.get();
+    }
+
+    // Operand stack with room for at least the given depth
+    public double[] values(int depth) {
+        if (values.length < depth) {
+            values = Arrays.copyOf(values, Math.max(depth, values.length * 2));
+        }
+        return values;
+    }
+
+    // Operator stack with room for at least the given depth
+    public byte[] operators(int depth) {
+        if (operators.length < depth) {
+            operators = Arrays.copyOf(operators, Math.max(depth, operators.length * 2));
+        }
+        return operators;
+    }
+
+    // Integer operand stack with room for at least the given depth
+    public long[] integers(int depth) {
+        if (integers.length < depth) {
+            integers = Arrays.copyOf(integers, Math.max(depth, integers.length * 2));
+        }
+        return integers;
+    }
+
+    // Token storage for compiling an expression; grows like the stacks
+    public TokenBuffer tokens() {
+        if (tokens == null) {
+            tokens = new TokenBuffer();
+        }
+        return tokens;
+    }
+
+    // One flag per operand stack slot with room for at least the given depth
+    public boolean[] flags(int depth) {
+        if (flags.length < depth) {
+            flags = Arrays.copyOf(flags, Math.max(depth, flags.length * 2));
+        }
+        return flags;
+    }
+}
@@ -0,0 +1,299 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import com.ebay.interview.flexiblecalculator.model.SharingReport;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expressions compiled together into one DAG in which identical subtrees, such
+ * as a normalization factor {@code (a + b) * (c - d)} repeated across formulas,
+ * are a single node. Each call to {@link #evaluate(double[])} computes every
+ * node once for the given row of variable values and returns one result per
+ * expression, in input order.
+ *
+ * <p>Results, including errors, are those of evaluating each expression on its
+ * own: a node's error is the first one its own evaluation order would hit, so
+ * a failing shared node fails exactly the expressions that use it. Operands
+ * are not reordered, so {@code a + b} and {@code b + a} remain distinct nodes,
+ * and calls to impure functions are never shared.
+ * Created by {@link ExpressionEvaluator#compileBatch(List)}; instances may be
+ * evaluated concurrently. Integers are evaluated exactly under wide policies
+ * just as {@link CompiledExpression} does.
+ */
+public final class ExpressionBatch {
+
+    private final List<String> expressions;
+    private final List<String> variables;
+    private final Map<String, Integer> slots;
+    private final RangeCheck rangeCheck;
+
+    // Nodes in evaluation order; operands always precede the node using them
+    private final byte[] opcodes;
+    private final int[] left;
+    private final int[] right;
+    private final double[] constants;
+    private final long[] integers;
+    // Registry id of each CALL node's operator; a unary call has no right operand (-1)
+    private final int[] calls;
+    // Node holding each expression's value, or -1 if it failed to compile
+    private final int[] roots;
+    private final EvaluationResult[] compileFailures;
+    private final SharingReport report;
+
+    private ExpressionBatch(Builder builder, RangeCheck rangeCheck) {
+        this.expressions = Collections.unmodifiableList(new ArrayList<>(builder.expressions));
+        this.variables = Collections.unmodifiableList(new ArrayList<>(builder.slots.keySet()));
+        this.slots = builder.slots;
+        this.rangeCheck = rangeCheck;
+        this.opcodes = Arrays.copyOf(builder.opcodes, builder.size);
+        this.left = Arrays.copyOf(builder.left, builder.size);
+        this.right = Arrays.copyOf(builder.right, builder.size);
+        this.constants = Arrays.copyOf(builder.constants, builder.size);
+        this.integers = Arrays.copyOf(builder.integers, builder.size);
+        this.calls = Arrays.copyOf(builder.calls, builder.size);
+        this.roots = builder.roots.stream().mapToInt(Integer::intValue).toArray();
+        this.compileFailures = builder.compileFailures.toArray(new EvaluationResult[0]);
+        this.report = new SharingReport(expressions.size(), builder.nodesBefore, builder.size);
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    public List<String> getExpressions() {
+        return expressions;
+    }
+
+    // Variables of all expressions in slot order
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    public int slotOf(String variable) {
+        Integer slot = slots.get(variable);
+        if (slot == null) {
+            throw new IllegalArgumentException("Unknown variable: " + variable);
+        }
+        return slot;
+    }
+
+    public double[] newSlots() {
+        return new double[variables.size()];
+    }
+
+    // Node counts with and without sharing
+    public SharingReport getReport() {
+        return report;
+    }
+
+    public EvaluationResult[] evaluate(double[] slots) {
+        return evaluate(slots, EvaluationWorkspace.forCurrentThread(), rangeCheck);
+    }
+
+    public EvaluationResult[] evaluate(double[] slots, RangePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Range policy cannot be null");
+        }
+        return evaluate(slots, EvaluationWorkspace.forCurrentThread(), policy);
+    }
+
+    private EvaluationResult[] evaluate(double[] slots, EvaluationWorkspace workspace, RangeCheck check) {
+        if (slots.length < variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " variable values but got " + slots.length);
+        }
+        // Read the policy once so a concurrent swap never applies halfway through a row
+        RangePolicy policy = check.currentPolicy();
+        RangeCheck range = policy != null ? policy : check;
+        boolean exact = policy != null && policy.exceedsExactIntegers();
+
+        double[] values = workspace.values(opcodes.length);
+        long[] exactValues = exact ? workspace.integers(opcodes.length) : null;
+        boolean[] integral = exact ? workspace.flags(opcodes.length) : null;
+        // Allocated on the first failure only
+        RuntimeException[] errors = null;
+        for (int node = 0; node < opcodes.length; node++) {
+            byte opcode = opcodes[node];
+            try {
+                if (opcode == ExpressionPlan.CONST) {
+                    double value = constants[node];
+                    range.validateInput(value);
+                    values[node] = value;
+                    if (exact) {
+                        integral[node] = integers[node] != CompiledExpression.INEXACT;
+                        exactValues[node] = integers[node];
+                    }
+                } else if (opcode == ExpressionPlan.VARIABLE) {
+                    double value = slots[left[node]];
+                    range.validateInput(value);
+                    values[node] = value;
+                    if (exact) {
+                        integral[node] = CompiledExpression.isInteger(value);
+                        exactValues[node] = (long) value;
+                    }
+                } else {
+                    int a = left[node];
+                    int b = right[node];
+                    if (errors != null && (errors[a] != null || (b >= 0 && errors[b] != null))) {
+                        // Evaluated left to right, so the left operand's error comes first
+                        errors[node] = errors[a] != null ? errors[a] : errors[b];
+                        continue;
+                    }
+                    if (opcode == ExpressionPlan.CALL) {
+                        Operator operator = OperatorRegistry.standard().get(calls[node]);
+                        double result = CompiledExpression.checkResult(calls[node],
+                                b < 0 ? operator.apply(values[a]) : operator.apply(values[a], values[b]));
+                        range.validateOutput(result);
+                        values[node] = result;
+                        if (exact) {
+                            integral[node] = false;
+                        }
+                        continue;
+                    }
+                    if (exact && integral[a] && integral[b]) {
+                        long result = CompiledExpression.applyExact(opcode, exactValues[a], exactValues[b]);
+                        if (result != CompiledExpression.INEXACT) {
+                            range.validateOutput((double) result);
+                            values[node] = result;
+                            exactValues[node] = result;
+                            integral[node] = true;
+                            continue;
+                        }
+                    }
+                    double result = CompiledExpression.apply(opcode, values[a], values[b]);
+                    range.validateOutput(result);
+                    values[node] = result;
+                    if (exact) {
+                        integral[node] = false;
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (errors == null) {
+                    errors = new RuntimeException[opcodes.length];
+                }
+                errors[node] = e;
+            }
+        }
+
+        EvaluationResult[] results = new EvaluationResult[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            int root = roots[i];
+            if (root < 0) {
+                results[i] = compileFailures[i];
+            } else if (errors != null && errors[root] != null) {
+                results[i] = EvaluationResult.failure(errors[root]);
+            } else {
+                results[i] = EvaluationResult.success(values[root]);
+            }
+        }
+        return results;
+    }
+
+    // Hash-conses the plans of the batch's expressions into one node table
+    static final class Builder {
+
+        private final List<String> expressions = new ArrayList<>();
+        private final Map<String, Integer> slots = new LinkedHashMap<>();
+        private final List<Integer> roots = new ArrayList<>();
+        private final List<EvaluationResult> compileFailures = new ArrayList<>();
+        // Constants by raw bits and exact integer value, so 0.0 and -0.0, and 2^53 and 2^53 + 1, stay apart
+        private final Map<List<Long>, Integer> constantNodes = new HashMap<>();
+        private final Map<Integer, Integer> variableNodes = new HashMap<>();
+        private final Map<List<Integer>, Integer> operationNodes = new HashMap<>();
+
+        private byte[] opcodes = new byte[64];
+        private int[] left = new int[64];
+        private int[] right = new int[64];
+        private double[] constants = new double[64];
+        private long[] integers = new long[64];
+        private int[] calls = new int[64];
+        private int size;
+        private int nodesBefore;
+
+        private Builder() {
+        }
+
+        void add(CompiledExpression expression) {
+            ExpressionPlan plan = expression.getPlan();
+            int[] stack = new int[Math.max(1, plan.getMaxStackDepth())];
+            int top = 0;
+            for (int pc = 0; pc < plan.length(); pc++) {
+                byte opcode = plan.opcode(pc);
+                if (opcode == ExpressionPlan.CONST) {
+                    double value = expression.constant(plan.operand(pc));
+                    long integer = expression.integer(plan.operand(pc));
+                    stack[top++] = constantNodes.computeIfAbsent(List.of(Double.doubleToRawLongBits(value), integer),
+                            key -> node(ExpressionPlan.CONST, 0, 0, value, integer));
+                } else if (opcode == ExpressionPlan.VARIABLE) {
+                    int slot = slots.computeIfAbsent(plan.variableName(plan.operand(pc)), name -> slots.size());
+                    stack[top++] = variableNodes.computeIfAbsent(slot, key -> node(ExpressionPlan.VARIABLE, slot, 0, 0, 0));
+                } else if (ExpressionPlan.ADD <= opcode && opcode <= ExpressionPlan.DIVIDE) {
+                    int b = stack[--top];
+                    int a = stack[top - 1];
+                    stack[top - 1] = operationNodes.computeIfAbsent(List.of((int) opcode, a, b),
+                            key -> node(opcode, a, b, 0, 0));
+                } else if (opcode == ExpressionPlan.CALL) {
+                    int id = plan.operand(pc);
+                    Operator operator = OperatorRegistry.standard().get(id);
+                    int b = operator.getArity() == 2 ? stack[--top] : -1;
+                    int a = stack[top - 1];
+                    if (operator.isPure()) {
+                        stack[top - 1] = operationNodes.computeIfAbsent(List.of((int) opcode, id, a, b),
+                                key -> call(id, a, b));
+                    } else {
+                        stack[top - 1] = call(id, a, b);
+                    }
+                } else {
+                    throw new IllegalArgumentException("Optimized plans cannot be batched: " + expression.getExpression());
+                }
+            }
+            nodesBefore += plan.length();
+            expressions.add(expression.getExpression());
+            roots.add(stack[0]);
+            compileFailures.add(null);
+        }
+
+        // An expression that did not compile reports the same error for every row
+        void addFailure(String expression, RuntimeException error) {
+            expressions.add(expression);
+            roots.add(-1);
+            compileFailures.add(EvaluationResult.failure(error));
+        }
+
+        ExpressionBatch build(RangeCheck rangeCheck) {
+            return new ExpressionBatch(this, rangeCheck);
+        }
+
+        private int call(int id, int a, int b) {
+            int node = node(ExpressionPlan.CALL, a, b, 0, 0);
+            calls[node] = id;
+            return node;
+        }
+
+        private int node(byte opcode, int a, int b, double constant, long integer) {
+            if (size == opcodes.length) {
+                opcodes = Arrays.copyOf(opcodes, size * 2);
+                left = Arrays.copyOf(left, size * 2);
+                right = Arrays.copyOf(right, size * 2);
+                constants = Arrays.copyOf(constants, size * 2);
+                integers = Arrays.copyOf(integers, size * 2);
+                calls = Arrays.copyOf(calls, size * 2);
+            }
+            opcodes[size] = opcode;
+            left[size] = a;
+            right[size] = b;
+            constants[size] = constant;
+            integers[size] = integer;
+            return size++;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates a hidden class implementing {@link GeneratedExpression} for a
+ * compiled expression. Literals, operators and the range and division-by-zero
+ * checks are emitted as straight-line bytecode with the current range bounds
+ * baked in. Each function or plugin operator the plan calls is held in a final
+ * field of the hidden class and invoked directly as a
+ * {@link java.util.function.DoubleUnaryOperator} or
+ * {@link java.util.function.DoubleBinaryOperator}; the JIT treats those fields
+ * as constants and inlines the implementation. The classes are defined without {@code STRONG}, so each one is
+ * unloaded once its {@link CompiledExpression} becomes unreachable.
+ */
+public class ExpressionCodeGenerator {
+
+    private static final String CLASS_NAME =
+            Type.getInternalName(ExpressionCodeGenerator.class).replace("ExpressionCodeGenerator", "GeneratedExpressionImpl");
+    private static final String RANGE_POLICY = Type.getInternalName(RangePolicy.class);
+    private static final String COMPILED_EXPRESSION = Type.getInternalName(CompiledExpression.class);
+    private static final String OUT_OF_RANGE_DESCRIPTOR = "(DDD)Ljava/lang/IllegalArgumentException;";
+    private static final String UNARY = "java/util/function/DoubleUnaryOperator";
+    private static final String BINARY = "java/util/function/DoubleBinaryOperator";
+    // Locals of evaluate: this, the variable array, then two doubles of scratch for call arguments
+    private static final int FIRST_ARGUMENT = 2;
+    private static final int SECOND_ARGUMENT = 4;
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private final int maxPlanLength;
+
+    public ExpressionCodeGenerator(int maxPlanLength) {
+        this.maxPlanLength = maxPlanLength;
+    }
+
+    // Returns null when the expression is better left to the interpreter
+    public GeneratedExpression generate(ExpressionPlan plan, double[] constants,
+                                        double minInput, double maxInput, double minOutput, double maxOutput) {
+        return generate(plan, constants, null, minInput, maxInput, minOutput, maxOutput);
+    }
+
+    // Obligations back the CHECK instructions of an optimized plan; may be null otherwise
+    GeneratedExpression generate(ExpressionPlan plan, double[] constants, RangeObligation[] obligations,
+                                 double minInput, double maxInput, double minOutput, double maxOutput) {
+        if (plan.length() > maxPlanLength) {
+            return null;
+        }
+        // A literal or folded-away check that always fails gains nothing from code generation,
+        // so CHECK instructions need no code of their own
+        for (int pc = 0; pc < plan.length(); pc++) {
+            byte opcode = plan.opcode(pc);
+            if (opcode == ExpressionPlan.CONST) {
+                double constant = constants[plan.operand(pc)];
+                if (constant < minInput || constant > maxInput) {
+                    return null;
+                }
+            } else if (opcode == ExpressionPlan.CHECK
+                    && !obligations[plan.operand(pc)].satisfiedBy(minInput, maxInput, minOutput, maxOutput)) {
+                return null;
+            }
+        }
+
+        // Field index of each operator the plan calls, in order of first call
+        Map<Integer, Integer> fields = new LinkedHashMap<>();
+        for (int pc = 0; pc < plan.length(); pc++) {
+            if (plan.opcode(pc) == ExpressionPlan.CALL) {
+                fields.putIfAbsent(plan.operand(pc), fields.size());
+            }
+        }
+        Object[] implementations = new Object[fields.size()];
+        OperatorRegistry registry = OperatorRegistry.standard();
+        fields.forEach((id, field) -> implementations[field] = registry.get(id).getImplementation());
+
+        byte[] bytes = emit(plan, constants, fields, minInput, maxInput, minOutput, maxOutput);
+        try {
+            MethodHandles.Lookup hidden = lookup.defineHiddenClass(bytes, true);
+            return (GeneratedExpression) hidden.findConstructor(hidden.lookupClass(),
+                    MethodType.methodType(void.class, Object[].class)).invoke(implementations);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to generate code for expression shape " + plan.getShape(), e);
+        }
+    }
+
+    private byte[] emit(ExpressionPlan plan, double[] constants, Map<Integer, Integer> fields,
+                        double minInput, double maxInput, double minOutput, double maxOutput) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, CLASS_NAME, null,
+                "java/lang/Object", new String[]{Type.getInternalName(GeneratedExpression.class)});
+
+        OperatorRegistry registry = OperatorRegistry.standard();
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        for (Map.Entry<Integer, Integer> field : fields.entrySet()) {
+            String type = implementationType(registry.get(field.getKey()));
+            writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, fieldName(field.getValue()), "L" + type + ";",
+                    null, null).visitEnd();
+            init.visitVarInsn(Opcodes.ALOAD, 0);
+            init.visitVarInsn(Opcodes.ALOAD, 1);
+            init.visitLdcInsn(field.getValue());
+            init.visitInsn(Opcodes.AALOAD);
+            init.visitTypeInsn(Opcodes.CHECKCAST, type);
+            init.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, fieldName(field.getValue()), "L" + type + ";");
+        }
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "evaluate", "([D)D", null, null);
+        method.visitCode();
+
+        List<Label> inputFailures = new ArrayList<>();
+        List<Label> outputFailures = new ArrayList<>();
+        List<Label> divisionFailures = new ArrayList<>();
+        Map<Label, Integer> callFailures = new LinkedHashMap<>();
+
+        for (int pc = 0; pc < plan.length(); pc++) {
+            byte opcode = plan.opcode(pc);
+            if (opcode == ExpressionPlan.CONST || opcode == ExpressionPlan.FOLDED) {
+                // Literals and obligations were range checked above
+                method.visitLdcInsn(constants[plan.operand(pc)]);
+            } else if (opcode == ExpressionPlan.CHECK) {
+                continue;
+            } else if (opcode == ExpressionPlan.CHECK_OUTPUT) {
+                outputFailures.add(emitRangeCheck(method, minOutput, maxOutput));
+            } else if (opcode == ExpressionPlan.CALL) {
+                emitCall(method, registry.get(plan.operand(pc)), fields.get(plan.operand(pc)));
+                callFailures.put(emitFiniteCheck(method), plan.operand(pc));
+                outputFailures.add(emitRangeCheck(method, minOutput, maxOutput));
+            } else if (opcode == ExpressionPlan.VARIABLE) {
+                method.visitVarInsn(Opcodes.ALOAD, 1);
+                method.visitLdcInsn(plan.operand(pc));
+                method.visitInsn(Opcodes.DALOAD);
+                inputFailures.add(emitRangeCheck(method, minInput, maxInput));
+            } else {
+                if (opcode == ExpressionPlan.DIVIDE) {
+                    Label failure = new Label();
+                    method.visitInsn(Opcodes.DUP2);
+                    method.visitInsn(Opcodes.DCONST_0);
+                    method.visitInsn(Opcodes.DCMPL);
+                    method.visitJumpInsn(Opcodes.IFEQ, failure);
+                    divisionFailures.add(failure);
+                }
+                method.visitInsn(arithmeticInstruction(opcode));
+                outputFailures.add(emitRangeCheck(method, minOutput, maxOutput));
+            }
+        }
+        method.visitInsn(Opcodes.DRETURN);
+
+        // Cold paths, kept out of the straight-line body
+        for (Label failure : inputFailures) {
+            emitRangeFailure(method, failure, "inputOutOfRange", minInput, maxInput);
+        }
+        for (Label failure : outputFailures) {
+            emitRangeFailure(method, failure, "outputOutOfRange", minOutput, maxOutput);
+        }
+        for (Label failure : divisionFailures) {
+            method.visitLabel(failure);
+            method.visitMethodInsn(Opcodes.INVOKESTATIC, COMPILED_EXPRESSION, "divisionByZero",
+                    "()Ljava/lang/ArithmeticException;", false);
+            method.visitInsn(Opcodes.ATHROW);
+        }
+        for (Map.Entry<Label, Integer> failure : callFailures.entrySet()) {
+            method.visitLabel(failure.getKey());
+            method.visitLdcInsn(failure.getValue());
+            method.visitMethodInsn(Opcodes.INVOKESTATIC, COMPILED_EXPRESSION, "noResult",
+                    "(I)Ljava/lang/IllegalArgumentException;", false);
+            method.visitInsn(Opcodes.ATHROW);
+        }
+
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    // The arguments are on the operand stack; park them in locals so the receiver can go beneath them
+    private void emitCall(MethodVisitor method, Operator operator, int field) {
+        String type = implementationType(operator);
+        if (operator.getArity() == 2) {
+            method.visitVarInsn(Opcodes.DSTORE, SECOND_ARGUMENT);
+        }
+        method.visitVarInsn(Opcodes.DSTORE, FIRST_ARGUMENT);
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitFieldInsn(Opcodes.GETFIELD, CLASS_NAME, fieldName(field), "L" + type + ";");
+        method.visitVarInsn(Opcodes.DLOAD, FIRST_ARGUMENT);
+        if (operator.getArity() == 2) {
+            method.visitVarInsn(Opcodes.DLOAD, SECOND_ARGUMENT);
+        }
+        method.visitMethodInsn(Opcodes.INVOKEINTERFACE, type, "applyAsDouble",
+                operator.getArity() == 2 ? "(DD)D" : "(D)D", true);
+    }
+
+    private static String implementationType(Operator operator) {
+        return operator.getArity() == 2 ? BINARY : UNARY;
+    }
+
+    private static String fieldName(int field) {
+        return "operator" + field;
+    }
+
+    // Leaves the checked value on the stack; x - x is 0 unless x is NaN or infinite, as in CompiledExpression.checkResult
+    private Label emitFiniteCheck(MethodVisitor method) {
+        Label failure = new Label();
+        method.visitInsn(Opcodes.DUP2);
+        method.visitInsn(Opcodes.DUP2);
+        method.visitInsn(Opcodes.DSUB);
+        method.visitInsn(Opcodes.DCONST_0);
+        method.visitInsn(Opcodes.DCMPL);
+        method.visitJumpInsn(Opcodes.IFNE, failure);
+        return failure;
+    }
+
+    // Leaves the checked value on the stack; NaN passes, matching RangePolicy, and calls are checked first
+    private Label emitRangeCheck(MethodVisitor method, double min, double max) {
+        Label failure = new Label();
+        method.visitInsn(Opcodes.DUP2);
+        method.visitLdcInsn(min);
+        method.visitInsn(Opcodes.DCMPG);
+        method.visitJumpInsn(Opcodes.IFLT, failure);
+        method.visitInsn(Opcodes.DUP2);
+        method.visitLdcInsn(max);
+        method.visitInsn(Opcodes.DCMPL);
+        method.visitJumpInsn(Opcodes.IFGT, failure);
+        return failure;
+    }
+
+    private void emitRangeFailure(MethodVisitor method, Label failure, String factory, double min, double max) {
+        method.visitLabel(failure);
+        method.visitLdcInsn(min);
+        method.visitLdcInsn(max);
+        method.visitMethodInsn(Opcodes.INVOKESTATIC, RANGE_POLICY, factory, OUT_OF_RANGE_DESCRIPTOR, false);
+        method.visitInsn(Opcodes.ATHROW);
+    }
+
+    private static int arithmeticInstruction(byte opcode) {
+        switch (opcode) {
+            case ExpressionPlan.ADD:
+                return Opcodes.DADD;
+            case ExpressionPlan.SUBTRACT:
+                return Opcodes.DSUB;
+            case ExpressionPlan.MULTIPLY:
+                return Opcodes.DMUL;
+            case ExpressionPlan.DIVIDE:
+                return Opcodes.DDIV;
+            default:
+                throw new IllegalArgumentException("Invalid opcode: " + opcode);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import com.ebay.interview.flexiblecalculator.model.InvalidExpressionException;
+import com.ebay.interview.flexiblecalculator.model.TokenType;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+import com.ebay.interview.flexiblecalculator.utils.TokenBuffer;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Turns validated tokens into an {@link ExpressionPlan} using the
+ * shunting-yard algorithm, with precedence, associativity and function arity
+ * taken from the {@link OperatorRegistry}, and extracts the literal operands that are bound
+ * to a plan to form a {@link CompiledExpression}.
+ */
+public class ExpressionCompiler {
+
+    // Marker used in shape keys in place of a numeric literal
+    static final char LITERAL_MARKER = '#';
+    // Variable names are delimited in shape keys so that adjacent names cannot run together
+    static final char VARIABLE_START = '{';
+    static final char VARIABLE_END = '}';
+
+    // Operator stack marker for the opening parenthesis of a function call; never an operator symbol
+    static final byte CALL_OPEN = 0;
+
+    private final OperatorRegistry registry = OperatorRegistry.standard();
+
+    public String shapeOf(TokenBuffer tokens) {
+        CharSequence source = tokens.getSource();
+        StringBuilder shape = new StringBuilder(tokens.size());
+        for (int i = 0, size = tokens.size(); i < size; i++) {
+            TokenType type = tokens.type(i);
+            if (type == TokenType.NUMBER) {
+                shape.append(LITERAL_MARKER);
+            } else if (type == TokenType.VARIABLE) {
+                shape.append(VARIABLE_START).append(source, tokens.start(i), tokens.end(i)).append(VARIABLE_END);
+            } else {
+                shape.append(source, tokens.start(i), tokens.end(i));
+            }
+        }
+        return shape.toString();
+    }
+
+    public double[] extractConstants(TokenBuffer tokens) {
+        double[] constants = new double[tokens.size()];
+        int count = 0;
+        for (int i = 0, size = tokens.size(); i < size; i++) {
+            if (tokens.type(i) == TokenType.NUMBER) {
+                constants[count++] = tokens.number(i);
+            }
+        }
+        return Arrays.copyOf(constants, count);
+    }
+
+    // Exact values of the integer literals, aligned with extractConstants; whole decimals such as 2.0 count as
+    // integers too, and other literals are Long.MIN_VALUE
+    public long[] extractIntegers(TokenBuffer tokens, double[] constants) {
+        long[] integers = new long[constants.length];
+        int count = 0;
+        for (int i = 0, size = tokens.size(); i < size; i++) {
+            if (tokens.type(i) == TokenType.NUMBER) {
+                integers[count] = tokens.isInteger(i) ? tokens.integer(i) : CompiledExpression.integerOf(constants[count]);
+                count++;
+            }
+        }
+        return integers;
+    }
+
+    public ExpressionPlan compilePlan(String shape, TokenBuffer tokens) {
+        return compilePlan(shape, tokens, EvaluationWorkspace.forCurrentThread());
+    }
+
+    public ExpressionPlan compilePlan(String shape, TokenBuffer tokens, EvaluationWorkspace workspace) {
+        byte[] code = new byte[tokens.size()];
+        int[] operands = new int[tokens.size()];
+        byte[] operators = workspace.operators(tokens.size());
+        // Where each stacked operator or parenthesis starts in the expression, for error offsets
+        int[] operatorOffsets = new int[tokens.size()];
+        int length = 0;
+        int operatorTop = 0;
+        int constantCount = 0;
+        Map<String, Integer> variableSlots = new LinkedHashMap<>();
+        int depth = 0;
+        int maxDepth = 0;
+        // One frame per open function call: its id and offset, the stack depth before its arguments, and commas seen
+        int[] calls = null;
+        int[] callOffsets = null;
+        int[] callDepths = null;
+        int[] callCommas = null;
+        int callTop = 0;
+        int pendingFunction = -1;
+        int pendingFunctionOffset = -1;
+
+        for (int i = 0, size = tokens.size(); i < size; i++) {
+            TokenType type = tokens.type(i);
+            if (type == TokenType.NUMBER) {
+                code[length] = ExpressionPlan.CONST;
+                operands[length++] = constantCount++;
+                maxDepth = Math.max(maxDepth, ++depth);
+            } else if (type == TokenType.VARIABLE) {
+                String name = tokens.text(i);
+                Integer slot = variableSlots.get(name);
+                if (slot == null) {
+                    slot = variableSlots.size();
+                    variableSlots.put(name, slot);
+                }
+                code[length] = ExpressionPlan.VARIABLE;
+                operands[length++] = slot;
+                maxDepth = Math.max(maxDepth, ++depth);
+            } else if (type == TokenType.OPERATOR) {
+                char operator = tokens.firstChar(i);
+                int precedence = registry.precedence(operator);
+                boolean rightAssociative = registry.isRightAssociative(operator);
+                while (operatorTop > 0) {
+                    int top = registry.precedence((char) operators[operatorTop - 1]);
+                    if (top < precedence || (top == precedence && rightAssociative)) {
+                        break;
+                    }
+                    operatorTop--;
+                    depth = emitOperator(code, operands, length++, (char) operators[operatorTop],
+                            operatorOffsets[operatorTop], depth);
+                }
+                operatorOffsets[operatorTop] = tokens.start(i);
+                operators[operatorTop++] = (byte) operator;
+            } else if (type == TokenType.FUNCTION) {
+                // The tokenizer only emits a function name in front of its opening parenthesis
+                pendingFunction = registry.functionId(tokens.getSource(), tokens.start(i), tokens.end(i));
+                pendingFunctionOffset = tokens.start(i);
+            } else if (type == TokenType.COMMA) {
+                while (operatorTop > 0 && operators[operatorTop - 1] != '(' && operators[operatorTop - 1] != CALL_OPEN) {
+                    operatorTop--;
+                    depth = emitOperator(code, operands, length++, (char) operators[operatorTop],
+                            operatorOffsets[operatorTop], depth);
+                }
+                if (operatorTop == 0 || operators[operatorTop - 1] != CALL_OPEN) {
+                    throw misplacedComma(tokens.start(i));
+                }
+                if (depth != callDepths[callTop - 1] + callCommas[callTop - 1] + 1) {
+                    throw missingOperatorOrOperand(tokens.start(i));
+                }
+                callCommas[callTop - 1]++;
+            } else if (tokens.firstChar(i) == '(') {
+                if (pendingFunction >= 0) {
+                    if (calls == null) {
+                        calls = new int[tokens.size()];
+                        callOffsets = new int[tokens.size()];
+                        callDepths = new int[tokens.size()];
+                        callCommas = new int[tokens.size()];
+                    }
+                    calls[callTop] = pendingFunction;
+                    callOffsets[callTop] = pendingFunctionOffset;
+                    callDepths[callTop] = depth;
+                    callCommas[callTop++] = 0;
+                    operatorOffsets[operatorTop] = tokens.start(i);
+                    operators[operatorTop++] = CALL_OPEN;
+                    pendingFunction = -1;
+                } else {
+                    operatorOffsets[operatorTop] = tokens.start(i);
+                    operators[operatorTop++] = '(';
+                }
+            } else {
+                while (operatorTop > 0 && operators[operatorTop - 1] != '(' && operators[operatorTop - 1] != CALL_OPEN) {
+                    operatorTop--;
+                    depth = emitOperator(code, operands, length++, (char) operators[operatorTop],
+                            operatorOffsets[operatorTop], depth);
+                }
+                if (operatorTop == 0) {
+                    throw mismatchedParentheses("closing", tokens.start(i));
+                }
+                if (operators[--operatorTop] == CALL_OPEN) {
+                    callTop--;
+                    depth = emitCall(code, operands, length++, calls[callTop], callOffsets[callTop],
+                            depth - callDepths[callTop], callCommas[callTop], depth);
+                }
+            }
+        }
+
+        while (operatorTop > 0) {
+            char operator = (char) operators[--operatorTop];
+            if (operator == '(' || operator == CALL_OPEN) {
+                throw mismatchedParentheses("opening", operatorOffsets[operatorTop]);
+            }
+            depth = emitOperator(code, operands, length++, operator, operatorOffsets[operatorTop], depth);
+        }
+
+        // An operand too many, reported at the last token, or none at all
+        if (depth != 1) {
+            throw missingOperatorOrOperand(tokens.start(tokens.size() - 1));
+        }
+        return new ExpressionPlan(shape, Arrays.copyOf(code, length), Arrays.copyOf(operands, length),
+                constantCount, variableSlots.keySet().toArray(new String[0]), maxDepth);
+    }
+
+    private int emitOperator(byte[] code, int[] operands, int pc, char operator, int offset, int depth) {
+        if (depth < 2) {
+            throw missingOperand(operator, offset);
+        }
+        int id = registry.infixId(operator);
+        if (id < OperatorRegistry.ARITHMETIC_OPERATORS) {
+            code[pc] = ExpressionPlan.opcodeOf(operator);
+        } else {
+            code[pc] = ExpressionPlan.CALL;
+            operands[pc] = id;
+        }
+        return depth - 1;
+    }
+
+    // added is how far the arguments raised the stack; each argument must leave exactly one value
+    private int emitCall(byte[] code, int[] operands, int pc, int id, int offset, int added, int commas, int depth) {
+        int arguments = added == 0 && commas == 0 ? 0 : commas + 1;
+        if (added != arguments) {
+            throw missingOperatorOrOperand(offset);
+        }
+        Operator function = registry.get(id);
+        if (arguments != function.getArity()) {
+            throw arityMismatch(function, arguments, offset);
+        }
+        code[pc] = ExpressionPlan.CALL;
+        operands[pc] = id;
+        return depth - arguments + 1;
+    }
+
+    // Offsets are where the offending token starts; calls are reported at their function name
+    static InvalidExpressionException missingOperatorOrOperand(int offset) {
+        return new InvalidExpressionException(ErrorCode.INVALID_SYNTAX, offset,
+                "Invalid expression: missing operator or operand");
+    }
+
+    static InvalidExpressionException misplacedComma(int offset) {
+        return new InvalidExpressionException(ErrorCode.INVALID_SYNTAX, offset,
+                "Invalid expression: ',' outside a function call");
+    }
+
+    private static InvalidExpressionException mismatchedParentheses(String extra, int offset) {
+        return new InvalidExpressionException(ErrorCode.MISMATCHED_PARENTHESES, offset,
+                "Mismatched parentheses: Extra " + extra + " parenthesis");
+    }
+
+    static InvalidExpressionException missingOperand(char operator, int offset) {
+        return new InvalidExpressionException(ErrorCode.INVALID_SYNTAX, offset,
+                "Invalid expression: missing operand for " + operator);
+    }
+
+    static InvalidExpressionException arityMismatch(Operator function, int arguments, int offset) {
+        return new InvalidExpressionException(ErrorCode.INVALID_SYNTAX, offset, "Function " + function.getSymbol()
+                + " expects " + function.getArity() + (function.getArity() == 1 ? " argument" : " arguments")
+                + " but got " + arguments);
+    }
+}
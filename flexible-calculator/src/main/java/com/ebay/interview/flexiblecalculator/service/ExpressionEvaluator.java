@@ -1,121 +1,437 @@
 package com.ebay.interview.flexiblecalculator.service;
 
-import com.ebay.interview.flexiblecalculator.model.Token;
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.metrics.EvaluationMetrics;
+import com.ebay.interview.flexiblecalculator.model.CacheStats;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import com.ebay.interview.flexiblecalculator.model.InvalidExpressionException;
 import com.ebay.interview.flexiblecalculator.model.TokenType;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
 import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import com.ebay.interview.flexiblecalculator.utils.LruCache;
+import com.ebay.interview.flexiblecalculator.utils.MemoTable;
+import com.ebay.interview.flexiblecalculator.utils.TokenBuffer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.stream.Stream;
 @Service
 public class ExpressionEvaluator {
 
+    private static final double[] NO_SLOTS = new double[0];
+    private static final double[] FINGERPRINT_ARGUMENTS = {-7.25, -2, -0.5, 0, 0.5, 1, 2, 3, 10.75};
+
     private final ExpressionParser expressionParser;
     private final RangeValidator rangeValidator;
+    private final ExpressionCompiler expressionCompiler = new ExpressionCompiler();
+    private final ExpressionCodeGenerator codeGenerator;
+    // Null when calculator.optimizer.mode is off
+    private final ExpressionOptimizer optimizer;
+    private final EvaluationMetrics metrics;
+    private final int compileThreshold;
+    private final int batchParallelism;
+    private final int batchSequentialThreshold;
+    private volatile ForkJoinPool batchPool;
+
+    // Compiled expressions keyed by their exact text, and shared plans keyed by
+    // the literal-stripped shape of the expression
+    private final LruCache<String, CompiledExpression> expressionCache;
+    private final LruCache<String, ExpressionPlan> planCache;
+    // Held in a field so cache lookups do not allocate a capturing lambda per call
+    private final Function<String, CompiledExpression> compileFunction = this::compileUncached;
+    // Results remembered across restarts; null unless calculator.memo.enabled
+    private final MemoTable memo;
 
-    @Autowired
     public ExpressionEvaluator(ExpressionParser expressionParser, RangeValidator rangeValidator) {
+        this(expressionParser, rangeValidator, new CalculatorProperties());
+    }
+
+    public ExpressionEvaluator(ExpressionParser expressionParser, RangeValidator rangeValidator,
+                               CalculatorProperties properties) {
+        this(expressionParser, rangeValidator, properties, new EvaluationMetrics(properties));
+    }
+
+    @Autowired
+    public ExpressionEvaluator(ExpressionParser expressionParser, RangeValidator rangeValidator,
+                               CalculatorProperties properties, EvaluationMetrics metrics) {
         this.expressionParser = expressionParser;
         this.rangeValidator = rangeValidator;
-
-        // Example range setup: Adjust these values as per your requirements
-        this.rangeValidator.setInputRange(-1e6, 1e6); // Setting input range from -1,000,000 to 1,000,000
-        this.rangeValidator.setOutputRange(-1e6, 1e6); // Setting output range from -1,000,000 to 1,000,000
+        this.expressionCache = new LruCache<>(properties.getCache().getExpressionSize());
+        this.planCache = new LruCache<>(properties.getCache().getPlanSize());
+        this.codeGenerator = new ExpressionCodeGenerator(properties.getCodegen().getMaxPlanLength());
+        this.compileThreshold = properties.getCodegen().getThreshold();
+        this.optimizer = optimizerFor(properties.getOptimizer().getMode());
+        int parallelism = properties.getBatch().getParallelism();
+        this.batchParallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.batchSequentialThreshold = properties.getBatch().getSequentialThreshold();
+        this.metrics = metrics;
+        metrics.bindCache("expression", expressionCache);
+        metrics.bindCache("plan", planCache);
+        metrics.bindPool("batch", batchParallelism, () -> batchPool);
+        this.memo = properties.getMemo().isEnabled() ? openMemo(properties) : null;
+        if (memo != null) {
+            metrics.bindCache("memo", memo::stats);
+        }
+        // Range limits come from the validator's active profile (calculator.range.*), -1e6 to 1e6 by default
     }
 
     public double evaluate(String expression) {
-        List<Token> tokens = expressionParser.parse(expression);
-        validateTokens(tokens); // Validate tokens before evaluation
-        return evaluateTokens(tokens);
+        return evaluate(expression, EvaluationWorkspace.forCurrentThread(), null);
     }
 
-    private void validateTokens(List<Token> tokens) {
-        // Add token validation logic here
-        // For example, check for invalid token sequences
-        if (tokens.isEmpty()) {
-            throw new IllegalArgumentException("Expression cannot be empty");
+    // Evaluates with a caller-owned workspace instead of the pooled per-thread one
+    public double evaluate(String expression, EvaluationWorkspace workspace) {
+        return evaluate(expression, workspace, null);
+    }
+
+    // Evaluates under the given policy instead of the validator's active one
+    public double evaluate(String expression, RangePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Range policy cannot be null");
         }
+        return evaluate(expression, EvaluationWorkspace.forCurrentThread(), policy);
+    }
 
-        // Check for invalid token sequences
-        for (int i = 0; i < tokens.size(); i++) {
-            Token token = tokens.get(i);
-            if (token.getType() == TokenType.OPERATOR) {
-                // Check for operator at the beginning or end
-                if (i == 0 || i == tokens.size() - 1 || tokens.get(i + 1).getType() == TokenType.OPERATOR) {
-                    throw new IllegalArgumentException("Invalid operator placement");
-                }
+    // Evaluates one expression, reporting any error in the result (code, offset and message) instead of throwing;
+    // errors are stackless, so catching them here is cheap
+    public EvaluationResult evaluateSafely(String expression) {
+        try {
+            return EvaluationResult.success(evaluate(expression));
+        } catch (RuntimeException e) {
+            return EvaluationResult.failure(e);
+        }
+    }
+
+    public EvaluationResult evaluateSafely(String expression, RangePolicy policy) {
+        try {
+            return EvaluationResult.success(evaluate(expression, policy));
+        } catch (RuntimeException e) {
+            return EvaluationResult.failure(e);
+        }
+    }
+
+    // Evaluates independent expressions in parallel; results are in input order, one per expression
+    public List<EvaluationResult> evaluateAll(List<String> expressions) {
+        return Arrays.asList(evaluateAll(expressions.toArray(new String[0])));
+    }
+
+    public List<EvaluationResult> evaluateAll(Stream<String> expressions) {
+        return Arrays.asList(evaluateAll(expressions.toArray(String[]::new)));
+    }
+
+    public EvaluationResult[] evaluateAll(String[] expressions) {
+        EvaluationResult[] results = new EvaluationResult[expressions.length];
+        if (expressions.length < batchSequentialThreshold || batchParallelism == 1) {
+            evaluateRange(expressions, results, 0, expressions.length);
+        } else {
+            // Several leaves per worker so uneven expressions still balance out
+            int leafSize = Math.max(1, Math.min(batchSequentialThreshold, expressions.length / (batchParallelism * 8)));
+            batchPool().invoke(new BatchTask(expressions, results, 0, expressions.length, leafSize));
+        }
+        return results;
+    }
+
+    public CompiledExpression compile(String expression) {
+        return expressionCache.computeIfAbsent(expression, compileFunction);
+    }
+
+    // Compiles expressions that are evaluated together row by row, sharing identical subtrees;
+    // an expression that fails to compile reports its error in every row
+    public ExpressionBatch compileBatch(List<String> expressions) {
+        ExpressionBatch.Builder builder = ExpressionBatch.builder();
+        for (String expression : expressions) {
+            try {
+                builder.add(compileWritten(expression));
+            } catch (RuntimeException e) {
+                builder.addFailure(expression, e);
             }
         }
+        return builder.build(rangeValidator);
     }
 
-    private double evaluateTokens(List<Token> tokens) {
-        Stack<Double> values = new Stack<>();
-        Stack<Character> operators = new Stack<>();
+    // The expression's plan as written, without the optimizer, for callers that walk it themselves
+    CompiledExpression compileWritten(String expression) {
+        return optimizer == null ? compile(expression) : compilePlain(expression);
+    }
 
-        for (Token token : tokens) {
-            if (token.getType() == TokenType.NUMBER) {
-                double value = Double.parseDouble(token.getValue());
+    public CacheStats getExpressionCacheStats() {
+        return expressionCache.stats();
+    }
 
-                // Validate input value
-                rangeValidator.validateInput(value);
+    public CacheStats getPlanCacheStats() {
+        return planCache.stats();
+    }
 
-                values.push(value);
-            } else if (token.getType() == TokenType.OPERATOR) {
-                while (!operators.isEmpty() && precedence(operators.peek()) >= precedence(token.getValue().charAt(0))) {
-                    values.push(applyOperator(operators.pop(), values.pop(), values.pop()));
+    // Null when the memo is disabled
+    public CacheStats getMemoStats() {
+        return memo == null ? null : memo.stats();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ForkJoinPool pool = batchPool;
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (memo != null) {
+            try {
+                memo.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private ForkJoinPool batchPool() {
+        ForkJoinPool pool = batchPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = batchPool;
+                if (pool == null) {
+                    pool = new ForkJoinPool(batchParallelism);
+                    batchPool = pool;
                 }
-                operators.push(token.getValue().charAt(0));
-            } else if (token.getType() == TokenType.PARENTHESIS) {
-                if (token.getValue().equals("(")) {
-                    operators.push('(');
-                } else {
-                    while (operators.peek() != '(') {
-                        values.push(applyOperator(operators.pop(), values.pop(), values.pop()));
-                    }
-                    operators.pop();
+            }
+        }
+        return pool;
+    }
+
+    // Every public evaluate overload ends up here, so each evaluation is counted exactly once
+    private double evaluate(String expression, EvaluationWorkspace workspace, RangePolicy policy) {
+        EvaluationMetrics.Probe probe = metrics.probe();
+        probe.begin();
+        try {
+            if (memo != null) {
+                return evaluateMemoized(expression, workspace, policy != null ? policy : rangeValidator.getPolicy(),
+                        probe);
+            }
+            CompiledExpression compiled = compile(expression);
+            double result = policy == null
+                    ? compiled.evaluate(NO_SLOTS, workspace)
+                    : compiled.evaluate(NO_SLOTS, workspace, policy);
+            probe.end();
+            return result;
+        } catch (RuntimeException e) {
+            probe.fail(e);
+            throw e;
+        }
+    }
+
+    // The policy is resolved once so the result is stored under the policy it was computed with
+    private double evaluateMemoized(String expression, EvaluationWorkspace workspace, RangePolicy policy,
+                                    EvaluationMetrics.Probe probe) {
+        long key = memoKey(expression, policy);
+        double result = memo.get(key);
+        if (Double.isNaN(result)) {
+            CompiledExpression compiled = compile(expression);
+            result = compiled.evaluate(NO_SLOTS, workspace, policy);
+            if (compiled.getPlan().isPure()) {
+                memo.put(key, result);
+            }
+        }
+        probe.end();
+        return result;
+    }
+
+    /*
+     * 64-bit hash of the expression and the policy bounds. Whitespace is
+     * skipped except for one space between two characters it keeps apart, so
+     * "1+2" and " 1 + 2 " share an entry but "1 5" (an error) and "15" do not.
+     */
+    static long memoKey(String expression, RangePolicy policy) {
+        long hash = 0xcbf29ce484222325L;
+        boolean space = false;
+        boolean previousWord = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char ch = expression.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                space = true;
+                continue;
+            }
+            boolean word = Character.isLetterOrDigit(ch) || ch == '_' || ch == '.';
+            if (space && word && previousWord) {
+                hash = (hash ^ ' ') * 0x100000001b3L;
+            }
+            hash = (hash ^ ch) * 0x100000001b3L;
+            space = false;
+            previousWord = word;
+        }
+        return MemoTable.mix(hash ^ MemoTable.mix(policy.boundsHash()));
+    }
+
+    // Stored results stay valid only under the same optimizer mode and set of operators and functions
+    private static long memoFingerprint(CalculatorProperties properties) {
+        long hash = properties.getOptimizer().getMode().hashCode();
+        for (Operator operator : OperatorRegistry.standard().getOperators()) {
+            hash = hash * 31 + operator.getSymbol().hashCode();
+            hash = hash * 31 + operator.getKind().ordinal();
+            hash = hash * 31 + operator.getArity();
+            hash = hash * 31 + operator.getPrecedence();
+            hash = hash * 31 + operator.getAssociativity().ordinal();
+            hash = hash * 31 + (operator.isPure() ? implementationHash(operator) : 1);
+        }
+        return hash;
+    }
+
+    // Lambda class names change from run to run, so an implementation is identified by its results on fixed arguments
+    private static long implementationHash(Operator operator) {
+        long hash = 0;
+        for (double a : FINGERPRINT_ARGUMENTS) {
+            if (operator.getArity() == 1) {
+                hash = hash * 31 + resultHash(operator, a, 0);
+            } else {
+                for (double b : FINGERPRINT_ARGUMENTS) {
+                    hash = hash * 31 + resultHash(operator, a, b);
                 }
             }
         }
+        return hash;
+    }
 
-        while (!operators.isEmpty()) {
-            double result = applyOperator(operators.pop(), values.pop(), values.pop());
+    private static long resultHash(Operator operator, double a, double b) {
+        try {
+            return Double.doubleToLongBits(operator.getArity() == 1 ? operator.apply(a) : operator.apply(a, b));
+        } catch (RuntimeException e) {
+            return e.getClass().getName().hashCode();
+        }
+    }
 
-            // Validate output value
-            rangeValidator.validateOutput(result);
+    private static MemoTable openMemo(CalculatorProperties properties) {
+        CalculatorProperties.Memo settings = properties.getMemo();
+        try {
+            return MemoTable.open(Paths.get(settings.getFile()), settings.getSize(), memoFingerprint(properties));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open memo file " + settings.getFile(), e);
+        }
+    }
 
-            values.push(result);
+    private void evaluateRange(String[] expressions, EvaluationResult[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            results[i] = evaluateSafely(expressions[i]);
         }
+    }
 
-        return values.pop();
+    private CompiledExpression compileUncached(String expression) {
+        EvaluationMetrics.Probe probe = metrics.probe();
+        long lap = probe.beginCompile();
+        // Tokens go into this thread's reusable buffer; they are only read until the expression is bound, then cleared
+        TokenBuffer tokens = EvaluationWorkspace.forCurrentThread().tokens();
+        CompiledExpression compiled;
+        try {
+            expressionParser.tokenize(expression, tokens);
+            lap = probe.parsed(lap);
+            validateTokens(tokens); // Validate tokens before compilation
+            lap = probe.validated(lap);
+
+            compiled = bind(expression, tokens);
+        } finally {
+            tokens.clear();
+        }
+        if (optimizer != null) {
+            // Optimized plans are private to their expression; the shared plan stays as it was
+            compiled = optimizer.optimize(compiled);
+        }
+        probe.compiled(lap);
+        return compiled;
     }
 
-    private int precedence(char operator) {
-        switch (operator) {
-            case '+':
-            case '-':
-                return 1;
-            case '*':
-            case '/':
-                return 2;
-            default:
-                return -1;
+    private CompiledExpression compilePlain(String expression) {
+        TokenBuffer tokens = EvaluationWorkspace.forCurrentThread().tokens();
+        try {
+            expressionParser.tokenize(expression, tokens);
+            validateTokens(tokens);
+            return bind(expression, tokens);
+        } finally {
+            tokens.clear();
         }
     }
 
-    private double applyOperator(char operator, double b, double a) {
-        switch (operator) {
-            case '+':
-                return a + b;
-            case '-':
-                return a - b;
-            case '*':
-                return a * b;
-            case '/':
-                if (b == 0) throw new ArithmeticException("Cannot divide by zero");
-                return a / b;
+    private CompiledExpression bind(String expression, TokenBuffer tokens) {
+        String shape = expressionCompiler.shapeOf(tokens);
+        ExpressionPlan plan = planCache.computeIfAbsent(shape, key -> expressionCompiler.compilePlan(key, tokens));
+        double[] constants = expressionCompiler.extractConstants(tokens);
+        return new CompiledExpression(expression, plan, constants, expressionCompiler.extractIntegers(tokens, constants),
+                rangeValidator, codeGenerator, compileThreshold);
+    }
+
+    private static ExpressionOptimizer optimizerFor(String mode) {
+        switch (mode) {
+            case "off":
+                return null;
+            case "strict":
+                return new ExpressionOptimizer(false);
+            case "relaxed":
+                return new ExpressionOptimizer(true);
             default:
-                throw new IllegalArgumentException("Invalid operator: " + operator);
+                throw new IllegalArgumentException("Unknown optimizer mode: " + mode);
+        }
+    }
+
+    private void validateTokens(TokenBuffer tokens) {
+        // Add token validation logic here
+        // For example, check for invalid token sequences
+        if (tokens.isEmpty()) {
+            throw emptyExpression();
+        }
+
+        // Check for invalid token sequences
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.type(i) == TokenType.OPERATOR) {
+                // Check for operator at the beginning or end
+                if (i == 0 || i == tokens.size() - 1 || tokens.type(i + 1) == TokenType.OPERATOR
+                        || tokens.type(i + 1) == TokenType.COMMA) {
+                    throw invalidOperatorPlacement(tokens.start(i));
+                }
+            }
+        }
+    }
+
+    // Errors are built per throw rather than shared; see DivisionByZeroException
+    static InvalidExpressionException emptyExpression() {
+        return new InvalidExpressionException(ErrorCode.EMPTY_EXPRESSION, "Expression cannot be empty");
+    }
+
+    static InvalidExpressionException invalidOperatorPlacement(int offset) {
+        return new InvalidExpressionException(ErrorCode.INVALID_SYNTAX, offset, "Invalid operator placement");
+    }
+
+    private final class BatchTask extends RecursiveAction {
+
+        private final String[] expressions;
+        private final EvaluationResult[] results;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        BatchTask(String[] expressions, EvaluationResult[] results, int from, int to, int leafSize) {
+            this.expressions = expressions;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                evaluateRange(expressions, results, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(expressions, results, from, middle, leafSize),
+                    new BatchTask(expressions, results, middle, to, leafSize));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,632 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import com.ebay.interview.flexiblecalculator.model.OptimizationReport;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rewrites a {@link CompiledExpression} into a cheaper one with the same results
+ * and the same errors. The plan is turned into a tree and, bottom up:
+ * <ul>
+ *   <li>constant subtrees are folded, including calls to pure functions, except
+ *       a division by zero, which is left to fail at evaluation time;</li>
+ *   <li>operations that cannot change any IEEE 754 value are dropped:
+ *       {@code x * 1}, {@code 1 * x}, {@code x / 1} and {@code x - 0}
+ *       ({@code x + 0} is kept, since {@code -0.0 + 0} is {@code 0.0}).</li>
+ * </ul>
+ * The range checks the removed work would have made are kept as
+ * {@link RangeObligation}s and verified at evaluation time under whatever
+ * policy is then in force, in the original order.
+ *
+ * <p>Relaxed mode additionally gathers the constants of {@code +}/{@code -} and
+ * {@code *} chains ({@code x + 1 + 2} becomes {@code x + 3}) and rewrites
+ * polynomials in one variable into Horner form. Both change rounding and the
+ * intermediate results that are checked against the output range, so they are
+ * only applied on request; every literal is still checked as an input.
+ */
+public class ExpressionOptimizer {
+
+    // Deeper trees are left alone rather than risk exhausting the stack
+    private static final int MAX_NODES = 10_000;
+
+    private final boolean relaxed;
+
+    public ExpressionOptimizer(boolean relaxed) {
+        this.relaxed = relaxed;
+    }
+
+    // Returns the expression unchanged if it is already optimized or too large
+    public CompiledExpression optimize(CompiledExpression expression) {
+        ExpressionPlan plan = expression.getPlan();
+        if (expression.getOptimization() != null || plan.length() > MAX_NODES) {
+            return expression;
+        }
+
+        Pass pass = new Pass();
+        Node root = pass.optimize(toTree(expression));
+        Emitter emitter = new Emitter(plan.length());
+        emitter.emit(root);
+
+        String[] variables = expression.getVariables().toArray(new String[0]);
+        ExpressionPlan optimized = new ExpressionPlan(plan.getShape(), Arrays.copyOf(emitter.code, emitter.length),
+                Arrays.copyOf(emitter.operands, emitter.length), emitter.constantCount, variables,
+                Math.max(1, emitter.maxDepth));
+        OptimizationReport report = new OptimizationReport(plan.length(), root.size(), pass.folded, pass.identities,
+                pass.reassociated, pass.horner);
+        return expression.optimized(optimized, Arrays.copyOf(emitter.constants, emitter.constantCount),
+                Arrays.copyOf(emitter.integers, emitter.constantCount), emitter.obligations.toArray(new RangeObligation[0]), report);
+    }
+
+    private static Node toTree(CompiledExpression expression) {
+        ExpressionPlan plan = expression.getPlan();
+        Node[] stack = new Node[plan.getMaxStackDepth()];
+        int top = 0;
+        for (int pc = 0; pc < plan.length(); pc++) {
+            byte opcode = plan.opcode(pc);
+            if (opcode == ExpressionPlan.CONST) {
+                int index = plan.operand(pc);
+                double value = expression.constant(index);
+                stack[top++] = new Constant(value, expression.integer(index), Checks.input(value), true, false);
+            } else if (opcode == ExpressionPlan.VARIABLE) {
+                stack[top++] = new Variable(plan.operand(pc));
+            } else if (opcode == ExpressionPlan.CALL) {
+                Operator operator = OperatorRegistry.standard().get(plan.operand(pc));
+                Node[] arguments = Arrays.copyOfRange(stack, top - operator.getArity(), top);
+                top -= operator.getArity();
+                stack[top++] = new Call(plan.operand(pc), arguments);
+            } else {
+                Node right = stack[--top];
+                stack[top - 1] = new Operation(opcode, stack[top - 1], right);
+            }
+        }
+        return stack[0];
+    }
+
+    private final class Pass {
+
+        private int folded;
+        private int identities;
+        private int reassociated;
+        private int horner;
+
+        Node optimize(Node node) {
+            if (node instanceof Call) {
+                return call((Call) node);
+            }
+            if (!(node instanceof Operation)) {
+                return node;
+            }
+            Operation operation = (Operation) node;
+            if (relaxed && isAdditive(operation.opcode)) {
+                return sum(operation);
+            }
+            if (relaxed && operation.opcode == ExpressionPlan.MULTIPLY) {
+                return product(operation);
+            }
+            return simplify(operation.opcode, optimize(operation.left), optimize(operation.right));
+        }
+
+        private Node simplify(byte opcode, Node left, Node right) {
+            if (left instanceof Constant && right instanceof Constant) {
+                Constant a = (Constant) left;
+                Constant b = (Constant) right;
+                // Division by zero must still throw, and only when evaluated
+                if (opcode != ExpressionPlan.DIVIDE || b.value != 0) {
+                    double value = CompiledExpression.apply(opcode, a.value, b.value);
+                    long integer = a.integer != CompiledExpression.INEXACT && b.integer != CompiledExpression.INEXACT
+                            ? CompiledExpression.applyExact(opcode, a.integer, b.integer) : CompiledExpression.INEXACT;
+                    // Integer results the double does not match (past 2^53, or 0 for -0.0) are left to evaluation
+                    if (integer == CompiledExpression.INEXACT
+                            || Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits((double) integer)) {
+                        folded++;
+                        return new Constant(value, integer, a.checks.concat(b.checks).output(value), false, true);
+                    }
+                }
+            }
+            if (right instanceof Constant && isRightIdentity(opcode, (Constant) right)) {
+                identities++;
+                return guard(left, Checks.NONE, ((Constant) right).checks);
+            }
+            if (left instanceof Constant && isLeftIdentity(opcode, (Constant) left)) {
+                identities++;
+                return guard(right, ((Constant) left).checks, Checks.NONE);
+            }
+            return new Operation(opcode, left, right);
+        }
+
+        // Folds a pure function of constants; a call that throws is left to fail at evaluation time
+        private Node call(Call call) {
+            Node[] arguments = new Node[call.arguments.length];
+            boolean constant = true;
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = optimize(call.arguments[i]);
+                constant &= arguments[i] instanceof Constant;
+            }
+            Operator operator = OperatorRegistry.standard().get(call.id);
+            if (constant && operator.isPure()) {
+                Constant a = (Constant) arguments[0];
+                try {
+                    double value = CompiledExpression.checkResult(call.id, arguments.length == 1 ? operator.apply(a.value)
+                            : operator.apply(a.value, ((Constant) arguments[1]).value));
+                    Checks checks = arguments.length == 1 ? a.checks : a.checks.concat(((Constant) arguments[1]).checks);
+                    folded++;
+                    // Function results are doubles even under wide policies
+                    return new Constant(value, CompiledExpression.INEXACT, checks.output(value), false, true);
+                } catch (RuntimeException e) {
+                    // Fall through and keep the call
+                }
+            }
+            return new Call(call.id, arguments);
+        }
+
+        // Flattens a chain of + and -, gathers its constants and tries Horner form
+        private Node sum(Operation root) {
+            List<Node> terms = new ArrayList<>();
+            List<Boolean> negated = new ArrayList<>();
+            flattenSum(root, false, terms, negated);
+            for (int i = 0; i < terms.size(); i++) {
+                terms.set(i, optimize(terms.get(i)));
+            }
+
+            Node gathered = gather(terms, negated, ExpressionPlan.ADD);
+            Node polynomial = horner(terms, negated);
+            if (polynomial != null && polynomial.size() < gathered.size()) {
+                horner++;
+                return polynomial;
+            }
+            return gathered;
+        }
+
+        private Node product(Operation root) {
+            List<Node> factors = new ArrayList<>();
+            flattenProduct(root, factors);
+            List<Boolean> inverted = new ArrayList<>();
+            for (int i = 0; i < factors.size(); i++) {
+                factors.set(i, optimize(factors.get(i)));
+                inverted.add(false);
+            }
+            return gather(factors, inverted, ExpressionPlan.MULTIPLY);
+        }
+
+        // Rebuilds a flattened chain left to right with all constants combined into one operand
+        private Node gather(List<Node> operands, List<Boolean> negated, byte opcode) {
+            int constants = 0;
+            for (Node operand : operands) {
+                if (operand instanceof Constant) {
+                    constants++;
+                }
+            }
+            if (constants < 2 || constants == operands.size()) {
+                // Nothing to gather, or everything folds in the original order
+                Node result = operands.get(0);
+                for (int i = 1; i < operands.size(); i++) {
+                    result = simplify(negated.get(i) ? ExpressionPlan.SUBTRACT : opcode, result, operands.get(i));
+                }
+                return result;
+            }
+
+            reassociated++;
+            boolean multiply = opcode == ExpressionPlan.MULTIPLY;
+            double value = multiply ? 1 : 0;
+            Checks checks = Checks.NONE;
+            for (int i = 0; i < operands.size(); i++) {
+                if (operands.get(i) instanceof Constant) {
+                    Constant constant = (Constant) operands.get(i);
+                    value = multiply ? value * constant.value
+                            : negated.get(i) ? value - constant.value : value + constant.value;
+                    checks = checks.concat(constant.checks);
+                }
+            }
+            Constant combined = new Constant(value, CompiledExpression.integerOf(value), checks, false, false);
+
+            Node result = null;
+            for (int i = 0; i < operands.size(); i++) {
+                Node operand = operands.get(i);
+                if (operand instanceof Constant) {
+                    continue;
+                }
+                if (result == null && !negated.get(i)) {
+                    result = operand;
+                } else {
+                    if (result == null) {
+                        result = combined;
+                        combined = null;
+                    }
+                    result = new Operation(negated.get(i) ? ExpressionPlan.SUBTRACT : opcode, result, operand);
+                }
+            }
+            if (combined == null) {
+                return result;
+            }
+            if (value == (multiply ? 1 : 0)) {
+                // Adding zero or multiplying by one leaves only the literals' checks
+                return guard(result, Checks.NONE, checks);
+            }
+            return new Operation(opcode, result, combined);
+        }
+
+        // Horner form of a sum of monomials in one variable, e.g. 2*x*x + 3*x + 1 -> (2*x + 3)*x + 1
+        private Node horner(List<Node> terms, List<Boolean> negated) {
+            int slot = -1;
+            double[] coefficients = new double[4];
+            Checks checks = Checks.NONE;
+            for (int i = 0; i < terms.size(); i++) {
+                Monomial monomial = monomial(terms.get(i));
+                if (monomial == null || (monomial.degree > 0 && slot >= 0 && monomial.slot != slot)) {
+                    return null;
+                }
+                if (monomial.degree > 0) {
+                    slot = monomial.slot;
+                }
+                if (monomial.degree >= coefficients.length) {
+                    coefficients = Arrays.copyOf(coefficients, Math.max(coefficients.length * 2, monomial.degree + 1));
+                }
+                coefficients[monomial.degree] += negated.get(i) ? -monomial.coefficient : monomial.coefficient;
+                checks = checks.concat(monomial.checks);
+            }
+            int degree = coefficients.length - 1;
+            while (degree > 0 && coefficients[degree] == 0) {
+                degree--;
+            }
+            if (slot < 0 || degree < 2) {
+                return null;
+            }
+
+            Variable variable = new Variable(slot);
+            Node result = coefficients[degree] == 1 ? null : new Constant(coefficients[degree],
+                    CompiledExpression.integerOf(coefficients[degree]), Checks.NONE, false, false);
+            for (int d = degree - 1; d >= 0; d--) {
+                result = result == null ? variable : new Operation(ExpressionPlan.MULTIPLY, result, variable);
+                if (coefficients[d] != 0) {
+                    result = new Operation(ExpressionPlan.ADD, result,
+                            new Constant(coefficients[d], CompiledExpression.integerOf(coefficients[d]), Checks.NONE,
+                                    false, false));
+                }
+            }
+            return new Guarded(result, checks, Checks.NONE, false);
+        }
+
+        private Monomial monomial(Node node) {
+            if (node instanceof Constant) {
+                Constant constant = (Constant) node;
+                return new Monomial(-1, 0, constant.value, constant.checks);
+            }
+            if (node instanceof Variable) {
+                return new Monomial(((Variable) node).slot, 1, 1, Checks.NONE);
+            }
+            if (node instanceof Guarded) {
+                Guarded guarded = (Guarded) node;
+                Monomial inner = monomial(guarded.child);
+                return inner == null ? null : new Monomial(inner.slot, inner.degree, inner.coefficient,
+                        guarded.before.concat(inner.checks).concat(guarded.after));
+            }
+            if (!(node instanceof Operation) || ((Operation) node).opcode != ExpressionPlan.MULTIPLY) {
+                return null;
+            }
+            Operation operation = (Operation) node;
+            Monomial left = monomial(operation.left);
+            Monomial right = monomial(operation.right);
+            if (left == null || right == null || (left.slot >= 0 && right.slot >= 0 && left.slot != right.slot)) {
+                return null;
+            }
+            return new Monomial(Math.max(left.slot, right.slot), left.degree + right.degree,
+                    left.coefficient * right.coefficient, left.checks.concat(right.checks));
+        }
+    }
+
+    private static void flattenSum(Node node, boolean negated, List<Node> terms, List<Boolean> signs) {
+        if (node instanceof Operation && isAdditive(((Operation) node).opcode)) {
+            Operation operation = (Operation) node;
+            flattenSum(operation.left, negated, terms, signs);
+            flattenSum(operation.right, negated ^ operation.opcode == ExpressionPlan.SUBTRACT, terms, signs);
+        } else {
+            terms.add(node);
+            signs.add(negated);
+        }
+    }
+
+    private static void flattenProduct(Node node, List<Node> factors) {
+        if (node instanceof Operation && ((Operation) node).opcode == ExpressionPlan.MULTIPLY) {
+            flattenProduct(((Operation) node).left, factors);
+            flattenProduct(((Operation) node).right, factors);
+        } else {
+            factors.add(node);
+        }
+    }
+
+    private static boolean isAdditive(byte opcode) {
+        return opcode == ExpressionPlan.ADD || opcode == ExpressionPlan.SUBTRACT;
+    }
+
+    // x op c == x for every x, including NaN, infinities and -0.0, in double and in exact integer arithmetic.
+    // c must be an integer: any other constant turns an integer x into a double under wide policies
+    private static boolean isRightIdentity(byte opcode, Constant c) {
+        switch (opcode) {
+            case ExpressionPlan.MULTIPLY:
+            case ExpressionPlan.DIVIDE:
+                return c.integer == 1;
+            case ExpressionPlan.SUBTRACT:
+                return c.integer == 0;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isLeftIdentity(byte opcode, Constant c) {
+        return opcode == ExpressionPlan.MULTIPLY && c.integer == 1;
+    }
+
+    // Keeps the checks of the dropped operand, and the output check of the dropped
+    // operation unless the value was already checked as an output
+    private static Node guard(Node child, Checks before, Checks after) {
+        boolean checkOutput = !outputChecked(child);
+        if (before.size() == 0 && after.size() == 0 && !checkOutput) {
+            return child;
+        }
+        return new Guarded(child, before, after, checkOutput);
+    }
+
+    private static boolean outputChecked(Node node) {
+        if (node instanceof Operation || node instanceof Call) {
+            return true;
+        }
+        if (node instanceof Guarded) {
+            return ((Guarded) node).checkOutput || outputChecked(((Guarded) node).child);
+        }
+        return node instanceof Constant && ((Constant) node).outputChecked;
+    }
+
+    // Range checks in evaluation order; immutable
+    private static final class Checks {
+
+        static final Checks NONE = new Checks(new double[0], new boolean[0]);
+
+        private final double[] values;
+        private final boolean[] outputs;
+
+        private Checks(double[] values, boolean[] outputs) {
+            this.values = values;
+            this.outputs = outputs;
+        }
+
+        static Checks input(double value) {
+            return new Checks(new double[]{value}, new boolean[]{false});
+        }
+
+        int size() {
+            return values.length;
+        }
+
+        Checks output(double value) {
+            return concat(new Checks(new double[]{value}, new boolean[]{true}));
+        }
+
+        Checks concat(Checks other) {
+            if (other.size() == 0) {
+                return this;
+            }
+            if (size() == 0) {
+                return other;
+            }
+            double[] joinedValues = Arrays.copyOf(values, values.length + other.values.length);
+            System.arraycopy(other.values, 0, joinedValues, values.length, other.values.length);
+            boolean[] joinedOutputs = Arrays.copyOf(outputs, outputs.length + other.outputs.length);
+            System.arraycopy(other.outputs, 0, joinedOutputs, outputs.length, other.outputs.length);
+            return new Checks(joinedValues, joinedOutputs);
+        }
+
+        RangeObligation toObligation() {
+            return new RangeObligation(values, outputs);
+        }
+    }
+
+    private abstract static class Node {
+
+        // Operands and operators; range checks are not counted
+        abstract int size();
+    }
+
+    private static final class Constant extends Node {
+
+        private final double value;
+        // Exact value under wide policies, or INEXACT if the constant is a double (see CompiledExpression)
+        private final long integer;
+        private final Checks checks;
+        // A literal is emitted as CONST, which makes its own input check
+        private final boolean literal;
+        private final boolean outputChecked;
+
+        Constant(double value, long integer, Checks checks, boolean literal, boolean outputChecked) {
+            this.value = value;
+            this.integer = integer;
+            this.checks = checks;
+            this.literal = literal;
+            this.outputChecked = outputChecked;
+        }
+
+        @Override
+        int size() {
+            return 1;
+        }
+    }
+
+    private static final class Variable extends Node {
+
+        private final int slot;
+
+        Variable(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        int size() {
+            return 1;
+        }
+    }
+
+    private static final class Operation extends Node {
+
+        private final byte opcode;
+        private final Node left;
+        private final Node right;
+        private final int size;
+
+        Operation(byte opcode, Node left, Node right) {
+            this.opcode = opcode;
+            this.left = left;
+            this.right = right;
+            this.size = left.size() + right.size() + 1;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+    }
+
+    private static final class Call extends Node {
+
+        // OperatorRegistry id
+        private final int id;
+        private final Node[] arguments;
+        private final int size;
+
+        Call(int id, Node[] arguments) {
+            this.id = id;
+            this.arguments = arguments;
+            int size = 1;
+            for (Node argument : arguments) {
+                size += argument.size();
+            }
+            this.size = size;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+    }
+
+    // A value computed by child with range checks owed before and after it
+    private static final class Guarded extends Node {
+
+        private final Node child;
+        private final Checks before;
+        private final Checks after;
+        private final boolean checkOutput;
+
+        Guarded(Node child, Checks before, Checks after, boolean checkOutput) {
+            this.child = child;
+            this.before = before;
+            this.after = after;
+            this.checkOutput = checkOutput;
+        }
+
+        @Override
+        int size() {
+            return child.size();
+        }
+    }
+
+    // coefficient * variable^degree; slot is -1 for a constant
+    private static final class Monomial {
+
+        private final int slot;
+        private final int degree;
+        private final double coefficient;
+        private final Checks checks;
+
+        Monomial(int slot, int degree, double coefficient, Checks checks) {
+            this.slot = slot;
+            this.degree = degree;
+            this.coefficient = coefficient;
+            this.checks = checks;
+        }
+    }
+
+    private static final class Emitter {
+
+        private byte[] code;
+        private int[] operands;
+        private int length;
+        private double[] constants;
+        private long[] integers;
+        private int constantCount;
+        private final List<RangeObligation> obligations = new ArrayList<>();
+        private int depth;
+        private int maxDepth;
+
+        Emitter(int capacity) {
+            code = new byte[capacity];
+            operands = new int[capacity];
+            constants = new double[capacity];
+            integers = new long[capacity];
+        }
+
+        void emit(Node node) {
+            if (node instanceof Constant) {
+                Constant constant = (Constant) node;
+                if (!constant.literal) {
+                    check(constant.checks);
+                }
+                constants[constantCount] = constant.value;
+                integers[constantCount] = constant.integer;
+                instruction(constant.literal ? ExpressionPlan.CONST : ExpressionPlan.FOLDED, constantCount++);
+                push();
+            } else if (node instanceof Variable) {
+                instruction(ExpressionPlan.VARIABLE, ((Variable) node).slot);
+                push();
+            } else if (node instanceof Operation) {
+                Operation operation = (Operation) node;
+                emit(operation.left);
+                emit(operation.right);
+                instruction(operation.opcode, 0);
+                depth--;
+            } else if (node instanceof Call) {
+                Call call = (Call) node;
+                for (Node argument : call.arguments) {
+                    emit(argument);
+                }
+                instruction(ExpressionPlan.CALL, call.id);
+                depth -= call.arguments.length - 1;
+            } else {
+                Guarded guarded = (Guarded) node;
+                check(guarded.before);
+                emit(guarded.child);
+                check(guarded.after);
+                if (guarded.checkOutput) {
+                    instruction(ExpressionPlan.CHECK_OUTPUT, 0);
+                }
+            }
+        }
+
+        private void check(Checks checks) {
+            if (checks.size() > 0) {
+                obligations.add(checks.toObligation());
+                instruction(ExpressionPlan.CHECK, obligations.size() - 1);
+            }
+        }
+
+        private void instruction(byte opcode, int operand) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2 + 4);
+                operands = Arrays.copyOf(operands, length * 2 + 4);
+            }
+            if (constantCount == constants.length) {
+                constants = Arrays.copyOf(constants, constantCount * 2 + 4);
+                integers = Arrays.copyOf(integers, constantCount * 2 + 4);
+            }
+            code[length] = opcode;
+            operands[length++] = operand;
+        }
+
+        private void push() {
+            maxDepth = Math.max(maxDepth, ++depth);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+/**
+ * Straight-line bytecode produced by {@link ExpressionCodeGenerator} for one
+ * compiled expression.
+ */
+public interface GeneratedExpression {
+
+    double evaluate(double[] vars);
+}
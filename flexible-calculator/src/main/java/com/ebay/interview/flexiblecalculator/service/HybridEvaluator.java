@@ -0,0 +1,279 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import com.ebay.interview.flexiblecalculator.model.HybridResult;
+import com.ebay.interview.flexiblecalculator.model.InvalidExpressionException;
+import com.ebay.interview.flexiblecalculator.model.TokenType;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import com.ebay.interview.flexiblecalculator.utils.LruCache;
+import com.ebay.interview.flexiblecalculator.utils.TokenBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Evaluates expressions with decimal semantics, so {@code 0.1 + 0.2} is
+ * {@code 0.3}. Expressions are first run in {@code double}, checking that
+ * every literal is exactly the decimal it was written as and that every
+ * operation is exact: TwoSum for {@code +} and {@code -}, and a fused
+ * multiply-add residual for {@code *} and {@code /}. Only if one of those
+ * checks fails is the expression evaluated again in {@link BigDecimal} under
+ * the configured {@link MathContext}. Range checks and errors are the same as
+ * {@link ExpressionEvaluator}'s on both paths.
+ *
+ * <p>Functions and plugin operators only have {@code double} implementations.
+ * A call that returns one of its arguments unchanged, as {@code min} and
+ * {@code max} do, is exact and returns that argument's decimal value; any
+ * other call result is the exact decimal value of the {@code double} it returns,
+ * and a call with no real result, such as {@code sqrt(-1)}, is an error.
+ */
+@Service
+public class HybridEvaluator {
+
+    // Products and quotients smaller than this could hide a rounding error in an underflowed residual
+    private static final double MIN_EXACT_MAGNITUDE = 0x1p-900;
+
+    private final ExpressionEvaluator expressionEvaluator;
+    private final ExpressionParser expressionParser;
+    private final RangeValidator rangeValidator;
+    private final MathContext mathContext;
+    private final boolean enabled;
+    private final LruCache<String, Prepared> cache;
+    private final Function<String, Prepared> prepareFunction = this::prepare;
+    private final LongAdder doubleEvaluations = new LongAdder();
+    private final LongAdder decimalEvaluations = new LongAdder();
+
+    @Autowired
+    public HybridEvaluator(ExpressionEvaluator expressionEvaluator, ExpressionParser expressionParser,
+                           RangeValidator rangeValidator, CalculatorProperties properties) {
+        CalculatorProperties.Precision precision = properties.getPrecision();
+        if (!"double".equals(precision.getMode()) && !"hybrid".equals(precision.getMode())) {
+            throw new IllegalArgumentException("Unknown precision mode: " + precision.getMode());
+        }
+        this.expressionEvaluator = expressionEvaluator;
+        this.expressionParser = expressionParser;
+        this.rangeValidator = rangeValidator;
+        this.mathContext = new MathContext(precision.getDigits(), RoundingMode.valueOf(precision.getRoundingMode()));
+        this.enabled = "hybrid".equals(precision.getMode());
+        this.cache = new LruCache<>(properties.getCache().getExpressionSize());
+    }
+
+    // True when calculator.precision.mode=hybrid, i.e. the console should use this evaluator
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public HybridResult evaluate(String expression) {
+        return evaluate(expression, rangeValidator);
+    }
+
+    public HybridResult evaluate(String expression, RangePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Range policy cannot be null");
+        }
+        return evaluate(expression, (RangeCheck) policy);
+    }
+
+    // Evaluations that stayed in double and that were promoted to BigDecimal
+    public long getDoubleEvaluations() {
+        return doubleEvaluations.sum();
+    }
+
+    public long getDecimalEvaluations() {
+        return decimalEvaluations.sum();
+    }
+
+    private HybridResult evaluate(String expression, RangeCheck check) {
+        Prepared prepared = cache.computeIfAbsent(expression, prepareFunction);
+        List<String> variables = prepared.compiled.getVariables();
+        if (!variables.isEmpty()) {
+            throw new InvalidExpressionException(ErrorCode.UNBOUND_VARIABLE, "Unbound variables in expression: " + variables);
+        }
+        RangePolicy policy = check.currentPolicy();
+        RangeCheck range = policy != null ? policy : check;
+
+        if (prepared.literalsExact) {
+            double value = evaluateDouble(prepared.compiled, range);
+            if (!Double.isNaN(value)) {
+                doubleEvaluations.increment();
+                return new HybridResult(new BigDecimal(value).round(mathContext), HybridResult.Path.DOUBLE);
+            }
+        }
+        BigDecimal value = evaluateDecimal(prepared, range);
+        decimalEvaluations.increment();
+        return new HybridResult(value, HybridResult.Path.DECIMAL);
+    }
+
+    private Prepared prepare(String expression) {
+        CompiledExpression compiled = expressionEvaluator.compileWritten(expression);
+        List<BigDecimal> literals = new ArrayList<>();
+        TokenBuffer tokens = EvaluationWorkspace.forCurrentThread().tokens();
+        try {
+            expressionParser.tokenize(expression, tokens);
+            for (int i = 0; i < tokens.size(); i++) {
+                if (tokens.type(i) == TokenType.NUMBER) {
+                    literals.add(new BigDecimal(tokens.text(i)));
+                }
+            }
+        } finally {
+            tokens.clear();
+        }
+        boolean exact = true;
+        for (int i = 0; i < literals.size(); i++) {
+            // 0.1 parses to the nearest double, which is not 0.1
+            exact &= new BigDecimal(compiled.constant(i)).compareTo(literals.get(i)) == 0;
+        }
+        return new Prepared(compiled, literals.toArray(new BigDecimal[0]), exact);
+    }
+
+    // NaN if an operation was inexact; the literals are finite, so no exact result is NaN
+    private static double evaluateDouble(CompiledExpression compiled, RangeCheck range) {
+        ExpressionPlan plan = compiled.getPlan();
+        double[] stack = EvaluationWorkspace.forCurrentThread().values(plan.getMaxStackDepth());
+        int top = 0;
+        for (int pc = 0, length = plan.length(); pc < length; pc++) {
+            byte opcode = plan.opcode(pc);
+            if (opcode == ExpressionPlan.CONST) {
+                double value = compiled.constant(plan.operand(pc));
+                range.validateInput(value);
+                stack[top++] = value;
+            } else if (opcode == ExpressionPlan.CALL) {
+                int arguments = OperatorRegistry.standard().get(plan.operand(pc)).getArity();
+                double a = stack[top - arguments];
+                double b = stack[top - 1];
+                top = CompiledExpression.call(plan.operand(pc), stack, top);
+                double result = stack[top - 1];
+                // Exact only if the result is one of the arguments, bit for bit
+                if (!sameValue(result, a) && !sameValue(result, b)) {
+                    return Double.NaN;
+                }
+                range.validateOutput(result);
+            } else {
+                double b = stack[--top];
+                double a = stack[top - 1];
+                double result = CompiledExpression.apply(opcode, a, b);
+                if (!isExact(opcode, a, b, result)) {
+                    return Double.NaN;
+                }
+                range.validateOutput(result);
+                stack[top - 1] = result;
+            }
+        }
+        return stack[0];
+    }
+
+    static boolean isExact(byte opcode, double a, double b, double result) {
+        if (Double.isInfinite(result)) {
+            return false;
+        }
+        switch (opcode) {
+            case ExpressionPlan.ADD:
+                return twoSumError(a, b, result) == 0;
+            case ExpressionPlan.SUBTRACT:
+                return twoSumError(a, -b, result) == 0;
+            case ExpressionPlan.MULTIPLY:
+                return Math.fma(a, b, -result) == 0 && (Math.abs(result) >= MIN_EXACT_MAGNITUDE || a == 0 || b == 0);
+            case ExpressionPlan.DIVIDE:
+                return Math.fma(result, b, -a) == 0 && (Math.abs(result) >= MIN_EXACT_MAGNITUDE || a == 0);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean sameValue(double a, double b) {
+        return Double.doubleToRawLongBits(a) == Double.doubleToRawLongBits(b);
+    }
+
+    // Knuth's TwoSum: the rounding error of sum = a + b, exactly
+    private static double twoSumError(double a, double b, double sum) {
+        double bVirtual = sum - a;
+        double aVirtual = sum - bVirtual;
+        return (a - aVirtual) + (b - bVirtual);
+    }
+
+    private BigDecimal evaluateDecimal(Prepared prepared, RangeCheck range) {
+        ExpressionPlan plan = prepared.compiled.getPlan();
+        BigDecimal[] stack = new BigDecimal[Math.max(1, plan.getMaxStackDepth())];
+        int top = 0;
+        for (int pc = 0, length = plan.length(); pc < length; pc++) {
+            byte opcode = plan.opcode(pc);
+            if (opcode == ExpressionPlan.CONST) {
+                // Checked as the double the other evaluators see, so both agree on the bounds
+                range.validateInput(prepared.compiled.constant(plan.operand(pc)));
+                stack[top++] = prepared.literals[plan.operand(pc)];
+            } else if (opcode == ExpressionPlan.CALL) {
+                Operator operator = OperatorRegistry.standard().get(plan.operand(pc));
+                top -= operator.getArity() - 1;
+                BigDecimal a = stack[top - 1];
+                BigDecimal b = operator.getArity() == 2 ? stack[top] : a;
+                double result = operator.getArity() == 2 ? operator.apply(a.doubleValue(), b.doubleValue())
+                        : operator.apply(a.doubleValue());
+                range.validateOutput(result);
+                stack[top - 1] = decimalOf(operator, result, a, b);
+            } else {
+                BigDecimal b = stack[--top];
+                BigDecimal a = stack[top - 1];
+                BigDecimal result = apply(opcode, a, b);
+                range.validateOutput(result.doubleValue());
+                stack[top - 1] = result;
+            }
+        }
+        return stack[0].round(mathContext);
+    }
+
+    // A result that is one of the arguments keeps that argument's decimal value
+    private static BigDecimal decimalOf(Operator operator, double result, BigDecimal a, BigDecimal b) {
+        if (sameValue(result, a.doubleValue())) {
+            return a;
+        }
+        if (sameValue(result, b.doubleValue())) {
+            return b;
+        }
+        if (Double.isNaN(result) || Double.isInfinite(result)) {
+            throw new InvalidExpressionException(ErrorCode.INVALID_ARGUMENT,
+                    operator.getSymbol() + " has no decimal result for these arguments");
+        }
+        return new BigDecimal(result);
+    }
+
+    private BigDecimal apply(byte opcode, BigDecimal a, BigDecimal b) {
+        switch (opcode) {
+            case ExpressionPlan.ADD:
+                return a.add(b, mathContext);
+            case ExpressionPlan.SUBTRACT:
+                return a.subtract(b, mathContext);
+            case ExpressionPlan.MULTIPLY:
+                return a.multiply(b, mathContext);
+            case ExpressionPlan.DIVIDE:
+                if (b.signum() == 0) throw CompiledExpression.divisionByZero();
+                return a.divide(b, mathContext);
+            default:
+                throw new IllegalArgumentException("Invalid opcode: " + opcode);
+        }
+    }
+
+    // An expression's plan with its literals as written
+    private static final class Prepared {
+
+        private final CompiledExpression compiled;
+        private final BigDecimal[] literals;
+        private final boolean literalsExact;
+
+        Prepared(CompiledExpression compiled, BigDecimal[] literals, boolean literalsExact) {
+            this.compiled = compiled;
+            this.literals = literals;
+            this.literalsExact = literalsExact;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+// Bounds checks applied while evaluating; implemented by a fixed RangePolicy and by the swappable RangeValidator
+interface RangeCheck {
+
+    void validateInput(double value);
+
+    void validateOutput(double value);
+
+    // The policy in force right now, or null if it cannot be determined
+    RangePolicy currentPolicy();
+}
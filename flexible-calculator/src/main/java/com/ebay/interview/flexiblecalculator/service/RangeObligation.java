@@ -0,0 +1,70 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+/**
+ * The range checks an optimized expression still owes for work done at compile
+ * time: every folded-away literal is an input check and every folded result an
+ * output check. Checks are kept in evaluation order so a failure reports exactly
+ * the error the unoptimized expression would have thrown first.
+ */
+final class RangeObligation {
+
+    private final double[] values;
+    private final boolean[] outputs;
+    // NaN passes every range check, so it is left out of the bounds
+    private final double minInput;
+    private final double maxInput;
+    private final double minOutput;
+    private final double maxOutput;
+
+    RangeObligation(double[] values, boolean[] outputs) {
+        this.values = values.clone();
+        this.outputs = outputs.clone();
+        double minIn = Double.POSITIVE_INFINITY;
+        double maxIn = Double.NEGATIVE_INFINITY;
+        double minOut = Double.POSITIVE_INFINITY;
+        double maxOut = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < values.length; i++) {
+            if (Double.isNaN(values[i])) {
+                continue;
+            }
+            if (outputs[i]) {
+                minOut = Math.min(minOut, values[i]);
+                maxOut = Math.max(maxOut, values[i]);
+            } else {
+                minIn = Math.min(minIn, values[i]);
+                maxIn = Math.max(maxIn, values[i]);
+            }
+        }
+        this.minInput = minIn;
+        this.maxInput = maxIn;
+        this.minOutput = minOut;
+        this.maxOutput = maxOut;
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    boolean satisfiedBy(RangePolicy policy) {
+        return satisfiedBy(policy.getMinInput(), policy.getMaxInput(), policy.getMinOutput(), policy.getMaxOutput());
+    }
+
+    boolean satisfiedBy(double minInputBound, double maxInputBound, double minOutputBound, double maxOutputBound) {
+        return !(minInput < minInputBound) && !(maxInput > maxInputBound)
+                && !(minOutput < minOutputBound) && !(maxOutput > maxOutputBound);
+    }
+
+    // Passes in one comparison per bound under a fixed policy; otherwise replays the checks in order
+    void check(RangeCheck rangeCheck) {
+        if (rangeCheck instanceof RangePolicy && satisfiedBy((RangePolicy) rangeCheck)) {
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (outputs[i]) {
+                rangeCheck.validateOutput(values[i]);
+            } else {
+                rangeCheck.validateInput(values[i]);
+            }
+        }
+    }
+}
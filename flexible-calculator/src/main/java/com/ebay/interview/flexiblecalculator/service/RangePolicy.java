@@ -0,0 +1,114 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.InvalidExpressionException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable input and output limits. Policies are safe to share between
+ * threads and can be passed per evaluation, bound into a
+ * {@link CompiledExpression}, or installed in {@link RangeValidator}.
+ */
+@Getter
+@ToString
+public final class RangePolicy implements RangeCheck {
+
+    // 2^53: every integer of smaller magnitude is exact in a double
+    static final double EXACT_INTEGER_LIMIT = 0x1p53;
+
+    public static final RangePolicy UNBOUNDED = new RangePolicy("unbounded",
+            -Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE);
+
+    private final String name;
+    private final double minInput;
+    private final double maxInput;
+    private final double minOutput;
+    private final double maxOutput;
+    // Opts in to exact integer arithmetic past 2^53; a correctness mode that is slower than plain doubles
+    private final boolean exactIntegers;
+    // Exact integers are on and some bound admits integers that a double cannot hold exactly
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final boolean exceedsExactIntegers;
+    // Hash of the four bounds and the integer mode; policies that agree on them give the same results whatever their names
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private final long boundsHash;
+
+    public RangePolicy(String name, double minInput, double maxInput, double minOutput, double maxOutput) {
+        this(name, minInput, maxInput, minOutput, maxOutput, false);
+    }
+
+    public RangePolicy(String name, double minInput, double maxInput, double minOutput, double maxOutput,
+                       boolean exactIntegers) {
+        this.name = name;
+        this.minInput = minInput;
+        this.maxInput = maxInput;
+        this.minOutput = minOutput;
+        this.maxOutput = maxOutput;
+        this.exactIntegers = exactIntegers;
+        this.exceedsExactIntegers = exactIntegers && !(minInput > -EXACT_INTEGER_LIMIT && maxInput < EXACT_INTEGER_LIMIT
+                && minOutput > -EXACT_INTEGER_LIMIT && maxOutput < EXACT_INTEGER_LIMIT);
+        long hash = Double.doubleToLongBits(minInput);
+        hash = hash * 31 + Double.doubleToLongBits(maxInput);
+        hash = hash * 31 + Double.doubleToLongBits(minOutput);
+        hash = hash * 31 + Double.doubleToLongBits(maxOutput);
+        this.boundsHash = hash * 31 + (exceedsExactIntegers ? 1 : 0);
+    }
+
+    public RangePolicy withInputRange(double min, double max) {
+        return new RangePolicy(name, min, max, minOutput, maxOutput, exactIntegers);
+    }
+
+    public RangePolicy withOutputRange(double min, double max) {
+        return new RangePolicy(name, minInput, maxInput, min, max, exactIntegers);
+    }
+
+    public RangePolicy withExactIntegers(boolean exactIntegers) {
+        return new RangePolicy(name, minInput, maxInput, minOutput, maxOutput, exactIntegers);
+    }
+
+    @Override
+    public void validateInput(double value) {
+        if (value < minInput || value > maxInput) {
+            throw inputOutOfRange(value, minInput, maxInput);
+        }
+    }
+
+    @Override
+    public void validateOutput(double value) {
+        if (value < minOutput || value > maxOutput) {
+            throw outputOutOfRange(value, minOutput, maxOutput);
+        }
+    }
+
+    @Override
+    public RangePolicy currentPolicy() {
+        return this;
+    }
+
+    /*
+     * Below 2^53 double arithmetic on integers is already exact, and a result
+     * that would not be fails the output check either way. Wider bounds switch
+     * evaluation to exact long arithmetic (see CompiledExpression) when the
+     * policy opts in; otherwise they are evaluated in double like any other.
+     */
+    boolean exceedsExactIntegers() {
+        return exceedsExactIntegers;
+    }
+
+    long boundsHash() {
+        return boundsHash;
+    }
+
+    // Also called from generated expression classes, which inline the bounds checks
+    static IllegalArgumentException inputOutOfRange(double value, double min, double max) {
+        return new InvalidExpressionException(ErrorCode.INPUT_OUT_OF_RANGE, "Input value out of range: " + value + ". Valid range: " + min + " to " + max);
+    }
+
+    static IllegalArgumentException outputOutOfRange(double value, double min, double max) {
+        return new InvalidExpressionException(ErrorCode.OUTPUT_OUT_OF_RANGE, "Output value out of range: " + value + ". Valid range: " + min + " to " + max);
+    }
+}
@@ -1,41 +1,110 @@
 package com.ebay.interview.flexiblecalculator.service;
 
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the active {@link RangePolicy} in an atomic reference so it can be
+ * swapped while evaluations run; validating reads the reference once and
+ * never locks. Named profiles come from {@code calculator.range.profiles}.
+ */
 @Component
-public class RangeValidator {
+public class RangeValidator implements RangeCheck {
+
+    private final Map<String, RangePolicy> profiles;
+    private final AtomicReference<RangePolicy> policy;
+
+    public RangeValidator() {
+        this(new CalculatorProperties());
+    }
+
+    @Autowired
+    public RangeValidator(CalculatorProperties properties) {
+        Map<String, RangePolicy> loaded = new LinkedHashMap<>();
+        properties.getRange().getProfiles().forEach((name, profile) -> loaded.put(name, new RangePolicy(name,
+                profile.getMinInput(), profile.getMaxInput(), profile.getMinOutput(), profile.getMaxOutput(),
+                profile.isExactIntegers())));
+        this.profiles = Collections.unmodifiableMap(loaded);
+        this.policy = new AtomicReference<>(profile(properties.getRange().getActive()));
+    }
+
+    public RangePolicy getPolicy() {
+        return policy.get();
+    }
 
-    // Default range values
-    private double minInput = -Double.MAX_VALUE;  // Minimum acceptable input value
-    private double maxInput = Double.MAX_VALUE;   // Maximum acceptable input value
-    private double minOutput = -Double.MAX_VALUE; // Minimum acceptable output value
-    private double maxOutput = Double.MAX_VALUE;  // Maximum acceptable output value
+    // Installs a policy for all evaluations that do not bring their own
+    public void setPolicy(RangePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Range policy cannot be null");
+        }
+        this.policy.set(policy);
+    }
+
+    public RangePolicy useProfile(String name) {
+        RangePolicy profile = profile(name);
+        policy.set(profile);
+        return profile;
+    }
+
+    public RangePolicy profile(String name) {
+        RangePolicy profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown range profile: " + name);
+        }
+        return profile;
+    }
+
+    public Set<String> getProfileNames() {
+        return profiles.keySet();
+    }
 
     // Set the input range
     public void setInputRange(double min, double max) {
-        this.minInput = min;
-        this.maxInput = max;
-        System.out.println("Input range set to: " + min + " to " + max);
+        policy.updateAndGet(current -> current.withInputRange(min, max));
     }
 
     // Set the output range
     public void setOutputRange(double min, double max) {
-        this.minOutput = min;
-        this.maxOutput = max;
-        System.out.println("Output range set to: " + min + " to " + max);
+        policy.updateAndGet(current -> current.withOutputRange(min, max));
     }
 
     // Validate input value
+    @Override
     public void validateInput(double value) {
-        if (value < minInput || value > maxInput) {
-            throw new IllegalArgumentException("Input value out of range: " + value + ". Valid range: " + minInput + " to " + maxInput);
-        }
+        policy.get().validateInput(value);
     }
 
     // Validate output value
+    @Override
     public void validateOutput(double value) {
-        if (value < minOutput || value > maxOutput) {
-            throw new IllegalArgumentException("Output value out of range: " + value + ". Valid range: " + minOutput + " to " + maxOutput);
-        }
+        policy.get().validateOutput(value);
+    }
+
+    @Override
+    public RangePolicy currentPolicy() {
+        return policy.get();
+    }
+
+    public double getMinInput() {
+        return policy.get().getMinInput();
+    }
+
+    public double getMaxInput() {
+        return policy.get().getMaxInput();
+    }
+
+    public double getMinOutput() {
+        return policy.get().getMinOutput();
+    }
+
+    public double getMaxOutput() {
+        return policy.get().getMaxOutput();
     }
 }
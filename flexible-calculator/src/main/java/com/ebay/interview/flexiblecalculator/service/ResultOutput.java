@@ -0,0 +1,32 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Result lines of one chunk; exposes the backing array so they are written without a copy
+final class ResultOutput extends ByteArrayOutputStream {
+
+    ResultOutput(int capacity) {
+        super(Math.max(capacity, 32));
+    }
+
+    // Copies straight into the buffer; write(int) would take the stream's lock once per character
+    void writeAscii(String text) {
+        int length = text.length();
+        if (count + length > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + length));
+        }
+        for (int i = 0; i < length; i++) {
+            buf[count++] = (byte) text.charAt(i);
+        }
+    }
+
+    void writeUtf8(String text) {
+        writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+}
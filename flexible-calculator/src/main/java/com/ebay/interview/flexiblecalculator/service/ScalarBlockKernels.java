@@ -0,0 +1,89 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+
+/**
+ * Plain counted loops, one per operator, which HotSpot's C2 compiler can
+ * auto-vectorize. Used when the Vector API is not available.
+ */
+final class ScalarBlockKernels implements BlockKernels {
+
+    @Override
+    public void apply(byte opcode, double[] a, int aOffset, double[] b, int bOffset, double[] out, int length) {
+        switch (opcode) {
+            case ExpressionPlan.ADD:
+                for (int i = 0; i < length; i++) out[i] = a[aOffset + i] + b[bOffset + i];
+                break;
+            case ExpressionPlan.SUBTRACT:
+                for (int i = 0; i < length; i++) out[i] = a[aOffset + i] - b[bOffset + i];
+                break;
+            case ExpressionPlan.MULTIPLY:
+                for (int i = 0; i < length; i++) out[i] = a[aOffset + i] * b[bOffset + i];
+                break;
+            case ExpressionPlan.DIVIDE:
+                for (int i = 0; i < length; i++) out[i] = a[aOffset + i] / b[bOffset + i];
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid opcode: " + opcode);
+        }
+    }
+
+    @Override
+    public void applyScalarRight(byte opcode, double[] a, int aOffset, double b, double[] out, int length) {
+        switch (opcode) {
+            case ExpressionPlan.ADD:
+                for (int i = 0; i < length; i++) out[i] = a[aOffset + i] + b;
+                break;
+            case ExpressionPlan.SUBTRACT:
+                for (int i = 0; i < length; i++) out[i] = a[aOffset + i] - b;
+                break;
+            case ExpressionPlan.MULTIPLY:
+                for (int i = 0; i < length; i++) out[i] = a[aOffset + i] * b;
+                break;
+            case ExpressionPlan.DIVIDE:
+                for (int i = 0; i < length; i++) out[i] = a[aOffset + i] / b;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid opcode: " + opcode);
+        }
+    }
+
+    @Override
+    public void applyScalarLeft(byte opcode, double a, double[] b, int bOffset, double[] out, int length) {
+        switch (opcode) {
+            case ExpressionPlan.ADD:
+                for (int i = 0; i < length; i++) out[i] = a + b[bOffset + i];
+                break;
+            case ExpressionPlan.SUBTRACT:
+                for (int i = 0; i < length; i++) out[i] = a - b[bOffset + i];
+                break;
+            case ExpressionPlan.MULTIPLY:
+                for (int i = 0; i < length; i++) out[i] = a * b[bOffset + i];
+                break;
+            case ExpressionPlan.DIVIDE:
+                for (int i = 0; i < length; i++) out[i] = a / b[bOffset + i];
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid opcode: " + opcode);
+        }
+    }
+
+    @Override
+    public boolean allWithin(double[] values, int offset, int length, double min, double max) {
+        boolean outside = false;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            double value = values[i];
+            outside |= !(value >= min & value <= max);
+        }
+        return !outside;
+    }
+
+    @Override
+    public boolean containsZero(double[] values, int offset, int length) {
+        boolean zero = false;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            zero |= values[i] == 0;
+        }
+        return zero;
+    }
+}
@@ -0,0 +1,530 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import com.ebay.interview.flexiblecalculator.model.InvalidExpressionException;
+import com.ebay.interview.flexiblecalculator.model.InvalidNumberException;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionTokenizer;
+import com.ebay.interview.flexiblecalculator.utils.NumberParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Evaluates one expression read from a {@link Reader} or channel, for
+ * expressions too large to hold in memory. Tokens are reduced as they are
+ * read with the shunting-yard algorithm of {@link ExpressionCompiler}, so
+ * memory grows with the nesting depth of the expression rather than its
+ * length; expressions nested deeper than {@code calculator.single-pass.max-depth}
+ * are rejected. Results and errors are those of {@link ExpressionEvaluator}.
+ */
+@Service
+public class SinglePassEvaluator {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int INITIAL_DEPTH = 16;
+    // Unbound variable names listed in the error; any more are elided
+    private static final int MAX_REPORTED_VARIABLES = 100;
+
+    private final OperatorRegistry registry = OperatorRegistry.standard();
+    private final RangeValidator rangeValidator;
+    private final int maxDepth;
+    private final int maxTokenLength;
+
+    public SinglePassEvaluator(RangeValidator rangeValidator) {
+        this(rangeValidator, new CalculatorProperties());
+    }
+
+    @Autowired
+    public SinglePassEvaluator(RangeValidator rangeValidator, CalculatorProperties properties) {
+        this.rangeValidator = rangeValidator;
+        this.maxDepth = properties.getSinglePass().getMaxDepth();
+        this.maxTokenLength = properties.getSinglePass().getMaxTokenLength();
+    }
+
+    public double evaluate(Reader expression) throws IOException {
+        return evaluate(expression, rangeValidator.getPolicy());
+    }
+
+    public double evaluate(Reader expression, RangePolicy policy) throws IOException {
+        if (policy == null) {
+            throw new IllegalArgumentException("Range policy cannot be null");
+        }
+        return new Pass(expression, policy).run();
+    }
+
+    // Decodes the channel as UTF-8; malformed input fails with an IOException
+    public double evaluate(ReadableByteChannel expression) throws IOException {
+        return evaluate(Channels.newReader(expression, StandardCharsets.UTF_8));
+    }
+
+    // Reports syntax, binding and range errors in the result; read errors are still thrown
+    public EvaluationResult evaluateSafely(ReadableByteChannel expression) throws IOException {
+        try {
+            return EvaluationResult.success(evaluate(expression));
+        } catch (RuntimeException e) {
+            return EvaluationResult.failure(e);
+        }
+    }
+
+    /*
+     * State of one evaluation. Tokenizer errors are thrown where they are
+     * found; later errors are only recorded, so that, as in
+     * ExpressionEvaluator, an invalid character near the end still wins over a
+     * missing operand near the start. The first error of each kind is kept
+     * and the highest ranked one is thrown once the input ends.
+     */
+    private final class Pass {
+
+        private final Reader reader;
+        private final RangePolicy policy;
+        // Whole numbers are carried as exact longs, as in CompiledExpression
+        private final boolean exactIntegers;
+        private final char[] input = new char[READ_BUFFER_SIZE];
+        private int position;
+        private int limit;
+        // Offset in the expression of the next character read
+        private long offset;
+        private final char[] token = new char[maxTokenLength];
+        private final CharBuffer tokenView = CharBuffer.wrap(token);
+
+        // Tokenizer: open parentheses and the offset of the outermost one
+        private long openParentheses;
+        private long outermostParenthesis;
+
+        // Validation: whether any token was read, and the previous one was an operator
+        private boolean anyToken;
+        private boolean afterOperator;
+        private boolean misplacedOperator;
+        // Offsets of the last token, the last operator and the first misplaced operator
+        private long lastToken;
+        private long lastOperator;
+        private long misplacedOperatorStart;
+
+        // Reduction: value and operator stacks, with one frame per open function call
+        private double[] values;
+        private long[] integers;
+        private boolean[] integral;
+        private int depth;
+        private byte[] operators;
+        private long[] operatorStarts;
+        private int[] calls;
+        private int[] callDepths;
+        private int[] callCommas;
+        private int operatorTop;
+        private int callTop;
+        private int pendingFunction = -1;
+        private long pendingFunctionStart;
+        private RuntimeException syntaxError;
+
+        // Evaluation stops at the first error or unbound variable, which decide the outcome
+        private final Set<String> variables = new LinkedHashSet<>();
+        private boolean moreVariables;
+        private RuntimeException evaluationError;
+
+        Pass(Reader reader, RangePolicy policy) {
+            this.reader = reader;
+            this.policy = policy;
+            this.exactIntegers = policy.exceedsExactIntegers();
+            // The stacks grow on demand up to maxDepth
+            int capacity = Math.min(INITIAL_DEPTH, maxDepth);
+            values = new double[capacity];
+            integers = new long[capacity];
+            integral = new boolean[capacity];
+            operators = new byte[capacity];
+            operatorStarts = new long[capacity];
+            calls = new int[capacity];
+            callDepths = new int[capacity];
+            callCommas = new int[capacity];
+        }
+
+        double run() throws IOException {
+            int next;
+            while ((next = read()) >= 0) {
+                char ch = (char) next;
+                long start = offset - 1;
+                if (ExpressionTokenizer.isDigit(ch) || ch == '.') {
+                    int length = scan(ch, start, false);
+                    number(start, length);
+                } else if (ExpressionTokenizer.isIdentifierStart(ch)) {
+                    int length = scan(ch, start, true);
+                    name(start, length);
+                } else if (registry.isInfix(ch)) {
+                    validate(start, true, false);
+                    operator(ch, start);
+                } else if (ch == ',') {
+                    validate(start, false, true);
+                    comma(start);
+                } else if (ch == '(') {
+                    if (openParentheses++ == 0) {
+                        outermostParenthesis = start;
+                    }
+                    validate(start, false, false);
+                    open(start);
+                } else if (ch == ')') {
+                    if (openParentheses == 0) {
+                        throw new InvalidExpressionException(ErrorCode.MISMATCHED_PARENTHESES, offsetOf(start),
+                                "Mismatched parentheses: Extra closing parenthesis at offset " + start);
+                    }
+                    openParentheses--;
+                    validate(start, false, false);
+                    close();
+                } else if (!Character.isWhitespace(ch)) {
+                    throw new InvalidExpressionException(ErrorCode.INVALID_CHARACTER, offsetOf(start),
+                            "Invalid character in expression: '" + ch + "' at offset " + start);
+                }
+            }
+            return finish();
+        }
+
+        // Reads the rest of a number or name into token and returns its length
+        private int scan(char first, long start, boolean name) throws IOException {
+            token[0] = first;
+            int length = 1;
+            int next;
+            while ((next = read()) >= 0) {
+                char ch = (char) next;
+                if (name ? !ExpressionTokenizer.isIdentifierPart(ch) : !ExpressionTokenizer.isDigit(ch) && ch != '.') {
+                    unread();
+                    break;
+                }
+                if (length == token.length) {
+                    throw new InvalidExpressionException(ErrorCode.LIMIT_EXCEEDED, offsetOf(start),
+                            "Token at offset " + start + " is longer than the limit of " + maxTokenLength + " characters");
+                }
+                token[length++] = ch;
+            }
+            return length;
+        }
+
+        private void number(long start, int length) {
+            // Integer literals skip the general decimal parser
+            long integer = NumberParser.parseInteger(tokenView, 0, length);
+            double value;
+            if (integer != NumberParser.INEXACT) {
+                value = integer;
+            } else {
+                try {
+                    value = NumberParser.parse(tokenView, 0, length);
+                } catch (NumberFormatException e) {
+                    throw new InvalidNumberException(offsetOf(start),
+                            "Invalid number '" + new String(token, 0, length) + "' at offset " + start);
+                }
+                integer = CompiledExpression.integerOf(value);
+            }
+            validate(start, false, false);
+            if (syntaxError != null) {
+                return;
+            }
+            push(start);
+            if (evaluating()) {
+                try {
+                    policy.validateInput(value);
+                } catch (RuntimeException e) {
+                    evaluationError = e;
+                }
+            }
+            values[depth - 1] = value;
+            integers[depth - 1] = integer;
+            integral[depth - 1] = exactIntegers && integer != CompiledExpression.INEXACT;
+        }
+
+        // A name followed by '(' is a function call, anything else a variable
+        private void name(long start, int length) throws IOException {
+            int next;
+            do {
+                next = read();
+            } while (next >= 0 && Character.isWhitespace((char) next));
+            if (next >= 0) {
+                unread();
+            }
+            if (next == '(') {
+                int id = registry.functionId(tokenView, 0, length);
+                if (id < 0) {
+                    throw new InvalidExpressionException(ErrorCode.UNKNOWN_FUNCTION, offsetOf(start),
+                            "Unknown function '" + new String(token, 0, length) + "' at offset " + start);
+                }
+                validate(start, false, false);
+                // The opening parenthesis comes next
+                pendingFunction = id;
+                pendingFunctionStart = start;
+                return;
+            }
+            validate(start, false, false);
+            if (syntaxError != null) {
+                return;
+            }
+            variable(new String(token, 0, length));
+            push(start);
+            integral[depth - 1] = false;
+        }
+
+        private void variable(String name) {
+            if (variables.size() < MAX_REPORTED_VARIABLES) {
+                variables.add(name);
+            } else if (!variables.contains(name)) {
+                moreVariables = true;
+            }
+        }
+
+        private void operator(char symbol, long start) {
+            if (syntaxError != null) {
+                return;
+            }
+            int precedence = registry.precedence(symbol);
+            boolean rightAssociative = registry.isRightAssociative(symbol);
+            while (operatorTop > 0) {
+                int top = registry.precedence((char) operators[operatorTop - 1]);
+                if (top < precedence || (top == precedence && rightAssociative)) {
+                    break;
+                }
+                if (!reduce()) {
+                    return;
+                }
+            }
+            pushOperator((byte) symbol, start);
+        }
+
+        private void comma(long start) {
+            if (syntaxError != null) {
+                return;
+            }
+            if (!reduceToParenthesis()) {
+                return;
+            }
+            if (operatorTop == 0 || operators[operatorTop - 1] != ExpressionCompiler.CALL_OPEN) {
+                syntaxError = ExpressionCompiler.misplacedComma(offsetOf(start));
+            } else if (depth != callDepths[callTop - 1] + callCommas[callTop - 1] + 1) {
+                syntaxError = ExpressionCompiler.missingOperatorOrOperand(offsetOf(start));
+            } else {
+                callCommas[callTop - 1]++;
+            }
+        }
+
+        private void open(long start) {
+            int function = pendingFunction;
+            pendingFunction = -1;
+            if (syntaxError != null) {
+                return;
+            }
+            if (function < 0) {
+                pushOperator((byte) '(', start);
+                return;
+            }
+            // Recorded at the function name, where errors in the call are reported
+            pushOperator(ExpressionCompiler.CALL_OPEN, pendingFunctionStart);
+            calls[callTop] = function;
+            callDepths[callTop] = depth;
+            callCommas[callTop++] = 0;
+        }
+
+        private void close() {
+            if (syntaxError != null || !reduceToParenthesis()) {
+                return;
+            }
+            if (operators[--operatorTop] == ExpressionCompiler.CALL_OPEN) {
+                callTop--;
+                call(calls[callTop], operatorStarts[operatorTop], depth - callDepths[callTop], callCommas[callTop]);
+            }
+        }
+
+        private double finish() {
+            if (openParentheses > 0) {
+                throw new InvalidExpressionException(ErrorCode.MISMATCHED_PARENTHESES, offsetOf(outermostParenthesis),
+                        "Mismatched parentheses: Extra opening parenthesis at offset " + outermostParenthesis);
+            }
+            if (!anyToken) {
+                throw ExpressionEvaluator.emptyExpression();
+            }
+            if (misplacedOperator || afterOperator) {
+                throw ExpressionEvaluator.invalidOperatorPlacement(
+                        offsetOf(misplacedOperator ? misplacedOperatorStart : lastOperator));
+            }
+            while (syntaxError == null && operatorTop > 0) {
+                reduce();
+            }
+            if (syntaxError == null && depth != 1) {
+                syntaxError = ExpressionCompiler.missingOperatorOrOperand(offsetOf(lastToken));
+            }
+            if (syntaxError != null) {
+                throw syntaxError;
+            }
+            if (!variables.isEmpty()) {
+                String names = variables.toString();
+                if (moreVariables) {
+                    names = names.substring(0, names.length() - 1) + ", ...]";
+                }
+                throw new InvalidExpressionException(ErrorCode.UNBOUND_VARIABLE, "Unbound variables in expression: " + names);
+            }
+            if (evaluationError != null) {
+                throw evaluationError;
+            }
+            return values[0];
+        }
+
+        // Operators and function calls misplaced in the token sequence, as checked by ExpressionEvaluator
+        private void validate(long start, boolean operator, boolean comma) {
+            if (!misplacedOperator && ((operator || comma) && afterOperator || operator && !anyToken)) {
+                misplacedOperator = true;
+                misplacedOperatorStart = anyToken ? lastOperator : start;
+            }
+            anyToken = true;
+            afterOperator = operator;
+            lastToken = start;
+            if (operator) {
+                lastOperator = start;
+            }
+        }
+
+        private boolean reduceToParenthesis() {
+            while (operatorTop > 0 && operators[operatorTop - 1] != '('
+                    && operators[operatorTop - 1] != ExpressionCompiler.CALL_OPEN) {
+                if (!reduce()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Pops an infix operator and applies it to the top two values; false after a syntax error
+        private boolean reduce() {
+            char symbol = (char) operators[--operatorTop];
+            if (depth < 2) {
+                syntaxError = ExpressionCompiler.missingOperand(symbol, offsetOf(operatorStarts[operatorTop]));
+                return false;
+            }
+            int a = --depth - 1;
+            if (!evaluating()) {
+                return true;
+            }
+            try {
+                int id = registry.infixId(symbol);
+                if (id >= OperatorRegistry.ARITHMETIC_OPERATORS) {
+                    CompiledExpression.call(id, values, depth + 1);
+                    policy.validateOutput(values[a]);
+                    integral[a] = false;
+                    return true;
+                }
+                byte opcode = ExpressionPlan.opcodeOf(symbol);
+                if (integral[a] && integral[a + 1]) {
+                    long result = CompiledExpression.applyExact(opcode, integers[a], integers[a + 1]);
+                    if (result != CompiledExpression.INEXACT) {
+                        policy.validateOutput((double) result);
+                        integers[a] = result;
+                        values[a] = result;
+                        return true;
+                    }
+                }
+                // Promoted: the operands' doubles are their longs correctly rounded
+                double result = CompiledExpression.apply(opcode, values[a], values[a + 1]);
+                policy.validateOutput(result);
+                integral[a] = false;
+                values[a] = result;
+            } catch (RuntimeException e) {
+                evaluationError = e;
+            }
+            return true;
+        }
+
+        // added is how far the arguments raised the stack; each argument must leave exactly one value
+        private void call(int id, long start, int added, int commas) {
+            int arguments = added == 0 && commas == 0 ? 0 : commas + 1;
+            if (added != arguments) {
+                syntaxError = ExpressionCompiler.missingOperatorOrOperand(offsetOf(start));
+                return;
+            }
+            Operator function = registry.get(id);
+            if (arguments != function.getArity()) {
+                syntaxError = ExpressionCompiler.arityMismatch(function, arguments, offsetOf(start));
+                return;
+            }
+            int top = depth;
+            depth = depth - arguments + 1;
+            if (!evaluating()) {
+                return;
+            }
+            try {
+                CompiledExpression.call(id, values, top);
+                policy.validateOutput(values[depth - 1]);
+                integral[depth - 1] = false;
+            } catch (RuntimeException e) {
+                evaluationError = e;
+            }
+        }
+
+        private boolean evaluating() {
+            return evaluationError == null && variables.isEmpty();
+        }
+
+        private void push(long start) {
+            if (depth == values.length) {
+                int capacity = grow(values.length, start);
+                values = Arrays.copyOf(values, capacity);
+                integers = Arrays.copyOf(integers, capacity);
+                integral = Arrays.copyOf(integral, capacity);
+            }
+            depth++;
+        }
+
+        private void pushOperator(byte operator, long start) {
+            if (operatorTop == operators.length) {
+                int capacity = grow(operators.length, start);
+                operators = Arrays.copyOf(operators, capacity);
+                operatorStarts = Arrays.copyOf(operatorStarts, capacity);
+                calls = Arrays.copyOf(calls, capacity);
+                callDepths = Arrays.copyOf(callDepths, capacity);
+                callCommas = Arrays.copyOf(callCommas, capacity);
+            }
+            operatorStarts[operatorTop] = start;
+            operators[operatorTop++] = operator;
+        }
+
+        private int grow(int capacity, long start) {
+            if (capacity >= maxDepth) {
+                throw new InvalidExpressionException(ErrorCode.LIMIT_EXCEEDED, offsetOf(start),
+                        "Expression nesting exceeds the limit of " + maxDepth + " at offset " + start);
+            }
+            return (int) Math.min((long) capacity * 2, maxDepth);
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                int read;
+                do {
+                    read = reader.read(input, 0, input.length);
+                } while (read == 0);
+                if (read < 0) {
+                    return -1;
+                }
+                position = 0;
+                limit = read;
+            }
+            offset++;
+            return input[position++];
+        }
+
+        // Steps back over the character just read
+        private void unread() {
+            position--;
+            offset--;
+        }
+    }
+
+    // Offsets past Integer.MAX_VALUE are still exact in the message
+    private static int offsetOf(long offset) {
+        return (int) Math.min(offset, Integer.MAX_VALUE);
+    }
+}
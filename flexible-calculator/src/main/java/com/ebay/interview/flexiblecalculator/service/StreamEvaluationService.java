@@ -0,0 +1,278 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.BulkEvaluationSummary;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates expressions piped through standard input, one per line, and
+ * writes one result per line in the format of {@link BulkFileEvaluationService}.
+ * A reader thread cuts the input into blocks of whole lines, worker threads
+ * evaluate the blocks, and the calling thread writes their results in input
+ * order through one buffered stream. A bounded queue of pending blocks holds
+ * the reader back when evaluation or output falls behind.
+ */
+@Service
+public class StreamEvaluationService {
+
+    // Completes the queue once the input is exhausted
+    private static final Block END = new Block(new byte[0], 0, 0, 0, false);
+
+    private static final Path STANDARD_INPUT = Paths.get("/dev/stdin");
+    // File type bits of a Unix file mode
+    private static final int FILE_TYPE = 0170000;
+    private static final int FIFO = 0010000;
+    private static final int REGULAR_FILE = 0100000;
+    private static final int SOCKET = 0140000;
+
+    private final ExpressionEvaluator expressionEvaluator;
+    // Null, or disabled, unless results are printed as exact decimals
+    private final HybridEvaluator hybridEvaluator;
+    private final int parallelism;
+    private final int blockSize;
+    private final int outputBufferSize;
+
+    public StreamEvaluationService(ExpressionEvaluator expressionEvaluator, CalculatorProperties properties) {
+        this(expressionEvaluator, null, properties);
+    }
+
+    @Autowired
+    public StreamEvaluationService(ExpressionEvaluator expressionEvaluator, HybridEvaluator hybridEvaluator,
+                                   CalculatorProperties properties) {
+        this.expressionEvaluator = expressionEvaluator;
+        this.hybridEvaluator = hybridEvaluator;
+        int configured = properties.getBatch().getParallelism();
+        this.parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+        this.blockSize = properties.getStream().getBlockSize();
+        this.outputBufferSize = properties.getStream().getOutputBufferSize();
+    }
+
+    // True when standard input is a pipe, socket or file rather than a terminal
+    public static boolean isPipedInput() {
+        return isPipedInput(STANDARD_INPUT);
+    }
+
+    // Decided from the file type, so a producer that has written nothing yet still counts as piped.
+    // Where file modes are unavailable, e.g. on Windows, input is piped when no console is attached
+    public static boolean isPipedInput(Path input) {
+        try {
+            int type = (Integer) Files.getAttribute(input, "unix:mode") & FILE_TYPE;
+            return type == FIFO || type == REGULAR_FILE || type == SOCKET;
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return System.console() == null;
+        }
+    }
+
+    /**
+     * Evaluates every line of the input until it ends or a line reads
+     * {@code exit}. Stops quietly if the output is closed, e.g. when piped
+     * into {@code head}.
+     */
+    public BulkEvaluationSummary evaluate(InputStream input, OutputStream output) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "stream-evaluator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        BlockingQueue<Future<Block>> pending = new ArrayBlockingQueue<>(parallelism * 2);
+        Thread reader = new Thread(() -> read(input, workers, pending), "stream-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        PrintStream out = new PrintStream(new BufferedOutputStream(output, outputBufferSize), false);
+        long lines = 0;
+        long errors = 0;
+        int blocks = 0;
+        try {
+            while (true) {
+                Block block = await(pending.take());
+                if (block == END) {
+                    break;
+                }
+                out.write(block.output, 0, block.length);
+                lines += block.lines;
+                errors += block.errors;
+                blocks++;
+                // Flush whenever the next block is not ready, so a slow producer sees its results promptly
+                Future<Block> next = pending.peek();
+                if (next == null || !next.isDone()) {
+                    out.flush();
+                    if (out.checkError()) {
+                        // The output was closed
+                        break;
+                    }
+                }
+                if (block.exit) {
+                    break;
+                }
+            }
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while evaluating input", e);
+        } finally {
+            workers.shutdownNow();
+            reader.interrupt();
+        }
+        return new BulkEvaluationSummary(lines, errors, blocks, 0);
+    }
+
+    // Hands complete lines to the workers once the block is full or no more input is waiting
+    private void read(InputStream input, ExecutorService workers, BlockingQueue<Future<Block>> pending) {
+        try {
+            try {
+                byte[] buffer = new byte[blockSize];
+                int length = 0;
+                int read;
+                while ((read = input.read(buffer, length, buffer.length - length)) >= 0) {
+                    length += read;
+                    if (length < buffer.length && input.available() > 0) {
+                        continue;
+                    }
+                    int end = lastNewline(buffer, length) + 1;
+                    if (end == 0) {
+                        if (length == buffer.length) {
+                            // A line longer than the block
+                            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                        }
+                        continue;
+                    }
+                    byte[] next = new byte[Math.max(blockSize, length - end)];
+                    System.arraycopy(buffer, end, next, 0, length - end);
+                    submit(workers, pending, buffer, end);
+                    buffer = next;
+                    length -= end;
+                }
+                if (length > 0) {
+                    submit(workers, pending, buffer, length);
+                }
+                pending.put(CompletableFuture.completedFuture(END));
+            } catch (IOException | RuntimeException e) {
+                pending.put(CompletableFuture.failedFuture(e));
+            }
+        } catch (InterruptedException e) {
+            // The writer stopped early
+        }
+    }
+
+    private void submit(ExecutorService workers, BlockingQueue<Future<Block>> pending, byte[] bytes, int length)
+            throws InterruptedException {
+        pending.put(workers.submit(() -> evaluateBlock(bytes, length)));
+    }
+
+    private Block evaluateBlock(byte[] bytes, int length) {
+        ResultOutput output = new ResultOutput(length + length / 2);
+        boolean exact = hybridEvaluator != null && hybridEvaluator.isEnabled();
+        int lines = 0;
+        int errors = 0;
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && bytes[end] != '\n') {
+                end++;
+            }
+            int next = end + 1;
+            if (end > start && bytes[end - 1] == '\r') {
+                end--;
+            }
+            if (isExit(bytes, start, end)) {
+                return new Block(output.buffer(), output.size(), lines, errors, true);
+            }
+
+            String expression = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            if (!(exact ? writeExact(output, expression) : write(output, expression))) {
+                errors++;
+            }
+            output.write('\n');
+            lines++;
+            start = next;
+        }
+        return new Block(output.buffer(), output.size(), lines, errors, false);
+    }
+
+    // Each returns false after writing an error
+    private boolean write(ResultOutput output, String expression) {
+        EvaluationResult result = expressionEvaluator.evaluateSafely(expression);
+        if (result.isSuccess()) {
+            output.writeAscii(Double.toString(result.getValue()));
+            return true;
+        }
+        writeError(output, result.getErrorMessage());
+        return false;
+    }
+
+    private boolean writeExact(ResultOutput output, String expression) {
+        try {
+            output.writeAscii(hybridEvaluator.evaluate(expression).getValue().toPlainString());
+            return true;
+        } catch (RuntimeException e) {
+            writeError(output, EvaluationResult.failure(e).getErrorMessage());
+            return false;
+        }
+    }
+
+    private static void writeError(ResultOutput output, String message) {
+        output.writeAscii(BulkFileEvaluationService.ERROR_PREFIX);
+        output.writeUtf8(String.valueOf(message));
+    }
+
+    private static boolean isExit(byte[] bytes, int start, int end) {
+        return end - start == 4 && (bytes[start] | 0x20) == 'e' && (bytes[start + 1] | 0x20) == 'x'
+                && (bytes[start + 2] | 0x20) == 'i' && (bytes[start + 3] | 0x20) == 't';
+    }
+
+    private static int lastNewline(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Block await(Future<Block> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to evaluate input", e.getCause());
+        }
+    }
+
+    private static final class Block {
+
+        private final byte[] output;
+        private final int length;
+        private final int lines;
+        private final int errors;
+        // The block ended at an "exit" line
+        private final boolean exit;
+
+        Block(byte[] output, int length, int lines, int errors, boolean exit) {
+            this.output = output;
+            this.length = length;
+            this.lines = lines;
+            this.errors = errors;
+            this.exit = exit;
+        }
+    }
+}
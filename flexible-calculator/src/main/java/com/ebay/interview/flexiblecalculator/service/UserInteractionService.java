@@ -12,10 +12,17 @@ public class UserInteractionService {
     private static final Logger logger = LoggerFactory.getLogger(UserInteractionService.class);
 
     private final ExpressionEvaluator expressionEvaluator;
+    // Null, or disabled, unless results are printed as exact decimals
+    private final HybridEvaluator hybridEvaluator;
 
-    @Autowired
     public UserInteractionService(ExpressionEvaluator expressionEvaluator) {
+        this(expressionEvaluator, null);
+    }
+
+    @Autowired
+    public UserInteractionService(ExpressionEvaluator expressionEvaluator, HybridEvaluator hybridEvaluator) {
         this.expressionEvaluator = expressionEvaluator;
+        this.hybridEvaluator = hybridEvaluator;
     }
 
     public void start() {
@@ -26,6 +33,10 @@ public class UserInteractionService {
 
             while (true) {
                 logger.info("Enter an expression to evaluate (or 'exit' to quit): ");
+                // End of input (e.g. echo "1+2" | java -jar ...) ends the session like 'exit'
+                if (!scanner.hasNextLine()) {
+                    break;
+                }
                 String input = scanner.nextLine();
 
                 if ("exit".equalsIgnoreCase(input)) {
@@ -34,8 +45,12 @@ public class UserInteractionService {
                 }
 
                 try {
-                    double result = expressionEvaluator.evaluate(input);
-                    logger.info("Result: " + result);
+                    if (hybridEvaluator != null && hybridEvaluator.isEnabled()) {
+                        logger.info("Result: " + hybridEvaluator.evaluate(input).getValue().toPlainString());
+                    } else {
+                        double result = expressionEvaluator.evaluate(input);
+                        logger.info("Result: " + result);
+                    }
                 } catch (IllegalArgumentException e) {
                     logger.error("Input/Output value out of range: {}", e.getMessage());
                     logger.info("Error: " + e.getMessage());
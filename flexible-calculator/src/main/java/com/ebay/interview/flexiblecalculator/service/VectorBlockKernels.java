@@ -0,0 +1,119 @@
+package com.ebay.interview.flexiblecalculator.service;
+
+import com.ebay.interview.flexiblecalculator.model.ExpressionPlan;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Block loops written against the incubating JDK Vector API. Only loaded
+ * reflectively when the {@code jdk.incubator.vector} module is present, i.e.
+ * when the JVM runs with {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorBlockKernels implements BlockKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void apply(byte opcode, double[] a, int aOffset, double[] b, int bOffset, double[] out, int length) {
+        VectorOperators.Binary operator = operator(opcode);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector left = DoubleVector.fromArray(SPECIES, a, aOffset + i);
+            DoubleVector right = DoubleVector.fromArray(SPECIES, b, bOffset + i);
+            left.lanewise(operator, right).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] = scalar(opcode, a[aOffset + i], b[bOffset + i]);
+        }
+    }
+
+    @Override
+    public void applyScalarRight(byte opcode, double[] a, int aOffset, double b, double[] out, int length) {
+        VectorOperators.Binary operator = operator(opcode);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, aOffset + i).lanewise(operator, b).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] = scalar(opcode, a[aOffset + i], b);
+        }
+    }
+
+    @Override
+    public void applyScalarLeft(byte opcode, double a, double[] b, int bOffset, double[] out, int length) {
+        VectorOperators.Binary operator = operator(opcode);
+        DoubleVector left = DoubleVector.broadcast(SPECIES, a);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            left.lanewise(operator, DoubleVector.fromArray(SPECIES, b, bOffset + i)).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] = scalar(opcode, a, b[bOffset + i]);
+        }
+    }
+
+    @Override
+    public boolean allWithin(double[] values, int offset, int length, double min, double max) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector vector = DoubleVector.fromArray(SPECIES, values, offset + i);
+            VectorMask<Double> inside = vector.compare(VectorOperators.GE, min).and(vector.compare(VectorOperators.LE, max));
+            if (!inside.allTrue()) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            double value = values[offset + i];
+            if (!(value >= min && value <= max)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsZero(double[] values, int offset, int length) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            if (DoubleVector.fromArray(SPECIES, values, offset + i).compare(VectorOperators.EQ, 0.0).anyTrue()) {
+                return true;
+            }
+        }
+        for (; i < length; i++) {
+            if (values[offset + i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double scalar(byte opcode, double a, double b) {
+        switch (opcode) {
+            case ExpressionPlan.ADD:
+                return a + b;
+            case ExpressionPlan.SUBTRACT:
+                return a - b;
+            case ExpressionPlan.MULTIPLY:
+                return a * b;
+            default:
+                return a / b;
+        }
+    }
+
+    private static VectorOperators.Binary operator(byte opcode) {
+        switch (opcode) {
+            case ExpressionPlan.ADD:
+                return VectorOperators.ADD;
+            case ExpressionPlan.SUBTRACT:
+                return VectorOperators.SUB;
+            case ExpressionPlan.MULTIPLY:
+                return VectorOperators.MUL;
+            case ExpressionPlan.DIVIDE:
+                return VectorOperators.DIV;
+            default:
+                throw new IllegalArgumentException("Invalid opcode: " + opcode);
+        }
+    }
+}
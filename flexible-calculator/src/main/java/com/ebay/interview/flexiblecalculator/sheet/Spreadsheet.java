@@ -0,0 +1,398 @@
+package com.ebay.interview.flexiblecalculator.sheet;
+
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Named cells holding numbers or formulas over other cells, e.g.
+ * {@code total = subtotal * (1 + tax)}. The cells form a dependency graph;
+ * a definition that would close a cycle is rejected and leaves the sheet
+ * unchanged. A change only marks the changed cell and everything downstream
+ * of it dirty. The next read or {@link #recalculate()} evaluates just those
+ * cells in topological order, one level at a time, and evaluates a level in
+ * parallel when it holds at least {@code parallelThreshold} cells.
+ *
+ * <p>Formulas are compiled and evaluated by {@link ExpressionEvaluator}, so its
+ * caches and range limits apply; a cell's value is range checked as an input
+ * wherever it is used. A cell that fails, or uses a failed or undefined cell,
+ * holds the error instead of a value. Methods are synchronized.
+ */
+public class Spreadsheet {
+
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+    private static final Cell[] NO_CELLS = new Cell[0];
+
+    private final ExpressionEvaluator evaluator;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    // Defined cells, and undefined ones still referenced by a formula
+    private final Map<String, Cell> cells = new LinkedHashMap<>();
+    // Cells changed since the last recalculation
+    private final Set<Cell> changed = new LinkedHashSet<>();
+
+    public Spreadsheet(ExpressionEvaluator evaluator) {
+        this(evaluator, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public Spreadsheet(ExpressionEvaluator evaluator, ForkJoinPool pool, int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("Parallel threshold must be positive: " + parallelThreshold);
+        }
+        this.evaluator = evaluator;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public synchronized void setValue(String name, double value) {
+        Cell cell = cellFor(checkName(name));
+        detach(cell);
+        cell.defined = true;
+        cell.formula = null;
+        cell.compiled = null;
+        cell.value = value;
+        changed.add(cell);
+    }
+
+    // Cells the formula names that are not defined yet hold an error until they are
+    public synchronized void setFormula(String name, String formula) {
+        checkName(name);
+        CompiledExpression compiled = evaluator.compile(formula);
+        List<String> references = compiled.getVariables();
+        checkAcyclic(name, references);
+
+        Cell cell = cellFor(name);
+        detach(cell);
+        cell.defined = true;
+        cell.formula = formula;
+        cell.compiled = compiled;
+        cell.precedents = new Cell[references.size()];
+        for (int slot = 0; slot < references.size(); slot++) {
+            Cell precedent = cellFor(references.get(slot));
+            precedent.dependents.add(cell);
+            cell.precedents[slot] = precedent;
+        }
+        changed.add(cell);
+    }
+
+    // Cells using a removed cell hold an error until it is defined again
+    public synchronized void remove(String name) {
+        Cell cell = cells.get(name);
+        if (cell == null || !cell.defined) {
+            throw new IllegalArgumentException("Unknown cell: " + name);
+        }
+        detach(cell);
+        cell.defined = false;
+        cell.formula = null;
+        cell.compiled = null;
+        changed.add(cell);
+        if (cell.dependents.isEmpty()) {
+            cells.remove(name);
+            changed.remove(cell);
+        }
+    }
+
+    public synchronized EvaluationResult getResult(String name) {
+        recalculate();
+        return definedCell(name).result;
+    }
+
+    // Throws if the cell holds an error
+    public synchronized double getValue(String name) {
+        EvaluationResult result = getResult(name);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Cell " + name + " failed: " + result.getErrorMessage());
+        }
+        return result.getValue();
+    }
+
+    // Null for a cell holding a number
+    public synchronized String getFormula(String name) {
+        return definedCell(name).formula;
+    }
+
+    // Defined cells in order of first appearance
+    public synchronized Set<String> getNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (Cell cell : cells.values()) {
+            if (cell.defined) {
+                names.add(cell.name);
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    // Re-evaluates the cells affected by changes since the last call and returns how many there were
+    public synchronized int recalculate() {
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        List<Cell> affected = downstreamOf(changed);
+        changed.clear();
+        List<Cell> level = new ArrayList<>();
+        for (Cell cell : affected) {
+            cell.pending = 0;
+            for (Cell precedent : cell.precedents) {
+                if (precedent.stale) {
+                    cell.pending++;
+                }
+            }
+            if (cell.pending == 0) {
+                level.add(cell);
+            }
+        }
+
+        int evaluated = 0;
+        while (!level.isEmpty()) {
+            if (level.size() >= parallelThreshold && pool.getParallelism() > 1) {
+                int leafSize = Math.max(1, level.size() / (pool.getParallelism() * 4));
+                pool.invoke(new LevelTask(level, 0, level.size(), leafSize));
+            } else {
+                for (Cell cell : level) {
+                    evaluate(cell);
+                }
+            }
+            evaluated += level.size();
+
+            // Cells whose last stale precedent was just evaluated form the next level
+            List<Cell> next = new ArrayList<>();
+            for (Cell cell : level) {
+                cell.stale = false;
+                for (Cell dependent : cell.dependents) {
+                    if (dependent.stale && --dependent.pending == 0) {
+                        next.add(dependent);
+                    }
+                }
+            }
+            level = next;
+        }
+        return evaluated;
+    }
+
+    public synchronized SpreadsheetSnapshot snapshot() {
+        recalculate();
+        Map<String, SpreadsheetSnapshot.Entry> entries = new LinkedHashMap<>();
+        for (Cell cell : cells.values()) {
+            if (cell.defined) {
+                entries.put(cell.name, new SpreadsheetSnapshot.Entry(cell.formula, cell.value, cell.result));
+            }
+        }
+        return new SpreadsheetSnapshot(entries);
+    }
+
+    // Replaces every cell with the snapshot's; values are restored as they were, not recomputed
+    public synchronized void restore(SpreadsheetSnapshot snapshot) {
+        cells.clear();
+        changed.clear();
+        snapshot.entries().forEach((name, entry) -> {
+            Cell cell = cellFor(name);
+            cell.defined = true;
+            cell.formula = entry.formula;
+            cell.value = entry.value;
+            cell.result = entry.result;
+        });
+        for (Cell cell : new ArrayList<>(cells.values())) {
+            if (cell.formula == null) {
+                continue;
+            }
+            cell.compiled = evaluator.compile(cell.formula);
+            List<String> references = cell.compiled.getVariables();
+            cell.precedents = new Cell[references.size()];
+            for (int slot = 0; slot < references.size(); slot++) {
+                Cell precedent = cellFor(references.get(slot));
+                precedent.dependents.add(cell);
+                cell.precedents[slot] = precedent;
+            }
+        }
+    }
+
+    private void evaluate(Cell cell) {
+        if (!cell.defined) {
+            cell.result = undefined(cell.name);
+            return;
+        }
+        if (cell.compiled == null) {
+            cell.result = EvaluationResult.success(cell.value);
+            return;
+        }
+        double[] slots = cell.compiled.newSlots();
+        for (int slot = 0; slot < slots.length; slot++) {
+            EvaluationResult input = cell.precedents[slot].result;
+            if (!input.isSuccess()) {
+                // The first failed input's error carries through, as in a spreadsheet
+                cell.result = input;
+                return;
+            }
+            slots[slot] = input.getValue();
+        }
+        try {
+            cell.result = EvaluationResult.success(cell.compiled.evaluate(slots));
+        } catch (RuntimeException e) {
+            cell.result = EvaluationResult.failure(e);
+        }
+    }
+
+    // The given cells and everything that depends on them, each marked stale
+    private static List<Cell> downstreamOf(Set<Cell> roots) {
+        List<Cell> affected = new ArrayList<>();
+        Deque<Cell> work = new ArrayDeque<>(roots);
+        for (Cell root : roots) {
+            root.stale = true;
+        }
+        while (!work.isEmpty()) {
+            Cell cell = work.pop();
+            affected.add(cell);
+            for (Cell dependent : cell.dependents) {
+                if (!dependent.stale) {
+                    dependent.stale = true;
+                    work.push(dependent);
+                }
+            }
+        }
+        return affected;
+    }
+
+    // Rejects a formula for name whose references already depend on name
+    private void checkAcyclic(String name, List<String> references) {
+        Cell target = cells.get(name);
+        if (references.contains(name)) {
+            throw new IllegalArgumentException("Circular reference: " + name + " -> " + name);
+        }
+        if (target == null || target.dependents.isEmpty()) {
+            return;
+        }
+        // Breadth first over precedents, so the reported cycle is a shortest one
+        Map<Cell, Cell> reachedFrom = new HashMap<>();
+        Deque<Cell> work = new ArrayDeque<>();
+        for (String reference : references) {
+            Cell cell = cells.get(reference);
+            if (cell != null && reachedFrom.putIfAbsent(cell, cell) == null) {
+                work.add(cell);
+            }
+        }
+        while (!work.isEmpty()) {
+            Cell cell = work.poll();
+            if (cell == target) {
+                List<String> path = new ArrayList<>();
+                for (Cell step = cell; ; step = reachedFrom.get(step)) {
+                    path.add(step.name);
+                    if (reachedFrom.get(step) == step) {
+                        break;
+                    }
+                }
+                Collections.reverse(path);
+                throw new IllegalArgumentException("Circular reference: " + name + " -> " + String.join(" -> ", path));
+            }
+            for (Cell precedent : cell.precedents) {
+                if (reachedFrom.putIfAbsent(precedent, cell) == null) {
+                    work.add(precedent);
+                }
+            }
+        }
+    }
+
+    // Unlinks a cell from its precedents, dropping undefined ones nothing refers to any more
+    private void detach(Cell cell) {
+        for (Cell precedent : cell.precedents) {
+            precedent.dependents.remove(cell);
+            if (!precedent.defined && precedent.dependents.isEmpty()) {
+                cells.remove(precedent.name);
+                changed.remove(precedent);
+            }
+        }
+        cell.precedents = NO_CELLS;
+    }
+
+    private Cell cellFor(String name) {
+        return cells.computeIfAbsent(name, Cell::new);
+    }
+
+    private Cell definedCell(String name) {
+        Cell cell = cells.get(name);
+        if (cell == null || !cell.defined) {
+            throw new IllegalArgumentException("Unknown cell: " + name);
+        }
+        return cell;
+    }
+
+    // Cell names are the identifiers formulas refer to them by
+    private static String checkName(String name) {
+        boolean valid = name != null && !name.isEmpty() && !Character.isDigit(name.charAt(0));
+        for (int i = 0; valid && i < name.length(); i++) {
+            char ch = name.charAt(i);
+            valid = (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_';
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("Invalid cell name: " + name);
+        }
+        return name;
+    }
+
+    private static EvaluationResult undefined(String name) {
+        return EvaluationResult.failure(new IllegalArgumentException("Undefined cell: " + name));
+    }
+
+    private static final class Cell {
+
+        private final String name;
+        private boolean defined;
+        // Null for a cell holding a number
+        private String formula;
+        private CompiledExpression compiled;
+        private double value;
+        // Referenced cells in the compiled formula's slot order
+        private Cell[] precedents = NO_CELLS;
+        private final Set<Cell> dependents = new LinkedHashSet<>();
+        private EvaluationResult result;
+
+        // Recalculation state: affected and not yet evaluated, and stale precedents left
+        private boolean stale;
+        private int pending;
+
+        Cell(String name) {
+            this.name = name;
+            this.result = undefined(name);
+        }
+    }
+
+    private final class LevelTask extends RecursiveAction {
+
+        private final List<Cell> level;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        LevelTask(List<Cell> level, int from, int to, int leafSize) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    evaluate(level.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LevelTask(level, from, middle, leafSize), new LevelTask(level, middle, to, leafSize));
+        }
+    }
+}
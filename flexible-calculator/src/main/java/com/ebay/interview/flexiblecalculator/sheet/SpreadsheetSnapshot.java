@@ -0,0 +1,61 @@
+package com.ebay.interview.flexiblecalculator.sheet;
+
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable copy of a {@link Spreadsheet}'s cells: each cell's formula or
+ * number and its value as last recalculated. Restoring a snapshot brings
+ * back exactly those values without recomputing them.
+ */
+public final class SpreadsheetSnapshot {
+
+    private final Map<String, Entry> entries;
+
+    SpreadsheetSnapshot(Map<String, Entry> entries) {
+        this.entries = Collections.unmodifiableMap(new LinkedHashMap<>(entries));
+    }
+
+    // Defined cells in order of definition
+    public Set<String> getNames() {
+        return entries.keySet();
+    }
+
+    // Null for a cell holding a number
+    public String getFormula(String name) {
+        return entry(name).formula;
+    }
+
+    public EvaluationResult getResult(String name) {
+        return entry(name).result;
+    }
+
+    Map<String, Entry> entries() {
+        return entries;
+    }
+
+    private Entry entry(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown cell: " + name);
+        }
+        return entry;
+    }
+
+    static final class Entry {
+
+        final String formula;
+        final double value;
+        final EvaluationResult result;
+
+        Entry(String formula, double value, EvaluationResult result) {
+            this.formula = formula;
+            this.value = value;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.ebay.interview.flexiblecalculator.tcp;
+
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client for {@link TcpEvaluationServer}. Requests are pipelined: {@link #submit}
+ * writes a frame and returns at once, and a reader thread completes each future
+ * when the response with its request id arrives. Safe for concurrent use.
+ */
+public final class EvaluationClient implements AutoCloseable {
+
+    private final SocketChannel channel;
+    private final Map<Long, CompletableFuture<EvaluationResult>> inFlight = new ConcurrentHashMap<>();
+    private final Thread reader;
+    private final Object writeLock = new Object();
+    private ByteBuffer out = ByteBuffer.allocate(4096);
+    private long nextRequestId;
+    private volatile IOException failure;
+
+    private EvaluationClient(SocketChannel channel) {
+        this.channel = channel;
+        this.reader = new Thread(this::readResponses, "evaluation-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public static EvaluationClient connect(String host, int port) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        return new EvaluationClient(channel);
+    }
+
+    // Blocks until the result arrives; evaluation errors are returned, not thrown
+    public EvaluationResult evaluate(String expression) throws IOException {
+        try {
+            return submit(expression).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    public CompletableFuture<EvaluationResult> submit(String expression) throws IOException {
+        return submitAll(expression)[0];
+    }
+
+    // Sends all expressions in one write, which is much cheaper than one write each
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<EvaluationResult>[] submitAll(String... expressions) throws IOException {
+        CompletableFuture<EvaluationResult>[] results = new CompletableFuture[expressions.length];
+        synchronized (writeLock) {
+            checkOpen();
+            out.clear();
+            for (int i = 0; i < expressions.length; i++) {
+                long requestId = nextRequestId++;
+                results[i] = new CompletableFuture<>();
+                inFlight.put(requestId, results[i]);
+                out = TcpProtocol.writeRequest(out, requestId, expressions[i].getBytes(StandardCharsets.UTF_8));
+            }
+            out.flip();
+            try {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            } catch (IOException e) {
+                fail(e);
+                throw e;
+            }
+        }
+        // The reader may have failed between checkOpen and registering the futures
+        if (failure != null) {
+            fail(failure);
+        }
+        return results;
+    }
+
+    // Requests sent but not yet answered
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void readResponses() {
+        ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        try {
+            while (true) {
+                if (channel.read(in) < 0) {
+                    throw new ClosedChannelException();
+                }
+                in.flip();
+                int length;
+                while ((length = TcpProtocol.completeFrame(in, TcpProtocol.RESPONSE_HEADER,
+                        Integer.MAX_VALUE - TcpProtocol.LENGTH_BYTES)) >= 0) {
+                    in.getInt();
+                    complete(in, length);
+                }
+                if (in.remaining() >= TcpProtocol.LENGTH_BYTES
+                        && TcpProtocol.LENGTH_BYTES + in.getInt(in.position()) > in.capacity()) {
+                    in = ByteBuffer.allocate(TcpProtocol.LENGTH_BYTES + in.getInt(in.position())).put(in);
+                } else {
+                    in.compact();
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void complete(ByteBuffer in, int length) throws IOException {
+        long requestId = in.getLong();
+        byte status = in.get();
+        EvaluationResult result;
+        if (status == TcpProtocol.STATUS_OK) {
+            result = EvaluationResult.success(in.getDouble());
+        } else if (status == TcpProtocol.STATUS_ERROR) {
+            result = TcpProtocol.readError(in, length);
+        } else {
+            throw new IOException("Unknown response status: " + status);
+        }
+        CompletableFuture<EvaluationResult> future = inFlight.remove(requestId);
+        if (future != null) {
+            future.complete(result);
+        }
+    }
+
+    private void fail(IOException error) {
+        if (failure == null) {
+            failure = error;
+        }
+        for (Long requestId : inFlight.keySet()) {
+            CompletableFuture<EvaluationResult> future = inFlight.remove(requestId);
+            if (future != null) {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.ebay.interview.flexiblecalculator.tcp;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves the binary protocol described in {@link TcpProtocol}. An acceptor
+ * thread hands connections round-robin to a fixed set of selector loops; each
+ * loop reads every complete frame available on a connection, evaluates them on
+ * the loop thread and writes all responses back in one go, so clients can
+ * pipeline any number of requests on one connection.
+ */
+@Component
+public class TcpEvaluationServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpEvaluationServer.class);
+    private static final int INITIAL_BUFFER = 16 * 1024;
+
+    private final ExpressionEvaluator expressionEvaluator;
+    private final CalculatorProperties.Tcp settings;
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+    private EventLoop[] loops;
+
+    @Autowired
+    public TcpEvaluationServer(ExpressionEvaluator expressionEvaluator, CalculatorProperties properties) {
+        this.expressionEvaluator = expressionEvaluator;
+        this.settings = properties.getTcp();
+    }
+
+    public synchronized void start() throws IOException {
+        if (serverChannel != null) {
+            return;
+        }
+        int count = settings.getLoops() > 0 ? settings.getLoops() : Runtime.getRuntime().availableProcessors();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(settings.getHost(), settings.getPort()), settings.getBacklog());
+
+        loops = new EventLoop[count];
+        for (int i = 0; i < count; i++) {
+            loops[i] = new EventLoop(Selector.open(), "tcp-loop-" + (i + 1));
+        }
+        acceptor = new Thread(this::accept, "tcp-acceptor");
+        acceptor.start();
+        logger.info("Binary evaluation protocol listening on {}:{} ({} loops)", settings.getHost(), getPort(), count);
+    }
+
+    // The bound port, which differs from the configured one when that is 0; -1 if not running
+    public synchronized int getPort() {
+        return serverChannel == null ? -1 : serverChannel.socket().getLocalPort();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (serverChannel == null) {
+            return;
+        }
+        try {
+            serverChannel.close();
+            acceptor.join();
+        } catch (IOException e) {
+            logger.warn("Failed to close the listening socket: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+        for (EventLoop loop : loops) {
+            loop.join();
+        }
+        serverChannel = null;
+        loops = null;
+    }
+
+    private void accept() {
+        int next = 0;
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                logger.warn("Failed to accept a connection: {}", e.getMessage());
+                continue;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                close(channel);
+                continue;
+            }
+            loops[next].register(channel);
+            next = (next + 1) % loops.length;
+        }
+    }
+
+    private static void close(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        EventLoop(Selector selector, String name) {
+            this.selector = selector;
+            this.thread = new Thread(this, name);
+            thread.start();
+        }
+
+        void register(SocketChannel channel) {
+            pending.add(channel);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+
+        void join() {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    for (SocketChannel channel; (channel = pending.poll()) != null; ) {
+                        channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isWritable()) {
+                                connection.flush(key);
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                connection.read(key);
+                            }
+                        } catch (IOException e) {
+                            key.cancel();
+                            close(connection.channel);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Selector loop failed", e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    close((SocketChannel) key.channel());
+                }
+                for (SocketChannel channel; (channel = pending.poll()) != null; ) {
+                    close(channel);
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // Nothing left to release
+                }
+            }
+        }
+    }
+
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER);
+        private ByteBuffer out = ByteBuffer.allocate(INITIAL_BUFFER);
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read(SelectionKey key) throws IOException {
+            if (channel.read(in) < 0) {
+                throw new ClosedChannelException();
+            }
+            in.flip();
+            int length;
+            while ((length = TcpProtocol.completeFrame(in, TcpProtocol.REQUEST_HEADER, settings.getMaxFrameBytes())) >= 0) {
+                in.getInt();
+                long requestId = in.getLong();
+                String expression = TcpProtocol.readString(in, length - TcpProtocol.REQUEST_HEADER);
+                EvaluationResult result = expressionEvaluator.evaluateSafely(expression);
+                out = result.isSuccess()
+                        ? TcpProtocol.writeValue(out, requestId, result.getValue())
+                        : TcpProtocol.writeError(out, requestId, result.getErrorCode(),
+                                result.getErrorOffset(), result.getErrorType(), result.getErrorMessage());
+            }
+
+            // Make room for a partial frame larger than the buffer; its length was checked above
+            if (in.remaining() >= TcpProtocol.LENGTH_BYTES) {
+                int needed = TcpProtocol.LENGTH_BYTES + in.getInt(in.position());
+                if (needed > in.capacity()) {
+                    in = ByteBuffer.allocate(needed).put(in);
+                    flush(key);
+                    return;
+                }
+            }
+            in.compact();
+            flush(key);
+        }
+
+        // Writes what the socket takes; while responses are left over, reading stops so a
+        // client that does not read its responses cannot make the server buffer without limit
+        void flush(SelectionKey key) throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+}
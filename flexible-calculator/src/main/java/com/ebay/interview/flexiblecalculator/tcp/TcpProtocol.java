@@ -0,0 +1,116 @@
+package com.ebay.interview.flexiblecalculator.tcp;
+
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frame layout shared by {@link TcpEvaluationServer} and {@link EvaluationClient}.
+ * All integers are big-endian and every frame starts with the length of the
+ * rest of the frame.
+ *
+ * <pre>
+ * request:  int length | long requestId | UTF-8 expression
+ * response: int length | long requestId | byte STATUS_OK    | double value
+ *           int length | long requestId | byte STATUS_ERROR | int offset | short codeLength | UTF-8 code
+ *                                                          | short typeLength | UTF-8 type | UTF-8 message
+ * </pre>
+ *
+ * An error's code is an {@link com.ebay.interview.flexiblecalculator.model.ErrorCode} name and its
+ * offset is -1 when it has no position.
+ *
+ * Responses on a connection come back in request order, but clients should
+ * match them by request id.
+ */
+final class TcpProtocol {
+
+    static final int LENGTH_BYTES = 4;
+    static final int REQUEST_HEADER = 8;
+    static final int RESPONSE_HEADER = 9;
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+    // The offset and the two string lengths of an error response
+    static final int ERROR_HEADER = Integer.BYTES + 2 * Short.BYTES;
+
+    private TcpProtocol() {
+    }
+
+    static ByteBuffer writeRequest(ByteBuffer buffer, long requestId, byte[] expression) {
+        buffer = ensure(buffer, LENGTH_BYTES + REQUEST_HEADER + expression.length);
+        buffer.putInt(REQUEST_HEADER + expression.length).putLong(requestId).put(expression);
+        return buffer;
+    }
+
+    static ByteBuffer writeValue(ByteBuffer buffer, long requestId, double value) {
+        buffer = ensure(buffer, LENGTH_BYTES + RESPONSE_HEADER + Double.BYTES);
+        buffer.putInt(RESPONSE_HEADER + Double.BYTES).putLong(requestId).put(STATUS_OK).putDouble(value);
+        return buffer;
+    }
+
+    static ByteBuffer writeError(ByteBuffer buffer, long requestId, ErrorCode code, int offset, String type,
+                                 String message) {
+        byte[] codeBytes = code.name().getBytes(StandardCharsets.UTF_8);
+        byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        byte[] messageBytes = message == null ? new byte[0] : message.getBytes(StandardCharsets.UTF_8);
+        int length = RESPONSE_HEADER + ERROR_HEADER + codeBytes.length + typeBytes.length + messageBytes.length;
+        buffer = ensure(buffer, LENGTH_BYTES + length);
+        buffer.putInt(length).putLong(requestId).put(STATUS_ERROR).putInt(offset)
+                .putShort((short) codeBytes.length).put(codeBytes)
+                .putShort((short) typeBytes.length).put(typeBytes).put(messageBytes);
+        return buffer;
+    }
+
+    // Reads the rest of an error frame of the given length, after its status byte
+    static EvaluationResult readError(ByteBuffer buffer, int length) {
+        int offset = buffer.getInt();
+        int codeLength = buffer.getShort();
+        ErrorCode code = codeOf(readString(buffer, codeLength));
+        int typeLength = buffer.getShort();
+        String type = readString(buffer, typeLength);
+        String message = readString(buffer, length - RESPONSE_HEADER - ERROR_HEADER - codeLength - typeLength);
+        return EvaluationResult.failure(code, offset, type, message);
+    }
+
+    // Codes this side does not know yet, e.g. from a newer server, are reported as UNKNOWN
+    private static ErrorCode codeOf(String name) {
+        try {
+            return ErrorCode.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return ErrorCode.UNKNOWN;
+        }
+    }
+
+    // Length of the next frame if buffer holds all of it, -1 if more bytes are needed. The length is
+    // checked as soon as its prefix arrives, so a bad or negative one fails before the frame is awaited
+    static int completeFrame(ByteBuffer buffer, int minLength, int maxLength) throws IOException {
+        if (buffer.remaining() < LENGTH_BYTES) {
+            return -1;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < minLength || length > maxLength) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        return buffer.remaining() - LENGTH_BYTES >= length ? length : -1;
+    }
+
+    static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // Returns buffer, or a larger copy of it in write mode, with room for bytes more
+    static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ebay.interview.flexiblecalculator.utils;
+
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.InvalidExpressionException;
+import com.ebay.interview.flexiblecalculator.model.InvalidNumberException;
+import com.ebay.interview.flexiblecalculator.model.TokenType;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+
+/**
+ * Scans an expression in place and writes its tokens into a
+ * {@link TokenBuffer}. Nothing is allocated on the success path once the
+ * buffer has grown to fit; error messages report the offending character and
+ * its offset. Operator symbols and function names come from the
+ * {@link OperatorRegistry}. Instances are stateless and thread-safe.
+ */
+public class ExpressionTokenizer {
+
+    private final OperatorRegistry registry = OperatorRegistry.standard();
+
+    public TokenBuffer tokenize(CharSequence expression, TokenBuffer buffer) {
+        buffer.reset(expression);
+        int length = expression.length();
+        int i = 0;
+
+        while (i < length) {
+            char ch = expression.charAt(i);
+            if (isDigit(ch) || ch == '.') {
+                int start = i;
+                while (i < length && (isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
+                    i++;
+                }
+                // Integer literals skip the general decimal parser
+                long value = NumberParser.parseInteger(expression, start, i);
+                if (value != NumberParser.INEXACT) {
+                    buffer.addInteger(start, i, value);
+                } else {
+                    buffer.add(TokenType.NUMBER, start, i, parseNumber(expression, start, i));
+                }
+                continue;
+            }
+            if (isIdentifierStart(ch)) {
+                int start = i;
+                while (i < length && isIdentifierPart(expression.charAt(i))) {
+                    i++;
+                }
+                if (nextNonWhitespace(expression, i) == '(') {
+                    if (registry.functionId(expression, start, i) < 0) {
+                        throw new InvalidExpressionException(ErrorCode.UNKNOWN_FUNCTION, start,
+                                "Unknown function '" + expression.subSequence(start, i) + "' at offset " + start);
+                    }
+                    buffer.add(TokenType.FUNCTION, start, i, Double.NaN);
+                } else {
+                    buffer.add(TokenType.VARIABLE, start, i, Double.NaN);
+                }
+                continue;
+            }
+
+            if (registry.isInfix(ch)) {
+                buffer.add(TokenType.OPERATOR, i, i + 1, Double.NaN);
+            } else if (ch == ',') {
+                buffer.add(TokenType.COMMA, i, i + 1, Double.NaN);
+            } else if (ch == '(') {
+                buffer.add(TokenType.PARENTHESIS, i, i + 1, Double.NaN);
+                buffer.openParenthesis(i);
+            } else if (ch == ')') {
+                if (!buffer.closeParenthesis()) {
+                    throw new InvalidExpressionException(ErrorCode.MISMATCHED_PARENTHESES, i,
+                            "Mismatched parentheses: Extra closing parenthesis at offset " + i);
+                }
+                buffer.add(TokenType.PARENTHESIS, i, i + 1, Double.NaN);
+            } else if (!Character.isWhitespace(ch)) {
+                throw new InvalidExpressionException(ErrorCode.INVALID_CHARACTER, i,
+                        "Invalid character in expression: '" + ch + "' at offset " + i);
+            }
+            i++;
+        }
+
+        if (buffer.unclosedParentheses() > 0) {
+            int offset = buffer.outermostUnclosedParenthesis();
+            throw new InvalidExpressionException(ErrorCode.MISMATCHED_PARENTHESES, offset,
+                    "Mismatched parentheses: Extra opening parenthesis at offset " + offset);
+        }
+        return buffer;
+    }
+
+    static double parseNumber(CharSequence expression, int start, int end) {
+        try {
+            return NumberParser.parse(expression, start, end);
+        } catch (NumberFormatException e) {
+            throw new InvalidNumberException(start, "Invalid number '" + expression.subSequence(start, end) + "' at offset " + start);
+        }
+    }
+
+    private static char nextNonWhitespace(CharSequence expression, int from) {
+        for (int i = from, length = expression.length(); i < length; i++) {
+            if (!Character.isWhitespace(expression.charAt(i))) {
+                return expression.charAt(i);
+            }
+        }
+        return 0;
+    }
+
+    // Character classes of numbers and names, shared with the streaming SinglePassEvaluator
+    public static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    public static boolean isIdentifierStart(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || ch == '_';
+    }
+
+    public static boolean isIdentifierPart(char ch) {
+        return isIdentifierStart(ch) || isDigit(ch);
+    }
+}
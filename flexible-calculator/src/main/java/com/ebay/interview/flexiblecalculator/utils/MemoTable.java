@@ -0,0 +1,425 @@
+package com.ebay.interview.flexiblecalculator.utils;
+
+import com.ebay.interview.flexiblecalculator.model.CacheStats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Fixed-size map from 64-bit keys to {@code double} values, held in a
+ * memory-mapped file so it survives restarts. Entries live in one
+ * open-addressing table with linear probing; when the table is three-quarters
+ * full, a clock hand evicts the first entry not read since the hand last
+ * passed it (second chance).
+ *
+ * <p>Readers take no lock and allocate nothing: they probe optimistically and
+ * retry under a read lock only if a writer moved entries meanwhile. Every
+ * entry carries a checksum. A table that was not closed cleanly, or that holds
+ * an entry failing its checksum, is rebuilt from its valid entries when it is
+ * opened; one written for another size or fingerprint starts empty.
+ */
+public final class MemoTable implements Closeable {
+
+    private static final long MAGIC = 0x464d4d454d4f3031L; // "FMMEMO01"
+    private static final int VERSION = 1;
+
+    // Header: magic, version, slot count, fingerprint, clean-shutdown flag, header checksum
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int SLOTS_OFFSET = 12;
+    private static final int FINGERPRINT_OFFSET = 16;
+    private static final int CLEAN_OFFSET = 24;
+    private static final int HEADER_CHECK_OFFSET = 32;
+    private static final int HEADER_BYTES = 64;
+
+    // Entry: key (0 marks an empty slot), value bits, checksum
+    private static final int ENTRY_BYTES = 24;
+    private static final int MIN_SLOTS = 16;
+    private static final int MAX_SLOTS = 1 << 26;
+
+    private final FileChannel channel;
+    private final FileLock fileLock;
+    private final MappedByteBuffer table;
+    private final int slots;
+    private final int mask;
+    private final int maximumSize;
+    // Second-chance bits; not persisted, so every entry starts unreferenced after a restart
+    private final byte[] referenced;
+    private final StampedLock lock = new StampedLock();
+    private final int droppedEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // Guarded by the write lock
+    private long evictions;
+    private int size;
+    private int hand;
+    private boolean closed;
+
+    private MemoTable(FileChannel channel, FileLock fileLock, int slots, long fingerprint) throws IOException {
+        this.channel = channel;
+        this.fileLock = fileLock;
+        this.slots = slots;
+        this.mask = slots - 1;
+        this.maximumSize = slots / 4 * 3;
+        this.referenced = new byte[slots];
+        long bytes = HEADER_BYTES + (long) slots * ENTRY_BYTES;
+        boolean sized = channel.size() == bytes;
+        if (!sized) {
+            channel.truncate(0);
+        }
+        this.table = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        if (!sized) {
+            // Mapping past the end of the truncated file extends it with zeros: an empty table
+            droppedEntries = 0;
+        } else if (!headerMatches(fingerprint)) {
+            clear();
+            droppedEntries = 0;
+        } else {
+            droppedEntries = load();
+        }
+        writeHeader(fingerprint);
+        // Marked clean again by close(); a crash before then forces a rebuild on the next open
+        table.putInt(CLEAN_OFFSET, 0);
+        table.force();
+    }
+
+    /**
+     * Opens or creates the table in {@code file}, sized to hold at least
+     * {@code maximumSize} entries. The fingerprint identifies whatever gives
+     * stored values their meaning; a file written under another fingerprint is
+     * discarded. The file is locked for as long as the table is open.
+     */
+    public static MemoTable open(Path file, int maximumSize, long fingerprint) throws IOException {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Memo table size must be positive: " + maximumSize);
+        }
+        int slots = MIN_SLOTS;
+        while (slots / 4 * 3 < maximumSize) {
+            if (slots == MAX_SLOTS) {
+                throw new IllegalArgumentException("Memo table size is too large: " + maximumSize);
+            }
+            slots *= 2;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock fileLock;
+            try {
+                fileLock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Already open in this JVM
+                fileLock = null;
+            }
+            if (fileLock == null) {
+                throw new IOException("Memo file is already in use: " + file);
+            }
+            return new MemoTable(channel, fileLock, slots, fingerprint);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the value stored under the key, or NaN if there is none. NaN
+     * values are never stored, so NaN always means a miss.
+     */
+    public double get(long key) {
+        key = storedKey(key);
+        long stamp = lock.tryOptimisticRead();
+        double value = closed ? Double.NaN : probe(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = closed ? Double.NaN : probe(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (Double.isNaN(value)) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(long key, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        key = storedKey(key);
+        long stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return;
+            }
+            int slot = find(key);
+            if (slot >= 0) {
+                writeEntry(slot, key, value);
+                referenced[slot] = 1;
+                return;
+            }
+            if (size >= maximumSize) {
+                evict();
+            }
+            slot = home(key);
+            while (keyAt(slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            writeEntry(slot, key, value);
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Entries discarded when the table was opened because they failed their checksum
+    public int getDroppedEntries() {
+        return droppedEntries;
+    }
+
+    public CacheStats stats() {
+        long stamp = lock.readLock();
+        try {
+            return new CacheStats(hits.sum(), misses.sum(), evictions, size, maximumSize);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Flushes the table to disk and marks it cleanly closed, so the next open skips the rebuild
+    @Override
+    public void close() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            table.force();
+            table.putInt(CLEAN_OFFSET, 1);
+            table.force();
+            fileLock.release();
+            channel.close();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private double probe(long key) {
+        int slot = home(key);
+        // Bounded so a read racing a writer cannot loop; the stamp check discards its result anyway
+        for (int i = 0; i < slots; i++) {
+            long stored = keyAt(slot);
+            if (stored == key) {
+                double value = table.getDouble(valueOffset(slot));
+                referenced[slot] = 1;
+                return value;
+            }
+            if (stored == 0) {
+                return Double.NaN;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return Double.NaN;
+    }
+
+    private int find(long key) {
+        int slot = home(key);
+        while (true) {
+            long stored = keyAt(slot);
+            if (stored == key) {
+                return slot;
+            }
+            if (stored == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void evict() {
+        while (true) {
+            int slot = hand;
+            hand = (hand + 1) & mask;
+            if (keyAt(slot) == 0) {
+                continue;
+            }
+            if (referenced[slot] != 0) {
+                referenced[slot] = 0;
+                continue;
+            }
+            remove(slot);
+            evictions++;
+            return;
+        }
+    }
+
+    // Backward-shift deletion: later entries of the probe run move into the hole, so no tombstones are needed
+    private void remove(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        long key;
+        while ((key = keyAt(next)) != 0) {
+            if (((next - home(key)) & mask) >= ((next - hole) & mask)) {
+                writeEntry(hole, key, table.getDouble(valueOffset(next)));
+                referenced[hole] = referenced[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        clearEntry(hole);
+        size--;
+    }
+
+    // Keeps the valid entries of a table that was closed cleanly; otherwise reinserts them into a fresh table
+    private int load() {
+        boolean clean = table.getInt(CLEAN_OFFSET) == 1;
+        int valid = 0;
+        int dropped = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long key = keyAt(slot);
+            if (key == 0) {
+                if (table.getLong(valueOffset(slot)) != 0 || table.getLong(checkOffset(slot)) != 0) {
+                    clearEntry(slot);
+                    clean = false;
+                }
+            } else if (table.getLong(checkOffset(slot)) != checksum(key, table.getLong(valueOffset(slot)))) {
+                clearEntry(slot);
+                dropped++;
+                clean = false;
+            } else {
+                valid++;
+            }
+        }
+        if (clean && valid <= maximumSize) {
+            size = valid;
+            return dropped;
+        }
+        // A crash can leave entries out of their probe run or duplicated; rebuilding restores both
+        long[] keys = new long[valid];
+        double[] values = new double[valid];
+        int count = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long key = keyAt(slot);
+            if (key != 0) {
+                keys[count] = key;
+                values[count] = table.getDouble(valueOffset(slot));
+                count++;
+            }
+        }
+        clear();
+        for (int i = 0; i < count && size < maximumSize; i++) {
+            int slot = home(keys[i]);
+            while (keyAt(slot) != 0 && keyAt(slot) != keys[i]) {
+                slot = (slot + 1) & mask;
+            }
+            if (keyAt(slot) == 0) {
+                writeEntry(slot, keys[i], values[i]);
+                size++;
+            }
+        }
+        return dropped;
+    }
+
+    private boolean headerMatches(long fingerprint) {
+        return table.getLong(MAGIC_OFFSET) == MAGIC
+                && table.getInt(VERSION_OFFSET) == VERSION
+                && table.getInt(SLOTS_OFFSET) == slots
+                && table.getLong(FINGERPRINT_OFFSET) == fingerprint
+                && table.getLong(HEADER_CHECK_OFFSET) == headerChecksum(fingerprint);
+    }
+
+    private void writeHeader(long fingerprint) {
+        table.putLong(MAGIC_OFFSET, MAGIC);
+        table.putInt(VERSION_OFFSET, VERSION);
+        table.putInt(SLOTS_OFFSET, slots);
+        table.putLong(FINGERPRINT_OFFSET, fingerprint);
+        table.putLong(HEADER_CHECK_OFFSET, headerChecksum(fingerprint));
+    }
+
+    private long headerChecksum(long fingerprint) {
+        return mix(MAGIC ^ ((long) VERSION << 32 | slots) ^ mix(fingerprint));
+    }
+
+    private void clear() {
+        for (int slot = 0; slot < slots; slot++) {
+            clearEntry(slot);
+            referenced[slot] = 0;
+        }
+        size = 0;
+        hand = 0;
+    }
+
+    // The key is written last, so a slot is never seen holding a key before its value
+    private void writeEntry(int slot, long key, double value) {
+        long bits = Double.doubleToLongBits(value);
+        table.putLong(valueOffset(slot), bits);
+        table.putLong(checkOffset(slot), checksum(key, bits));
+        table.putLong(keyOffset(slot), key);
+    }
+
+    private void clearEntry(int slot) {
+        table.putLong(keyOffset(slot), 0);
+        table.putLong(valueOffset(slot), 0);
+        table.putLong(checkOffset(slot), 0);
+    }
+
+    private long keyAt(int slot) {
+        return table.getLong(keyOffset(slot));
+    }
+
+    private int home(long key) {
+        return (int) mix(key) & mask;
+    }
+
+    private static int keyOffset(int slot) {
+        return HEADER_BYTES + slot * ENTRY_BYTES;
+    }
+
+    private static int valueOffset(int slot) {
+        return keyOffset(slot) + 8;
+    }
+
+    private static int checkOffset(int slot) {
+        return keyOffset(slot) + 16;
+    }
+
+    // Key 0 marks an empty slot, so it is stored as 1
+    private static long storedKey(long key) {
+        return key == 0 ? 1 : key;
+    }
+
+    private static long checksum(long key, long valueBits) {
+        return mix(key ^ Long.rotateLeft(valueBits, 29) ^ MAGIC);
+    }
+
+    // MurmurHash3 finalizer
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,225 @@
+package com.ebay.interview.flexiblecalculator.utils;
+
+import com.ebay.interview.flexiblecalculator.model.InvalidNumberException;
+
+import java.math.BigInteger;
+
+/**
+ * Parses the decimal literals accepted by the tokenizer (digits with at most
+ * one '.') straight from the expression's characters. Results are
+ * bit-identical to {@link Double#parseDouble(String)}:
+ * <ul>
+ *     <li>short literals take Clinger's exact fast path (mantissa below 2^53,
+ *     power of ten up to 22);</li>
+ *     <li>the rest use the Eisel-Lemire algorithm over a 128-bit table of
+ *     powers of five;</li>
+ *     <li>the rare cases Eisel-Lemire cannot decide fall back to the JDK.</li>
+ * </ul>
+ */
+public final class NumberParser {
+
+    // parseInteger's result for anything that is not an exact integer literal; no literal can be negative
+    public static final long INEXACT = Long.MIN_VALUE;
+
+    private static final int MAX_MANTISSA_DIGITS = 19;
+    // Any 18-digit value fits in a long without overflow checks
+    private static final int MAX_INTEGER_DIGITS = 18;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_EXACT_POWER = 22;
+    private static final double[] EXACT_POWERS_OF_TEN = new double[MAX_EXACT_POWER + 1];
+
+    private static final int SMALLEST_POWER = -342;
+    private static final int LARGEST_POWER = 308;
+    // 128-bit normalized approximations of 5^q, split into high and low words
+    private static final long[] POWER_HIGH = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+    private static final long[] POWER_LOW = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+
+    static {
+        double power = 1;
+        for (int i = 0; i <= MAX_EXACT_POWER; i++) {
+            EXACT_POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger lowMask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+            BigInteger approximation;
+            if (q >= 0) {
+                approximation = BigInteger.valueOf(5).pow(q);
+                int bits = approximation.bitLength();
+                approximation = bits > 128 ? approximation.shiftRight(bits - 128) : approximation.shiftLeft(128 - bits);
+            } else {
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                approximation = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (approximation.compareTo(two128) >= 0) {
+                    approximation = approximation.shiftRight(1);
+                }
+            }
+            POWER_HIGH[q - SMALLEST_POWER] = approximation.shiftRight(64).longValue();
+            POWER_LOW[q - SMALLEST_POWER] = approximation.and(lowMask).longValue();
+        }
+    }
+
+    private NumberParser() {
+    }
+
+    public static double parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    public static double parse(CharSequence text, int start, int end) {
+        long mantissa = 0; // unsigned, up to 19 significant digits
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenDot = false;
+        boolean truncated = false;
+
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            if (ch == '.') {
+                if (seenDot) {
+                    throw invalid(text, start, end);
+                }
+                seenDot = true;
+                continue;
+            }
+            if (ch < '0' || ch > '9') {
+                throw invalid(text, start, end);
+            }
+            seenDigit = true;
+            int digit = ch - '0';
+            if (digits < MAX_MANTISSA_DIGITS) {
+                if (seenDot) {
+                    exponent--;
+                }
+                if (mantissa == 0 && digit == 0) {
+                    continue; // leading zero
+                }
+                mantissa = mantissa * 10 + digit;
+                digits++;
+            } else {
+                truncated |= digit != 0;
+                if (!seenDot) {
+                    exponent++;
+                }
+            }
+        }
+        if (!seenDigit) {
+            throw invalid(text, start, end);
+        }
+        if (mantissa == 0) {
+            return 0.0;
+        }
+
+        if (!truncated) {
+            if (Long.compareUnsigned(mantissa, MAX_EXACT_MANTISSA) <= 0 && exponent >= -MAX_EXACT_POWER && exponent <= MAX_EXACT_POWER) {
+                // Both operands are exact, so the single IEEE operation rounds correctly
+                return exponent < 0
+                        ? mantissa / EXACT_POWERS_OF_TEN[-exponent]
+                        : mantissa * EXACT_POWERS_OF_TEN[exponent];
+            }
+            long bits = eiselLemire(mantissa, exponent);
+            if (bits >= 0) {
+                return Double.longBitsToDouble(bits);
+            }
+        } else {
+            // The true value lies between mantissa and mantissa + 1 at this exponent
+            long lower = eiselLemire(mantissa, exponent);
+            if (lower >= 0 && lower == eiselLemire(mantissa + 1, exponent)) {
+                return Double.longBitsToDouble(lower);
+            }
+        }
+        return Double.parseDouble(text.subSequence(start, end).toString());
+    }
+
+    /**
+     * Parses a literal made only of digits, with at most 18 significant ones,
+     * as an exact {@code long}. Returns {@link #INEXACT} for anything else (a '.', more
+     * digits, no digits), which callers parse with {@link #parse} instead.
+     */
+    public static long parseInteger(CharSequence text, int start, int end) {
+        long value = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return INEXACT;
+            }
+            if (value != 0 || ch != '0') {
+                if (++digits > MAX_INTEGER_DIGITS) {
+                    return INEXACT;
+                }
+                value = value * 10 + (ch - '0');
+            }
+        }
+        return end > start ? value : INEXACT;
+    }
+
+    // Returns the bits of the correctly rounded double, or -1 when the result cannot be decided
+    static long eiselLemire(long mantissa, int power) {
+        if (power < SMALLEST_POWER) {
+            return 0L;
+        }
+        if (power > LARGEST_POWER) {
+            return Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+        }
+
+        int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+        long normalized = mantissa << leadingZeros;
+        long binaryExponent = ((217706L * power) >> 16) + 64 + 1023 - leadingZeros;
+
+        int index = power - SMALLEST_POWER;
+        long high = unsignedMultiplyHigh(normalized, POWER_HIGH[index]);
+        long low = normalized * POWER_HIGH[index];
+
+        // Widen to the full 192-bit product when the truncated one is ambiguous
+        if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + normalized, normalized) < 0) {
+            long secondHigh = unsignedMultiplyHigh(normalized, POWER_LOW[index]);
+            long secondLow = normalized * POWER_LOW[index];
+            long mergedHigh = high;
+            long mergedLow = low + secondHigh;
+            if (Long.compareUnsigned(mergedLow, low) < 0) {
+                mergedHigh++;
+            }
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0
+                    && Long.compareUnsigned(secondLow + normalized, normalized) < 0) {
+                return -1;
+            }
+            high = mergedHigh;
+            low = mergedLow;
+        }
+
+        long upperBit = high >>> 63;
+        long result = high >>> (upperBit + 9);
+        binaryExponent -= 1 ^ upperBit;
+
+        // Exactly halfway between two doubles: leave ties-to-even to the JDK
+        if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) {
+            return -1;
+        }
+
+        result += result & 1;
+        result >>>= 1;
+        if ((result >>> 53) > 0) {
+            result >>>= 1;
+            binaryExponent++;
+        }
+        // Subnormal results and overflow are left to the JDK
+        if (binaryExponent <= 0 || binaryExponent >= 0x7FF) {
+            return -1;
+        }
+        return (binaryExponent << 52) | (result & 0x000FFFFFFFFFFFFFL);
+    }
+
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    private static NumberFormatException invalid(CharSequence text, int start, int end) {
+        return new InvalidNumberException(start, "Invalid number '" + text.subSequence(start, end) + "'");
+    }
+}
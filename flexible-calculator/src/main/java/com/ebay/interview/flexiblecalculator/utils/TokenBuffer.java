@@ -0,0 +1,175 @@
+package com.ebay.interview.flexiblecalculator.utils;
+
+import com.ebay.interview.flexiblecalculator.model.Token;
+import com.ebay.interview.flexiblecalculator.model.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable, growable storage for the tokens of one expression. Tokens are
+ * kept as parallel primitive arrays (kind, start/end offset into the source,
+ * pre-parsed number value and, for integer literals, its exact {@code long}),
+ * so filling a warmed-up buffer allocates nothing.
+ * Not thread-safe; use one buffer per thread.
+ */
+public final class TokenBuffer {
+
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private CharSequence source;
+    private byte[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private double[] numbers;
+    // Exact value of integer literals; NumberParser.INEXACT for every other token
+    private long[] integers;
+    private int size;
+
+    // Offsets of currently open parentheses, used while tokenizing
+    private int[] openParentheses = new int[DEFAULT_CAPACITY];
+    private int depth;
+
+    public TokenBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TokenBuffer(int capacity) {
+        capacity = Math.max(capacity, 1);
+        kinds = new byte[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        numbers = new double[capacity];
+        integers = new long[capacity];
+    }
+
+    public void reset(CharSequence source) {
+        this.source = source;
+        this.size = 0;
+        this.depth = 0;
+    }
+
+    // Empties the buffer and drops its source, so a reused buffer does not keep the last expression alive
+    public void clear() {
+        reset(null);
+    }
+
+    public void add(TokenType type, int start, int end, double number) {
+        add(type, start, end, number, NumberParser.INEXACT);
+    }
+
+    // An integer literal, whose double value is the correctly rounded long
+    public void addInteger(int start, int end, long integer) {
+        add(TokenType.NUMBER, start, end, (double) integer, integer);
+    }
+
+    private void add(TokenType type, int start, int end, double number, long integer) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            integers = Arrays.copyOf(integers, capacity);
+        }
+        kinds[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        numbers[size] = number;
+        integers[size] = integer;
+        size++;
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[kinds[checkIndex(index)]];
+    }
+
+    public int start(int index) {
+        return starts[checkIndex(index)];
+    }
+
+    public int end(int index) {
+        return ends[checkIndex(index)];
+    }
+
+    // Parsed value of a NUMBER token
+    public double number(int index) {
+        return numbers[checkIndex(index)];
+    }
+
+    // True for NUMBER tokens written as plain integers of up to 18 significant digits
+    public boolean isInteger(int index) {
+        return integers[checkIndex(index)] != NumberParser.INEXACT;
+    }
+
+    // Exact value of an integer literal; NumberParser.INEXACT if the token is not one
+    public long integer(int index) {
+        return integers[checkIndex(index)];
+    }
+
+    // First character of the token; the whole token for operators and parentheses
+    public char firstChar(int index) {
+        return source.charAt(starts[checkIndex(index)]);
+    }
+
+    public String text(int index) {
+        return source.subSequence(start(index), end(index)).toString();
+    }
+
+    public TokenView view() {
+        return new TokenView(this);
+    }
+
+    public List<Token> toTokens() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tokens.add(new Token(type(i), text(i)));
+        }
+        return tokens;
+    }
+
+    void openParenthesis(int offset) {
+        if (depth == openParentheses.length) {
+            openParentheses = Arrays.copyOf(openParentheses, depth * 2);
+        }
+        openParentheses[depth++] = offset;
+    }
+
+    // Returns false if there was no open parenthesis to close
+    boolean closeParenthesis() {
+        if (depth == 0) {
+            return false;
+        }
+        depth--;
+        return true;
+    }
+
+    int unclosedParentheses() {
+        return depth;
+    }
+
+    int outermostUnclosedParenthesis() {
+        return openParentheses[0];
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Token index " + index + " out of bounds for " + size + " tokens");
+        }
+        return index;
+    }
+}
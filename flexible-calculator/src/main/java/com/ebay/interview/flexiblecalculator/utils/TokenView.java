@@ -0,0 +1,60 @@
+package com.ebay.interview.flexiblecalculator.utils;
+
+import com.ebay.interview.flexiblecalculator.model.Token;
+import com.ebay.interview.flexiblecalculator.model.TokenType;
+
+/**
+ * Flyweight cursor over a {@link TokenBuffer}. One view can be moved across
+ * every token of a buffer; {@link #toToken()} materializes a {@link Token}
+ * for callers that need one.
+ */
+public final class TokenView {
+
+    private final TokenBuffer buffer;
+    private int index;
+
+    TokenView(TokenBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public TokenView moveTo(int index) {
+        this.index = index;
+        return this;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public TokenType getType() {
+        return buffer.type(index);
+    }
+
+    public int getStart() {
+        return buffer.start(index);
+    }
+
+    public int getEnd() {
+        return buffer.end(index);
+    }
+
+    public double getNumber() {
+        return buffer.number(index);
+    }
+
+    public boolean isInteger() {
+        return buffer.isInteger(index);
+    }
+
+    public long getInteger() {
+        return buffer.integer(index);
+    }
+
+    public String getValue() {
+        return buffer.text(index);
+    }
+
+    public Token toToken() {
+        return new Token(getType(), getValue());
+    }
+}
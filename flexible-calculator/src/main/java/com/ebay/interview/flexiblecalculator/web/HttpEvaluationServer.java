@@ -0,0 +1,277 @@
+package com.ebay.interview.flexiblecalculator.web;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangePolicy;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JSON evaluation service: {@code POST /evaluate} with
+ * {@code {"expression": "1+2"}} and {@code POST /evaluate/batch} with
+ * {@code {"expressions": ["1+2", "3*4"]}}. Requests run on virtual threads
+ * when the JVM has them (Java 21+) and on a bounded platform pool otherwise.
+ */
+@Component
+public class HttpEvaluationServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpEvaluationServer.class);
+
+    private final ExpressionEvaluator expressionEvaluator;
+    private final RangeValidator rangeValidator;
+    private final CalculatorProperties.Http settings;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    @Autowired
+    public HttpEvaluationServer(ExpressionEvaluator expressionEvaluator, RangeValidator rangeValidator,
+                                CalculatorProperties properties) {
+        this.expressionEvaluator = expressionEvaluator;
+        this.rangeValidator = rangeValidator;
+        this.settings = properties.getHttp();
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(settings.getHost(), settings.getPort()), settings.getBacklog());
+        server.createContext("/evaluate", exchange -> handle(exchange, "/evaluate", this::evaluate));
+        server.createContext("/evaluate/batch", exchange -> handle(exchange, "/evaluate/batch", this::evaluateBatch));
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Evaluation service listening on http://{}:{} ({})", settings.getHost(), getPort(),
+                isVirtual() ? "virtual threads" : settings.getThreads() + " platform threads");
+    }
+
+    // The bound port, which differs from the configured one when that is 0; -1 if not running
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+            server = null;
+            executor = null;
+        }
+    }
+
+    private boolean isVirtual() {
+        return !(executor instanceof ThreadPoolExecutor);
+    }
+
+    private ExecutorService newExecutor() {
+        String mode = settings.getExecutor();
+        if (!"platform".equals(mode)) {
+            ExecutorService virtual = virtualThreadExecutor();
+            if (virtual != null) {
+                return virtual;
+            }
+            if ("virtual".equals(mode)) {
+                throw new IllegalStateException("Virtual threads require Java 21 or later");
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        // When every thread is busy and the queue is full, the accepting thread runs the
+        // request itself, which stops it from accepting more until it is done
+        return new ThreadPoolExecutor(settings.getThreads(), settings.getThreads(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(settings.getQueueCapacity()),
+                task -> new Thread(task, "http-evaluator-" + count.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Looked up reflectively so the code still compiles and runs on Java 17
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private int evaluate(Map<String, Object> request, StringBuilder response) {
+        String expression = requireString(request, "expression");
+        Object profile = request.get("profile");
+        EvaluationResult result;
+        if (profile == null) {
+            result = expressionEvaluator.evaluateSafely(expression);
+        } else if (profile instanceof String) {
+            result = expressionEvaluator.evaluateSafely(expression, policy((String) profile));
+        } else {
+            throw new RequestException(400, "Field 'profile' must be a string");
+        }
+
+        response.append("{\"expression\":");
+        Json.writeString(response, expression);
+        response.append(',');
+        writeResult(response, result);
+        response.append('}');
+        return result.isSuccess() ? 200 : 422;
+    }
+
+    private int evaluateBatch(Map<String, Object> request, StringBuilder response) {
+        Object expressions = request.get("expressions");
+        if (!(expressions instanceof List)) {
+            throw new RequestException(400, "Field 'expressions' must be an array of strings");
+        }
+        List<?> items = (List<?>) expressions;
+        if (items.size() > settings.getMaxBatchSize()) {
+            throw new RequestException(413, "Batch has " + items.size() + " expressions; the limit is "
+                    + settings.getMaxBatchSize());
+        }
+        String[] batch = new String[items.size()];
+        for (int i = 0; i < batch.length; i++) {
+            if (!(items.get(i) instanceof String)) {
+                throw new RequestException(400, "Field 'expressions' must be an array of strings");
+            }
+            batch[i] = (String) items.get(i);
+        }
+
+        // Failures are reported per expression, so the batch itself always succeeds
+        EvaluationResult[] results = expressionEvaluator.evaluateAll(batch);
+        response.append("{\"results\":[");
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+            response.append('{');
+            writeResult(response, results[i]);
+            response.append('}');
+        }
+        response.append("]}");
+        return 200;
+    }
+
+    private RangePolicy policy(String profile) {
+        try {
+            return rangeValidator.profile(profile);
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, e.getMessage());
+        }
+    }
+
+    private static void writeResult(StringBuilder response, EvaluationResult result) {
+        if (result.isSuccess()) {
+            response.append("\"value\":");
+            Json.writeNumber(response, result.getValue());
+        } else {
+            writeError(response, result.getErrorType(), result.getErrorCode(), result.getErrorOffset(),
+                    result.getErrorMessage());
+        }
+    }
+
+    // Evaluation errors carry their code and offset (-1 without one); request errors have neither
+    private static void writeError(StringBuilder response, String type, ErrorCode code, int offset, String message) {
+        response.append("\"error\":{\"type\":");
+        Json.writeString(response, type);
+        if (code != null) {
+            response.append(",\"code\":");
+            Json.writeString(response, code.name());
+            response.append(",\"offset\":").append(offset);
+        }
+        response.append(",\"message\":");
+        Json.writeString(response, message == null ? "" : message);
+        response.append('}');
+    }
+
+    private static String requireString(Map<String, Object> request, String field) {
+        Object value = request.get(field);
+        if (!(value instanceof String)) {
+            throw new RequestException(400, "Field '" + field + "' must be a string");
+        }
+        return (String) value;
+    }
+
+    private void handle(HttpExchange exchange, String path, Endpoint endpoint) throws IOException {
+        try (exchange) {
+            StringBuilder response = new StringBuilder(128);
+            int status;
+            try {
+                if (!exchange.getRequestURI().getPath().equals(path)) {
+                    throw new RequestException(404, "No endpoint at " + exchange.getRequestURI().getPath());
+                }
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    throw new RequestException(405, "Use POST");
+                }
+                status = endpoint.handle(readRequest(exchange), response);
+            } catch (RequestException e) {
+                response.setLength(0);
+                response.append('{');
+                writeError(response, "InvalidRequest", null, -1, e.getMessage());
+                response.append('}');
+                status = e.status;
+            }
+
+            byte[] body = response.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readRequest(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(settings.getMaxRequestBytes() + 1);
+        }
+        if (body.length > settings.getMaxRequestBytes()) {
+            throw new RequestException(413, "Request body is larger than " + settings.getMaxRequestBytes() + " bytes");
+        }
+        Object request;
+        try {
+            request = Json.parse(new String(body, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, e.getMessage());
+        }
+        if (!(request instanceof Map)) {
+            throw new RequestException(400, "Request body must be a JSON object");
+        }
+        return (Map<String, Object>) request;
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        // Writes the response body and returns the HTTP status
+        int handle(Map<String, Object> request, StringBuilder response);
+    }
+
+    private static final class RequestException extends RuntimeException {
+
+        private final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -146,4 +146,18 @@ public class ExpressionParserTest {
         List<Token> actualTokens = parser.parse(expression);
         assertEquals(expectedTokens, actualTokens);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testExpressionWithVariables() {
+        String expression = "price * qty - discount_2";
+        List<Token> expectedTokens = Arrays.asList(
+                new Token(TokenType.VARIABLE, "price"),
+                new Token(TokenType.OPERATOR, "*"),
+                new Token(TokenType.VARIABLE, "qty"),
+                new Token(TokenType.OPERATOR, "-"),
+                new Token(TokenType.VARIABLE, "discount_2")
+        );
+        List<Token> actualTokens = parser.parse(expression);
+        assertEquals(expectedTokens, actualTokens);
+    }
+}
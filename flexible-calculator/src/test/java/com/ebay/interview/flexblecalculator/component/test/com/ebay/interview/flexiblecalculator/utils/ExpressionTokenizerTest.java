@@ -0,0 +1,146 @@
+package com.ebay.interview.flexblecalculator.component.test.com.ebay.interview.flexiblecalculator.utils;
+
+import com.ebay.interview.flexiblecalculator.model.Token;
+import com.ebay.interview.flexiblecalculator.model.TokenType;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionTokenizer;
+import com.ebay.interview.flexiblecalculator.utils.TokenBuffer;
+import com.ebay.interview.flexiblecalculator.utils.TokenView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionTokenizerTest {
+
+    private ExpressionTokenizer tokenizer;
+    private TokenBuffer buffer;
+
+    @BeforeEach
+    public void setUp() {
+        tokenizer = new ExpressionTokenizer();
+        buffer = new TokenBuffer(2);
+    }
+
+    @Test
+    public void testKindsOffsetsAndNumbers() {
+        tokenizer.tokenize("12.5 * (x1 + 3)", buffer);
+
+        assertEquals(7, buffer.size());
+        assertEquals(TokenType.NUMBER, buffer.type(0));
+        assertEquals(0, buffer.start(0));
+        assertEquals(4, buffer.end(0));
+        assertEquals(12.5, buffer.number(0));
+        assertEquals('*', buffer.firstChar(1));
+        assertEquals(TokenType.VARIABLE, buffer.type(3));
+        assertEquals("x1", buffer.text(3));
+        assertEquals(3.0, buffer.number(5));
+        assertEquals(')', buffer.firstChar(6));
+    }
+
+    @Test
+    public void testBufferIsReusable() {
+        tokenizer.tokenize("1 + 2 + 3 + 4 + 5", buffer);
+        assertEquals(9, buffer.size());
+
+        tokenizer.tokenize("7", buffer);
+        assertEquals(1, buffer.size());
+        assertEquals(7.0, buffer.number(0));
+    }
+
+    @Test
+    public void testFlyweightView() {
+        tokenizer.tokenize("3 + 4", buffer);
+        TokenView view = buffer.view();
+
+        assertEquals(TokenType.OPERATOR, view.moveTo(1).getType());
+        assertEquals("+", view.getValue());
+        assertEquals(new Token(TokenType.NUMBER, "4"), view.moveTo(2).toToken());
+        assertEquals(Arrays.asList(
+                new Token(TokenType.NUMBER, "3"),
+                new Token(TokenType.OPERATOR, "+"),
+                new Token(TokenType.NUMBER, "4")
+        ), buffer.toTokens());
+    }
+
+    @Test
+    public void testInvalidCharacterReportsCharacterAndOffset() {
+        IllegalArgumentException thrown = assertThrows(
+                IllegalArgumentException.class,
+                () -> tokenizer.tokenize("5 & 6", buffer)
+        );
+        assertEquals("Invalid character in expression: '&' at offset 2", thrown.getMessage());
+    }
+
+    @Test
+    public void testMismatchedParenthesesReportOffset() {
+        IllegalArgumentException closing = assertThrows(
+                IllegalArgumentException.class,
+                () -> tokenizer.tokenize("1 + 2))", buffer)
+        );
+        assertEquals("Mismatched parentheses: Extra closing parenthesis at offset 5", closing.getMessage());
+
+        IllegalArgumentException opening = assertThrows(
+                IllegalArgumentException.class,
+                () -> tokenizer.tokenize("(1 + (2", buffer)
+        );
+        assertEquals("Mismatched parentheses: Extra opening parenthesis at offset 0", opening.getMessage());
+    }
+
+    @Test
+    public void testMalformedNumber() {
+        NumberFormatException thrown = assertThrows(
+                NumberFormatException.class,
+                () -> tokenizer.tokenize("1 + 1.2.3", buffer)
+        );
+        assertEquals("Invalid number '1.2.3' at offset 4", thrown.getMessage());
+    }
+
+    @Test
+    public void testWhitespaceSeparatesNumbers() {
+        tokenizer.tokenize("1 536", buffer);
+        assertEquals(2, buffer.size());
+        assertEquals(536.0, buffer.number(1));
+    }
+
+    @Test
+    public void testIntegerLiterals() {
+        tokenizer.tokenize("007 + 2.0 + 123456789012345678 + 1234567890123456789", buffer);
+        assertTrue(buffer.isInteger(0));
+        assertEquals(7, buffer.integer(0));
+        assertFalse(buffer.isInteger(2));
+        assertEquals(123456789012345678L, buffer.integer(4));
+        // Over 18 digits is parsed as a double only
+        assertFalse(buffer.isInteger(6));
+        assertEquals(1234567890123456789.0, buffer.number(6));
+        assertFalse(buffer.isInteger(1));
+    }
+
+    @Test
+    public void testFunctionsAndCommas() {
+        tokenizer.tokenize("max (x, 2) + max", buffer);
+
+        assertEquals(TokenType.FUNCTION, buffer.type(0));
+        assertEquals("max", buffer.text(0));
+        assertEquals(TokenType.COMMA, buffer.type(3));
+        // A registered name not followed by '(' is a variable
+        assertEquals(TokenType.VARIABLE, buffer.type(2));
+        assertEquals(TokenType.VARIABLE, buffer.type(7));
+    }
+
+    @Test
+    public void testUnknownFunctionReportsNameAndOffset() {
+        IllegalArgumentException thrown = assertThrows(
+                IllegalArgumentException.class,
+                () -> tokenizer.tokenize("2 * foo(1)", buffer)
+        );
+        assertEquals("Unknown function 'foo' at offset 4", thrown.getMessage());
+    }
+
+    @Test
+    public void testIndexOutOfBounds() {
+        tokenizer.tokenize("1", buffer);
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.type(1));
+    }
+}
@@ -0,0 +1,51 @@
+package com.ebay.interview.flexblecalculator.component.test.com.ebay.interview.flexiblecalculator.utils;
+
+import com.ebay.interview.flexiblecalculator.model.CacheStats;
+import com.ebay.interview.flexiblecalculator.utils.LruCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LruCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void testComputeIfAbsentCountsHitsAndMisses() {
+        LruCache<String, Integer> cache = new LruCache<>(10);
+        assertEquals(3, cache.computeIfAbsent("abc", String::length));
+        assertEquals(3, cache.computeIfAbsent("abc", key -> fail("loader should not run on a hit")));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    public void testSizeNeverExceedsMaximum() {
+        LruCache<Integer, Integer> cache = new LruCache<>(1000);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+        assertTrue(cache.size() <= 1000);
+        assertEquals(1000, cache.stats().getMaximumSize());
+    }
+
+    @Test
+    public void testNonPositiveSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<>(0));
+    }
+}
@@ -0,0 +1,148 @@
+package com.ebay.interview.flexblecalculator.component.test.com.ebay.interview.flexiblecalculator.utils;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangePolicy;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import com.ebay.interview.flexiblecalculator.utils.MemoTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoTableTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testGetAndPut() throws IOException {
+        try (MemoTable table = MemoTable.open(directory.resolve("memo.bin"), 100, 7)) {
+            table.put(42, 1.5);
+            table.put(0, -2.0);
+            table.put(42, 2.5);
+            table.put(43, Double.NaN);
+
+            assertEquals(2.5, table.get(42));
+            assertEquals(-2.0, table.get(0));
+            assertTrue(Double.isNaN(table.get(43)));
+            assertTrue(Double.isNaN(table.get(44)));
+            assertEquals(2, table.size());
+            assertEquals(2, table.stats().getMissCount());
+        }
+    }
+
+    @Test
+    public void testEntriesSurviveReopening() throws IOException {
+        Path file = directory.resolve("memo.bin");
+        try (MemoTable table = MemoTable.open(file, 100, 7)) {
+            for (long key = 1; key <= 50; key++) {
+                table.put(key, key * 0.5);
+            }
+        }
+
+        try (MemoTable table = MemoTable.open(file, 100, 7)) {
+            assertEquals(50, table.size());
+            assertEquals(12.5, table.get(25));
+            assertEquals(0, table.getDroppedEntries());
+        }
+
+        // Another fingerprint or size starts empty
+        try (MemoTable table = MemoTable.open(file, 100, 8)) {
+            assertEquals(0, table.size());
+        }
+        try (MemoTable table = MemoTable.open(file, 1000, 8)) {
+            assertEquals(0, table.size());
+        }
+    }
+
+    @Test
+    public void testRecentlyReadEntriesGetASecondChance() throws IOException {
+        try (MemoTable table = MemoTable.open(directory.resolve("memo.bin"), 12, 7)) {
+            for (long key = 1; key <= 12; key++) {
+                table.put(key, key);
+            }
+            for (long key = 1; key <= 11; key++) {
+                table.get(key);
+            }
+            table.put(13, 13);
+
+            // The hand clears the bits of entries read since it last passed and takes the first unread one
+            assertEquals(12, table.size());
+            assertEquals(1, table.stats().getEvictionCount());
+            assertTrue(Double.isNaN(table.get(12)));
+            for (long key = 1; key <= 11; key++) {
+                assertEquals(key, table.get(key));
+            }
+            assertEquals(13.0, table.get(13));
+        }
+    }
+
+    @Test
+    public void testCorruptEntriesAreDroppedOnLoad() throws IOException {
+        Path file = directory.resolve("memo.bin");
+        try (MemoTable table = MemoTable.open(file, 100, 7)) {
+            for (long key = 1; key <= 50; key++) {
+                table.put(key, key);
+            }
+        }
+
+        // Overwrite the value of the first stored entry, leaving its checksum stale
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer entry = ByteBuffer.allocate(24);
+            long position = 64;
+            do {
+                entry.clear();
+                channel.read(entry, position);
+                position += 24;
+            } while (entry.getLong(0) == 0);
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}), position - 16);
+        }
+
+        try (MemoTable table = MemoTable.open(file, 100, 7)) {
+            assertEquals(1, table.getDroppedEntries());
+            assertEquals(49, table.size());
+        }
+    }
+
+    @Test
+    public void testFileCannotBeOpenedTwice() throws IOException {
+        Path file = directory.resolve("memo.bin");
+        try (MemoTable ignored = MemoTable.open(file, 100, 7)) {
+            assertThrows(IOException.class, () -> MemoTable.open(file, 100, 7));
+        }
+    }
+
+    @Test
+    public void testEvaluatorRemembersResultsAcrossRestarts() {
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getMemo().setEnabled(true);
+        properties.getMemo().setFile(directory.resolve("memo.bin").toString());
+        properties.getMemo().setSize(1000);
+
+        ExpressionEvaluator first = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties);
+        assertEquals(7.0, first.evaluate("1 + 2 * 3"));
+        assertThrows(ArithmeticException.class, () -> first.evaluate("1 / 0"));
+        assertEquals(1, first.getMemoStats().getSize());
+        first.shutdown();
+
+        ExpressionEvaluator second = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties);
+        // Found before parsing, so nothing is compiled; whitespace between operators does not matter
+        assertEquals(7.0, second.evaluate("1+2*3"));
+        assertEquals(0, second.getExpressionCacheStats().getMissCount());
+        assertEquals(1, second.getMemoStats().getHitCount());
+
+        // Results depend on the range policy, so another policy is a miss
+        RangePolicy narrow = new RangePolicy("narrow", -10, 10, -5, 5);
+        assertThrows(IllegalArgumentException.class, () -> second.evaluate("1 + 2 * 3", narrow));
+        assertEquals(1, second.getMemoStats().getHitCount());
+        second.shutdown();
+    }
+}
@@ -0,0 +1,103 @@
+package com.ebay.interview.flexblecalculator.component.test.com.ebay.interview.flexiblecalculator.utils;
+
+import com.ebay.interview.flexiblecalculator.utils.NumberParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NumberParserTest {
+
+    private static void assertSameAsJdk(String literal) {
+        assertEquals(Double.doubleToRawLongBits(Double.parseDouble(literal)),
+                Double.doubleToRawLongBits(NumberParser.parse(literal)), literal);
+    }
+
+    @Test
+    public void testSimpleLiterals() {
+        assertEquals(0.0, NumberParser.parse("0"));
+        assertEquals(3.5, NumberParser.parse("3.5"));
+        assertEquals(0.5, NumberParser.parse(".5"));
+        assertEquals(5.0, NumberParser.parse("5."));
+        assertEquals(123.45, NumberParser.parse("000123.4500"));
+    }
+
+    @Test
+    public void testParseInteger() {
+        assertEquals(42, NumberParser.parseInteger("42", 0, 2));
+        assertEquals(999999999999999999L, NumberParser.parseInteger("000999999999999999999", 0, 21));
+        assertEquals(NumberParser.INEXACT, NumberParser.parseInteger("1000000000000000000", 0, 19));
+        assertEquals(NumberParser.INEXACT, NumberParser.parseInteger("4.0", 0, 3));
+        assertEquals(NumberParser.INEXACT, NumberParser.parseInteger("", 0, 0));
+    }
+
+    @Test
+    public void testParsesSubrangeInPlace() {
+        assertEquals(2.75, NumberParser.parse("3.5 + 2.75", 6, 10));
+    }
+
+    @Test
+    public void testCorpusMatchesJdk() throws IOException {
+        int checked = 0;
+        try (InputStream in = getClass().getResourceAsStream("/number-parser-corpus.txt")) {
+            assertNotNull(in, "corpus resource missing");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                assertSameAsJdk(line);
+                checked++;
+            }
+        }
+        assertTrue(checked > 100);
+    }
+
+    @Test
+    public void testRandomDoublesMatchJdk() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong() & 0x7FEFFFFFFFFFFFFFL);
+            assertSameAsJdk(BigDecimal.valueOf(value).toPlainString());
+
+            // Exact halfway point between two adjacent doubles
+            double next = Math.nextUp(value);
+            if (!Double.isInfinite(next) && Math.abs(Math.getExponent(value)) < 200) {
+                assertSameAsJdk(new BigDecimal(value).add(new BigDecimal(next)).divide(BigDecimal.valueOf(2)).toPlainString());
+            }
+        }
+    }
+
+    @Test
+    public void testRandomDigitStringsMatchJdk() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            int length = 1 + random.nextInt(30);
+            int dot = random.nextInt(length + 1);
+            StringBuilder literal = new StringBuilder();
+            for (int j = 0; j < length; j++) {
+                if (j == dot) {
+                    literal.append('.');
+                }
+                literal.append((char) ('0' + random.nextInt(10)));
+            }
+            assertSameAsJdk(literal.toString());
+        }
+    }
+
+    @Test
+    public void testInvalidLiterals() {
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse("."));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse("1.2.3"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse(""));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parse("1a"));
+    }
+}
@@ -0,0 +1,150 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchEvaluationTest {
+    private ExpressionEvaluator expressionEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getBatch().setParallelism(4);
+        properties.getBatch().setSequentialThreshold(16);
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expressionEvaluator.shutdown();
+    }
+
+    // Normal Case: small batch evaluated sequentially
+    @Test
+    void testSmallBatch() {
+        List<EvaluationResult> results = expressionEvaluator.evaluateAll(Arrays.asList("1+1", "2*3", "(1+3)*4"));
+
+        assertEquals(3, results.size());
+        assertEquals(2.0, results.get(0).getValue());
+        assertEquals(6.0, results.get(1).getValue());
+        assertEquals(16.0, results.get(2).getValue());
+    }
+
+    // Normal Case: large batch split across the pool keeps input order
+    @Test
+    void testLargeBatchPreservesOrder() {
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            expressions.add(i + "+1");
+        }
+
+        List<EvaluationResult> results = expressionEvaluator.evaluateAll(expressions);
+
+        assertEquals(expressions.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertTrue(results.get(i).isSuccess());
+            assertEquals(i + 1.0, results.get(i).getValue());
+        }
+    }
+
+    // Edge Case: failures are reported per item without failing the batch
+    @Test
+    void testErrorsAreReportedPerItem() {
+        EvaluationResult[] results = expressionEvaluator.evaluateAll(new String[]{"10/0", "4/2", "5 & 6", "2000000+1"});
+
+        assertFalse(results[0].isSuccess());
+        assertEquals("ArithmeticException", results[0].getErrorType());
+        assertEquals("Cannot divide by zero", results[0].getErrorMessage());
+        assertTrue(results[1].isSuccess());
+        assertEquals(2.0, results[1].getValue());
+        assertEquals("IllegalArgumentException", results[2].getErrorType());
+        assertFalse(results[3].isSuccess());
+    }
+
+    // Edge Case: failures carry a machine-readable code and, where known, the offending offset
+    @Test
+    void testErrorCodesAndOffsets() {
+        EvaluationResult invalidCharacter = expressionEvaluator.evaluateSafely("5 & 6");
+        assertEquals(ErrorCode.INVALID_CHARACTER, invalidCharacter.getErrorCode());
+        assertEquals(2, invalidCharacter.getErrorOffset());
+        assertEquals("Invalid character in expression: '&' at offset 2", invalidCharacter.getErrorMessage());
+
+        EvaluationResult unclosed = expressionEvaluator.evaluateSafely("1 + (2 * 3");
+        assertEquals(ErrorCode.MISMATCHED_PARENTHESES, unclosed.getErrorCode());
+        assertEquals(4, unclosed.getErrorOffset());
+
+        EvaluationResult invalidNumber = expressionEvaluator.evaluateSafely("1 + 2..5");
+        assertEquals(ErrorCode.INVALID_NUMBER, invalidNumber.getErrorCode());
+        assertEquals(4, invalidNumber.getErrorOffset());
+        assertEquals("NumberFormatException", invalidNumber.getErrorType());
+
+        EvaluationResult divisionByZero = expressionEvaluator.evaluateSafely("10/0");
+        assertEquals(ErrorCode.DIVISION_BY_ZERO, divisionByZero.getErrorCode());
+        assertEquals(-1, divisionByZero.getErrorOffset());
+
+        assertEquals(ErrorCode.EMPTY_EXPRESSION, expressionEvaluator.evaluateSafely("   ").getErrorCode());
+        assertEquals(ErrorCode.INVALID_SYNTAX, expressionEvaluator.evaluateSafely("1 + * 2").getErrorCode());
+        assertEquals(2, expressionEvaluator.evaluateSafely("1 + * 2").getErrorOffset());
+        assertEquals(2, expressionEvaluator.evaluateSafely("1 2").getErrorOffset());
+        assertEquals(0, expressionEvaluator.evaluateSafely("max(1)").getErrorOffset());
+        assertEquals(2, expressionEvaluator.evaluateSafely("3 +").getErrorOffset());
+        assertEquals(ErrorCode.UNBOUND_VARIABLE, expressionEvaluator.evaluateSafely("x + 1").getErrorCode());
+        assertEquals(ErrorCode.OUTPUT_OUT_OF_RANGE, expressionEvaluator.evaluateSafely("999999 + 2").getErrorCode());
+        assertEquals(ErrorCode.INPUT_OUT_OF_RANGE, expressionEvaluator.evaluateSafely("2000000 + 1").getErrorCode());
+
+        EvaluationResult success = expressionEvaluator.evaluateSafely("1 + 1");
+        assertNull(success.getErrorCode());
+        assertEquals(-1, success.getErrorOffset());
+    }
+
+    // Edge Case: the throwing API reports the same errors as standard exception types
+    @Test
+    void testThrowingApiKeepsStandardTypes() {
+        assertThrows(ArithmeticException.class, () -> expressionEvaluator.evaluate("10/0"));
+        assertThrows(IllegalArgumentException.class, () -> expressionEvaluator.evaluate("5 & 6"));
+        assertThrows(NumberFormatException.class, () -> expressionEvaluator.evaluate("1 + 2..5"));
+    }
+
+    // Edge Case: a caller suppressing exceptions into one error does not affect the next
+    @Test
+    void testErrorsAreNotShared() {
+        for (String expression : new String[]{"10/0", "", "1 +"}) {
+            RuntimeException first = assertThrows(RuntimeException.class, () -> expressionEvaluator.evaluate(expression));
+            first.addSuppressed(new IllegalStateException("close failed"));
+            RuntimeException second = assertThrows(RuntimeException.class, () -> expressionEvaluator.evaluate(expression));
+
+            assertNotSame(first, second, expression);
+            assertEquals(0, second.getSuppressed().length, expression);
+            assertEquals(0, second.getStackTrace().length, expression);
+        }
+    }
+
+    // Normal Case: stream variant
+    @Test
+    void testStreamVariant() {
+        List<EvaluationResult> results = expressionEvaluator.evaluateAll(Stream.of("1+2", "3*4"));
+
+        assertEquals(3.0, results.get(0).getValue());
+        assertEquals(12.0, results.get(1).getValue());
+    }
+
+    // Edge Case: empty batch
+    @Test
+    void testEmptyBatch() {
+        assertEquals(0, expressionEvaluator.evaluateAll(new String[0]).length);
+    }
+}
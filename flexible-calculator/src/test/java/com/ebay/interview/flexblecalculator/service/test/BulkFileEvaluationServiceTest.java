@@ -0,0 +1,146 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.BulkEvaluationSummary;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.BulkFileEvaluationService;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkFileEvaluationServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private CalculatorProperties properties;
+    private Path input;
+    private Path output;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CalculatorProperties();
+        properties.getBulk().setChunkSize(16);
+        properties.getBatch().setParallelism(3);
+        input = directory.resolve("expressions.txt");
+        output = directory.resolve("results.txt");
+    }
+
+    private ExpressionEvaluator evaluator() {
+        return new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties);
+    }
+
+    // Records what it evaluates and fails like a crash on one expression; a plain subclass rather than a
+    // Mockito spy, which would instrument ExpressionEvaluator for every test in the JVM
+    private static final class RecordingEvaluator extends ExpressionEvaluator {
+
+        private final String crashOn;
+        private final Set<String> evaluated = ConcurrentHashMap.newKeySet();
+
+        RecordingEvaluator(CalculatorProperties properties, String crashOn) {
+            super(new ExpressionParser(), new RangeValidator(), properties);
+            this.crashOn = crashOn;
+        }
+
+        @Override
+        public EvaluationResult evaluateSafely(String expression) {
+            if (expression.equals(crashOn)) {
+                throw new AssertionError("simulated crash");
+            }
+            evaluated.add(expression);
+            return super.evaluateSafely(expression);
+        }
+    }
+
+    // Normal Case: one result line per input line, in input order
+    @Test
+    void testEvaluatesEveryLineInOrder() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            lines.add(i + "+1");
+        }
+        Files.write(input, lines, StandardCharsets.UTF_8);
+
+        BulkEvaluationSummary summary = new BulkFileEvaluationService(evaluator(), properties).evaluateFile(input, output);
+
+        List<String> results = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(500, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(Double.toString(i + 1.0), results.get(i));
+        }
+        assertEquals(500, summary.getLines());
+        assertEquals(0, summary.getErrors());
+        assertTrue(summary.getChunks() > 1);
+        assertFalse(Files.exists(directory.resolve("results.txt.checkpoint")));
+    }
+
+    // Edge Case: errors, blank lines, CRLF and a missing final newline
+    @Test
+    void testErrorsAndLineEndings() throws IOException {
+        Files.write(input, "10/0\r\n\n4/2\n5 & 6".getBytes(StandardCharsets.UTF_8));
+
+        BulkEvaluationSummary summary = new BulkFileEvaluationService(evaluator(), properties).evaluateFile(input, output);
+
+        assertEquals(Arrays.asList(
+                "ERROR: Cannot divide by zero",
+                "ERROR: Expression cannot be empty",
+                "2.0",
+                "ERROR: Invalid character in expression: '&' at offset 2"
+        ), Files.readAllLines(output, StandardCharsets.UTF_8));
+        assertEquals(3, summary.getErrors());
+    }
+
+    // Edge Case: an interrupted run resumes after the last written chunk
+    @Test
+    void testResumesFromCheckpoint() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            lines.add(i == 150 ? "crash" : i + "*2");
+        }
+        Files.write(input, lines, StandardCharsets.UTF_8);
+
+        ExpressionEvaluator crashing = new RecordingEvaluator(properties, "crash");
+        assertThrows(IOException.class,
+                () -> new BulkFileEvaluationService(crashing, properties).evaluateFile(input, output));
+        assertTrue(Files.exists(directory.resolve("results.txt.checkpoint")));
+
+        RecordingEvaluator resumed = new RecordingEvaluator(properties, null);
+        BulkEvaluationSummary summary = new BulkFileEvaluationService(resumed, properties).evaluateFile(input, output);
+
+        assertFalse(resumed.evaluated.contains("0*2"));
+        assertTrue(summary.getResumedChunks() > 0);
+        assertEquals(200, summary.getLines());
+
+        List<String> results = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(200, results.size());
+        assertEquals("0.0", results.get(0));
+        assertEquals("ERROR: Unbound variables in expression: [crash]", results.get(150));
+        assertEquals("398.0", results.get(199));
+    }
+
+    // Edge Case: empty input file
+    @Test
+    void testEmptyInput() throws IOException {
+        Files.write(input, new byte[0]);
+
+        BulkEvaluationSummary summary = new BulkFileEvaluationService(evaluator(), properties).evaluateFile(input, output);
+
+        assertEquals(0, summary.getLines());
+        assertEquals(0, Files.size(output));
+    }
+}
@@ -0,0 +1,111 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.service.ColumnarEvaluator;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarEvaluatorTest {
+    private ExpressionEvaluator expressionEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), new CalculatorProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        expressionEvaluator.shutdown();
+    }
+
+    // Normal Case: vector and scalar loops match row-by-row evaluation across several blocks
+    @Test
+    void testMatchesRowEvaluation() {
+        CompiledExpression expression = expressionEvaluator.compile("(x + 1) * (y - 2) / 4 - x");
+        double[][] columns = new double[2][1000];
+        for (int row = 0; row < 1000; row++) {
+            columns[0][row] = row * 0.5;
+            columns[1][row] = 100 - row;
+        }
+
+        for (ColumnarEvaluator columnarEvaluator : new ColumnarEvaluator[]{
+                new ColumnarEvaluator(64, true), new ColumnarEvaluator(64, false)}) {
+            double[] results = new double[1000];
+            columnarEvaluator.evaluate(expression, columns, results);
+
+            for (int row = 0; row < 1000; row++) {
+                assertEquals(expression.evaluate(new double[]{columns[0][row], columns[1][row]}), results[row]);
+            }
+        }
+    }
+
+    // Normal Case: columns by variable name, constant-only expressions
+    @Test
+    void testNamedColumns() {
+        ColumnarEvaluator columnarEvaluator = new ColumnarEvaluator(new CalculatorProperties());
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("price", new double[]{10, 20, 30});
+        columns.put("qty", new double[]{1, 2, 3});
+
+        assertArrayEquals(new double[]{10, 40, 90},
+                columnarEvaluator.evaluate(expressionEvaluator.compile("price * qty"), columns, 3));
+        assertArrayEquals(new double[]{7, 7}, columnarEvaluator.evaluate(expressionEvaluator.compile("1+2*3"), columns, 2));
+    }
+
+    // Edge Case: a zero divisor in a later block is reported for that row
+    @Test
+    void testDivisionByZero() {
+        ColumnarEvaluator columnarEvaluator = new ColumnarEvaluator(16, true);
+        CompiledExpression expression = expressionEvaluator.compile("x / y");
+        double[] x = new double[100];
+        double[] y = new double[100];
+        Arrays.fill(x, 1);
+        Arrays.fill(y, 2);
+        y[70] = 0;
+        double[] results = new double[100];
+
+        Exception exception = assertThrows(ArithmeticException.class, () ->
+                columnarEvaluator.evaluate(expression, new double[][]{x, y}, results));
+        assertEquals("Cannot divide by zero", exception.getMessage());
+        // Rows before the failing one were written
+        assertEquals(0.5, results[69]);
+    }
+
+    // Edge Case: range checks report the same error as row evaluation
+    @Test
+    void testOutOfRange() {
+        ColumnarEvaluator columnarEvaluator = new ColumnarEvaluator(16, false);
+        CompiledExpression expression = expressionEvaluator.compile("x * 1000");
+        double[] x = new double[50];
+        x[30] = 5000;
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+                columnarEvaluator.evaluate(expression, new double[][]{x}, new double[50]));
+        assertEquals("Output value out of range: 5000000.0. Valid range: -1000000.0 to 1000000.0", exception.getMessage());
+    }
+
+    // Edge Case: missing and short columns
+    @Test
+    void testInvalidColumns() {
+        ColumnarEvaluator columnarEvaluator = new ColumnarEvaluator(16, false);
+        CompiledExpression expression = expressionEvaluator.compile("x + y");
+
+        assertThrows(IllegalArgumentException.class, () ->
+                columnarEvaluator.evaluate(expression, new double[][]{new double[4]}, new double[4]));
+        assertThrows(IllegalArgumentException.class, () ->
+                columnarEvaluator.evaluate(expression, new double[][]{new double[4], new double[2]}, new double[4]));
+        assertThrows(IllegalArgumentException.class, () ->
+                columnarEvaluator.evaluate(expression, new HashMap<>(), 4));
+    }
+}
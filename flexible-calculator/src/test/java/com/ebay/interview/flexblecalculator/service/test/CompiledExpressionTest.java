@@ -0,0 +1,112 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangePolicy;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledExpressionTest {
+    private static final RangePolicy EXACT = RangePolicy.UNBOUNDED.withExactIntegers(true);
+
+    private ExpressionEvaluator expressionEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator());
+    }
+
+    // Normal Case: variables are resolved to slots in order of first appearance
+    @Test
+    void testVariablesResolveToSlots() {
+        CompiledExpression expression = expressionEvaluator.compile("price * qty - discount + price");
+
+        assertEquals(Arrays.asList("price", "qty", "discount"), expression.getVariables());
+        assertEquals(0, expression.slotOf("price"));
+        assertEquals(2, expression.slotOf("discount"));
+    }
+
+    // Normal Case: one compiled expression evaluated with many bindings
+    @Test
+    void testEvaluateWithSlots() {
+        CompiledExpression expression = expressionEvaluator.compile("price * qty - discount");
+        double[] slots = expression.newSlots();
+
+        slots[0] = 10; slots[1] = 3; slots[2] = 5;
+        assertEquals(25.0, expression.evaluate(slots));
+
+        slots[0] = 2; slots[1] = 4; slots[2] = 1;
+        assertEquals(7.0, expression.evaluate(slots));
+    }
+
+    // Edge Case: evaluating without bindings
+    @Test
+    void testUnboundVariables() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            expressionEvaluator.evaluate("x + 1");
+        });
+        assertEquals("Unbound variables in expression: [x]", exception.getMessage());
+    }
+
+    // Edge Case: too few slot values
+    @Test
+    void testTooFewSlots() {
+        CompiledExpression expression = expressionEvaluator.compile("a + b");
+        assertThrows(IllegalArgumentException.class, () -> expression.evaluate(new double[1]));
+    }
+
+    // Edge Case: unknown variable name
+    @Test
+    void testUnknownVariable() {
+        CompiledExpression expression = expressionEvaluator.compile("a + b");
+        assertThrows(IllegalArgumentException.class, () -> expression.slotOf("c"));
+    }
+
+    // Edge Case: bound values are range checked like literals
+    @Test
+    void testBoundValueOutOfRange() {
+        CompiledExpression expression = expressionEvaluator.compile("a + 1");
+        assertThrows(IllegalArgumentException.class, () -> expression.evaluate(new double[]{2e6}));
+    }
+
+    // Edge Case: adjacent variables are not merged into one name
+    @Test
+    void testAdjacentVariables() {
+        assertThrows(IllegalArgumentException.class, () -> expressionEvaluator.compile("a b"));
+    }
+
+    // Normal Case: beyond 2^53 integers stay exact in long arithmetic
+    @Test
+    void testExactIntegersUnderWidePolicy() {
+        CompiledExpression literals = expressionEvaluator.compile("9007199254740993 - 9007199254740992")
+                .withPolicy(EXACT);
+        assertEquals(1.0, literals.evaluate());
+
+        CompiledExpression variable = expressionEvaluator.compile("(x + 1) - x").withPolicy(EXACT);
+        assertEquals(1.0, variable.evaluate(new double[]{0x1p53}));
+    }
+
+    // Edge Case: without opting in, wide policies keep double arithmetic
+    @Test
+    void testExactIntegersAreOptIn() {
+        assertFalse(RangePolicy.UNBOUNDED.isExactIntegers());
+        assertEquals(0.0, expressionEvaluator.compile("9007199254740993 - 9007199254740992")
+                .withPolicy(RangePolicy.UNBOUNDED).evaluate());
+    }
+
+    // Edge Case: overflow and division with a remainder promote to double
+    @Test
+    void testIntegerPromotion() {
+        assertEquals(9e19, expressionEvaluator.compile("9000000000000000000 * 10")
+                .withPolicy(EXACT).evaluate());
+        assertEquals(3.5, expressionEvaluator.compile("7 / 2").withPolicy(EXACT).evaluate());
+        assertThrows(ArithmeticException.class,
+                () -> expressionEvaluator.compile("7 / (2 - 2)").withPolicy(EXACT).evaluate());
+    }
+}
@@ -0,0 +1,107 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.metrics.EvaluationMetrics;
+import com.ebay.interview.flexiblecalculator.metrics.MetricsServer;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationMetricsTest {
+    private CalculatorProperties properties;
+    private EvaluationMetrics metrics;
+    private ExpressionEvaluator expressionEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CalculatorProperties();
+        // Time every call so the histograms fill up deterministically
+        properties.getMetrics().setSampleInterval(1);
+        properties.getMetrics().setCompileSampleInterval(1);
+        metrics = new EvaluationMetrics(properties);
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties, metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expressionEvaluator.shutdown();
+    }
+
+    // Normal Case: evaluations and stage timings are recorded
+    @Test
+    void testEvaluationsAreCounted() {
+        expressionEvaluator.evaluate("1+2");
+        expressionEvaluator.evaluate("1+2");
+        expressionEvaluator.evaluate("3*4");
+
+        String scrape = metrics.scrape();
+        assertEquals(3, metrics.evaluations());
+        assertTrue(scrape.contains("calculator_evaluations_total 3\n"), scrape);
+        assertTrue(scrape.contains("calculator_stage_seconds_count{stage=\"evaluate\"} 3\n"), scrape);
+        assertTrue(scrape.contains("calculator_stage_seconds_count{stage=\"parse\"} 2\n"), scrape);
+        assertTrue(scrape.contains("calculator_cache_hits_total{cache=\"expression\"} 1\n"), scrape);
+        assertTrue(scrape.contains("# TYPE calculator_stage_seconds histogram\n"), scrape);
+    }
+
+    // Edge Case: errors are broken down by type
+    @Test
+    void testErrorsByType() {
+        expressionEvaluator.evaluateSafely("10/0");
+        expressionEvaluator.evaluateSafely("2000000+1");
+        expressionEvaluator.evaluateSafely("5 & 6");
+        expressionEvaluator.evaluateSafely("(1+2");
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape.contains("calculator_errors_total{type=\"division_by_zero\"} 1\n"), scrape);
+        assertTrue(scrape.contains("calculator_errors_total{type=\"range\"} 1\n"), scrape);
+        assertTrue(scrape.contains("calculator_errors_total{type=\"syntax\"} 2\n"), scrape);
+    }
+
+    // Edge Case: counts from threads that have finished are kept
+    @Test
+    void testCountsSurviveThreadExit() throws InterruptedException {
+        Thread worker = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                expressionEvaluator.evaluate("1+1");
+            }
+        });
+        worker.start();
+        worker.join();
+
+        assertEquals(100, metrics.evaluations());
+        assertEquals(100, metrics.evaluations());
+    }
+
+    // Normal Case: the endpoint serves the Prometheus text format
+    @Test
+    void testEndpoint() throws IOException {
+        properties.getMetrics().setPort(0);
+        MetricsServer server = new MetricsServer(metrics, properties);
+        server.start();
+        try {
+            expressionEvaluator.evaluate("1+2");
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                    "http://127.0.0.1:" + server.getPort() + "/metrics").openConnection();
+
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            try (InputStream in = connection.getInputStream()) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(body.contains("calculator_evaluations_total 1\n"), body);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+}
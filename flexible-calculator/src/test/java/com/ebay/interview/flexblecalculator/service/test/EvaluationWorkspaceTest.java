@@ -0,0 +1,102 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.EvaluationWorkspace;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class EvaluationWorkspaceTest {
+
+    private static final String[] EXPRESSIONS = {"1+2*3", "(3+(2*2))*2/7-1", "10/4"};
+
+    private static ExpressionEvaluator evaluator(int codegenThreshold) {
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getCodegen().setThreshold(codegenThreshold);
+        return new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties);
+    }
+
+    private static long allocatedBytes(ExpressionEvaluator evaluator) {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean, "allocation counters unavailable");
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+
+        double sink = 0;
+        // Warm up caches, workspaces and the JIT
+        for (int i = 0; i < 20_000; i++) {
+            for (String expression : EXPRESSIONS) {
+                sink += evaluator.evaluate(expression);
+            }
+        }
+        long before = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 10_000; i++) {
+            for (String expression : EXPRESSIONS) {
+                sink += evaluator.evaluate(expression);
+            }
+        }
+        long after = bean.getThreadAllocatedBytes(thread);
+        assertTrue(sink > 0);
+        return after - before;
+    }
+
+    // Steady-state interpreted evaluation allocates nothing; run in a separate JVM (see pom.xml)
+    @Test
+    @Tag("allocation")
+    void testInterpretedEvaluateDoesNotAllocate() {
+        assertEquals(0, allocatedBytes(evaluator(0)));
+    }
+
+    // Steady-state generated evaluation allocates nothing
+    @Test
+    @Tag("allocation")
+    void testGeneratedEvaluateDoesNotAllocate() {
+        assertEquals(0, allocatedBytes(evaluator(1)));
+    }
+
+    // The per-thread token buffer does not keep the last expression alive, also after an error
+    @Test
+    void testTokensReleaseSource() {
+        ExpressionEvaluator evaluator = evaluator(0);
+        try {
+            assertEquals(7.0, evaluator.evaluate("1+2*3"));
+            assertNull(EvaluationWorkspace.forCurrentThread().tokens().getSource());
+
+            assertFalse(evaluator.evaluateSafely("1 + & 2").isSuccess());
+            assertNull(EvaluationWorkspace.forCurrentThread().tokens().getSource());
+
+            assertFalse(evaluator.evaluateSafely("1 + * 2").isSuccess());
+            assertNull(EvaluationWorkspace.forCurrentThread().tokens().getSource());
+        } finally {
+            evaluator.shutdown();
+        }
+    }
+
+    // A caller-owned workspace grows to fit deep expressions
+    @Test
+    void testCallerWorkspaceGrows() {
+        ExpressionEvaluator evaluator = evaluator(0);
+        EvaluationWorkspace workspace = new EvaluationWorkspace(1);
+
+        assertEquals(14.0, evaluator.evaluate("(3+(2*2))*2", workspace));
+        assertTrue(workspace.values(1).length >= 2);
+    }
+
+    // Variables can be evaluated with a caller-owned workspace
+    @Test
+    void testEvaluateSlotsWithWorkspace() {
+        CompiledExpression expression = evaluator(0).compile("a * (b + c)");
+        EvaluationWorkspace workspace = new EvaluationWorkspace();
+
+        assertEquals(20.0, expression.evaluate(new double[]{2, 3, 7}, workspace));
+    }
+}
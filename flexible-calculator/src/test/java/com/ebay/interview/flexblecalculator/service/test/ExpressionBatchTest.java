@@ -0,0 +1,79 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.ExpressionBatch;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangePolicy;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionBatchTest {
+    private ExpressionEvaluator expressionEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), new CalculatorProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        expressionEvaluator.shutdown();
+    }
+
+    // Normal Case: a repeated subterm is one node and results match evaluating each expression alone
+    @Test
+    void testSharedSubtrees() {
+        List<String> expressions = Arrays.asList("(a + b) * (c - d) * 2", "(a + b) * (c - d) / 4", "c - d + a");
+        ExpressionBatch batch = expressionEvaluator.compileBatch(expressions);
+
+        // 9 + 9 + 5 nodes written, 12 distinct
+        assertEquals(23, batch.getReport().getNodesBefore());
+        assertEquals(12, batch.getReport().getNodesAfter());
+        assertEquals(11, batch.getReport().deduplicatedNodes());
+        assertEquals(Arrays.asList("a", "b", "c", "d"), batch.getVariables());
+
+        double[] slots = {1, 2, 10, 4};
+        EvaluationResult[] results = batch.evaluate(slots);
+        assertEquals(EvaluationResult.success(36.0), results[0]);
+        assertEquals(EvaluationResult.success(4.5), results[1]);
+        assertEquals(EvaluationResult.success(7.0), results[2]);
+    }
+
+    // Edge Case: a failing shared node fails only the expressions that use it, with their own first error
+    @Test
+    void testErrorsPerExpression() {
+        ExpressionBatch batch = expressionEvaluator.compileBatch(
+                Arrays.asList("x / y + 1", "x / y * 2000000", "x + 1", "1 +"));
+        double[] slots = new double[2];
+        slots[batch.slotOf("x")] = 3;
+        slots[batch.slotOf("y")] = 0;
+
+        EvaluationResult[] results = batch.evaluate(slots);
+        assertEquals("Cannot divide by zero", results[0].getErrorMessage());
+        // Its own literal is checked after the division, so the division error comes first
+        assertEquals("Cannot divide by zero", results[1].getErrorMessage());
+        assertEquals(EvaluationResult.success(4.0), results[2]);
+        assertEquals("Invalid operator placement", results[3].getErrorMessage());
+    }
+
+    // Edge Case: range checks use the policy given to the call
+    @Test
+    void testPolicy() {
+        ExpressionBatch batch = expressionEvaluator.compileBatch(Arrays.asList("x * 100", "x + 1"));
+        RangePolicy narrow = new RangePolicy("narrow", -1000, 1000, -1000, 1000);
+
+        EvaluationResult[] results = batch.evaluate(new double[]{50}, narrow);
+        assertEquals("Output value out of range: 5000.0. Valid range: -1000.0 to 1000.0", results[0].getErrorMessage());
+        assertEquals(EvaluationResult.success(51.0), results[1]);
+        assertThrows(IllegalArgumentException.class, () -> batch.evaluate(new double[0]));
+    }
+}
@@ -0,0 +1,99 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionCodeGeneratorTest {
+    private RangeValidator rangeValidator;
+    private ExpressionEvaluator generating;
+    private ExpressionEvaluator interpreting;
+
+    @BeforeEach
+    void setUp() {
+        rangeValidator = new RangeValidator();
+
+        CalculatorProperties eager = new CalculatorProperties();
+        eager.getCodegen().setThreshold(1);
+        generating = new ExpressionEvaluator(new ExpressionParser(), rangeValidator, eager);
+
+        CalculatorProperties disabled = new CalculatorProperties();
+        disabled.getCodegen().setThreshold(0);
+        interpreting = new ExpressionEvaluator(new ExpressionParser(), rangeValidator, disabled);
+    }
+
+    // Generated code gives the same results as the interpreter
+    @Test
+    void testGeneratedMatchesInterpreted() {
+        String[] expressions = {"1+2*3", "(3+(2*2))*2", "10/4-1", "8/2/2", "1-2-3", "0.1+0.2"};
+        for (String expression : expressions) {
+            CompiledExpression compiled = generating.compile(expression);
+            assertEquals(interpreting.evaluate(expression), compiled.evaluate(), expression);
+            assertTrue(compiled.isGenerated(), expression);
+        }
+    }
+
+    // Generated code reads variables from the slot array
+    @Test
+    void testGeneratedWithVariables() {
+        CompiledExpression compiled = generating.compile("price * qty - discount");
+        assertEquals(25.0, compiled.evaluate(new double[]{10, 3, 5}));
+        assertEquals(7.0, compiled.evaluate(new double[]{2, 4, 1}));
+        assertTrue(compiled.isGenerated());
+    }
+
+    // Edge Case: inlined division-by-zero check
+    @Test
+    void testGeneratedDivisionByZero() {
+        CompiledExpression compiled = generating.compile("x / y");
+        compiled.evaluate(new double[]{1, 2});
+
+        ArithmeticException exception = assertThrows(ArithmeticException.class, () -> {
+            compiled.evaluate(new double[]{1, 0});
+        });
+        assertEquals("Cannot divide by zero", exception.getMessage());
+    }
+
+    // Edge Case: inlined range checks report the same messages as RangeValidator
+    @Test
+    void testGeneratedRangeChecks() {
+        CompiledExpression compiled = generating.compile("x * y");
+        compiled.evaluate(new double[]{1, 2});
+
+        IllegalArgumentException input = assertThrows(IllegalArgumentException.class, () -> {
+            compiled.evaluate(new double[]{2e6, 1});
+        });
+        assertEquals("Input value out of range: 2000000.0. Valid range: -1000000.0 to 1000000.0", input.getMessage());
+
+        IllegalArgumentException output = assertThrows(IllegalArgumentException.class, () -> {
+            compiled.evaluate(new double[]{1e6, 2});
+        });
+        assertEquals("Output value out of range: 2000000.0. Valid range: -1000000.0 to 1000000.0", output.getMessage());
+    }
+
+    // Edge Case: changing the range regenerates code with the new bounds
+    @Test
+    void testRangeChangeRegeneratesCode() {
+        CompiledExpression compiled = generating.compile("x * y");
+        compiled.evaluate(new double[]{1, 2});
+
+        rangeValidator.setOutputRange(-1e9, 1e9);
+        assertFalse(compiled.isGenerated());
+        assertEquals(2e6, compiled.evaluate(new double[]{1e6, 2}));
+        assertTrue(compiled.isGenerated());
+    }
+
+    // Edge Case: literals outside the input range stay interpreted
+    @Test
+    void testOutOfRangeLiteralIsNotGenerated() {
+        CompiledExpression compiled = generating.compile("2000000 + 1");
+        assertThrows(IllegalArgumentException.class, compiled::evaluate);
+        assertFalse(compiled.isGenerated());
+    }
+}
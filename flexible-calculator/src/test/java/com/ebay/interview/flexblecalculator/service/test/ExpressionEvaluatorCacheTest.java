@@ -0,0 +1,79 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.CacheStats;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ExpressionEvaluatorCacheTest {
+    private ExpressionEvaluator expressionEvaluator;
+    private ExpressionParser expressionParser;
+
+    @BeforeEach
+    void setUp() {
+        expressionParser = spy(new ExpressionParser());
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getCache().setExpressionSize(2);
+        properties.getCache().setPlanSize(2);
+        expressionEvaluator = new ExpressionEvaluator(expressionParser, new RangeValidator(), properties);
+    }
+
+    // Repeated expressions are parsed only once
+    @Test
+    void testRepeatedExpressionIsParsedOnce() {
+        assertEquals(7.0, expressionEvaluator.evaluate("1+2*3"));
+        assertEquals(7.0, expressionEvaluator.evaluate("1+2*3"));
+
+        verify(expressionParser, times(1)).tokenize(eq("1+2*3"), any());
+        CacheStats stats = expressionEvaluator.getExpressionCacheStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    // Expressions with the same shape share one plan
+    @Test
+    void testSameShapeSharesPlan() {
+        CompiledExpression first = expressionEvaluator.compile("1+2*3");
+        CompiledExpression second = expressionEvaluator.compile("4+5*6");
+
+        assertSame(first.getPlan(), second.getPlan());
+        assertEquals(7.0, first.evaluate());
+        assertEquals(34.0, second.evaluate());
+        assertEquals(1, expressionEvaluator.getPlanCacheStats().getHitCount());
+    }
+
+    // Least recently used entries are evicted once the cache is full
+    @Test
+    void testEvictionIsCounted() {
+        expressionEvaluator.evaluate("1+1");
+        expressionEvaluator.evaluate("2+2");
+        expressionEvaluator.evaluate("3+3");
+
+        CacheStats stats = expressionEvaluator.getExpressionCacheStats();
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(2, stats.getSize());
+    }
+
+    // Failed compilations are not cached
+    @Test
+    void testInvalidExpressionIsNotCached() {
+        assertThrows(IllegalArgumentException.class, () -> expressionEvaluator.evaluate("2 +"));
+        assertThrows(IllegalArgumentException.class, () -> expressionEvaluator.evaluate("2 +"));
+
+        assertEquals(0, expressionEvaluator.getExpressionCacheStats().getSize());
+    }
+
+    // Range validation still applies to cached expressions
+    @Test
+    void testCachedExpressionStillValidatesRange() {
+        assertThrows(IllegalArgumentException.class, () -> expressionEvaluator.evaluate("1000000*2"));
+        assertThrows(IllegalArgumentException.class, () -> expressionEvaluator.evaluate("1000000*2"));
+    }
+}
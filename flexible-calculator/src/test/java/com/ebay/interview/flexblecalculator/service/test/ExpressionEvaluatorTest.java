@@ -1,17 +1,11 @@
 package com.ebay.interview.flexblecalculator.service.test;
 
-import com.ebay.interview.flexiblecalculator.model.Token;
-import com.ebay.interview.flexiblecalculator.model.TokenType;
 import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
 import com.ebay.interview.flexiblecalculator.service.RangeValidator;
 import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
@@ -23,7 +17,7 @@ public class ExpressionEvaluatorTest {
 
     @BeforeEach
     void setUp() {
-        expressionParser = mock(ExpressionParser.class);
+        expressionParser = new ExpressionParser();
         rangeValidator = mock(RangeValidator.class);
         expressionEvaluator = new ExpressionEvaluator(expressionParser, rangeValidator);
 
@@ -35,14 +29,6 @@ public class ExpressionEvaluatorTest {
     // Normal Case: Simple addition
     @Test
     void testSimpleAddition() {
-        List<Token> tokens = Arrays.asList(
-                new Token(TokenType.NUMBER, "3"),
-                new Token(TokenType.OPERATOR, "+"),
-                new Token(TokenType.NUMBER, "2")
-        );
-
-        when(expressionParser.parse("3+2")).thenReturn(tokens);
-
         double result = expressionEvaluator.evaluate("3+2");
 
         verify(rangeValidator).validateInput(3.0);
@@ -55,16 +41,6 @@ public class ExpressionEvaluatorTest {
     // Normal Case: Complex expression with multiple operators
     @Test
     void testComplexExpression() {
-        List<Token> tokens = Arrays.asList(
-                new Token(TokenType.NUMBER, "3"),
-                new Token(TokenType.OPERATOR, "+"),
-                new Token(TokenType.NUMBER, "2"),
-                new Token(TokenType.OPERATOR, "*"),
-                new Token(TokenType.NUMBER, "4")
-        );
-
-        when(expressionParser.parse("3+2*4")).thenReturn(tokens);
-
         double result = expressionEvaluator.evaluate("3+2*4");
 
         verify(rangeValidator).validateInput(3.0);
@@ -78,18 +54,6 @@ public class ExpressionEvaluatorTest {
     // Normal Case: Parentheses to enforce precedence
     @Test
     void testParenthesesExpression() {
-        List<Token> tokens = Arrays.asList(
-                new Token(TokenType.PARENTHESIS, "("),
-                new Token(TokenType.NUMBER, "3"),
-                new Token(TokenType.OPERATOR, "+"),
-                new Token(TokenType.NUMBER, "2"),
-                new Token(TokenType.PARENTHESIS, ")"),
-                new Token(TokenType.OPERATOR, "*"),
-                new Token(TokenType.NUMBER, "4")
-        );
-
-        when(expressionParser.parse("(3+2)*4")).thenReturn(tokens);
-
         double result = expressionEvaluator.evaluate("(3+2)*4");
 
         verify(rangeValidator).validateInput(3.0);
@@ -103,14 +67,6 @@ public class ExpressionEvaluatorTest {
     // Edge Case: Division by zero
     @Test
     void testDivisionByZero() {
-        List<Token> tokens = Arrays.asList(
-                new Token(TokenType.NUMBER, "10"),
-                new Token(TokenType.OPERATOR, "/"),
-                new Token(TokenType.NUMBER, "0")
-        );
-
-        when(expressionParser.parse("10/0")).thenReturn(tokens);
-
         ArithmeticException exception = assertThrows(ArithmeticException.class, () -> {
             expressionEvaluator.evaluate("10/0");
         });
@@ -121,10 +77,6 @@ public class ExpressionEvaluatorTest {
     // Edge Case: Empty expression
     @Test
     void testEmptyExpression() {
-        List<Token> tokens = Collections.emptyList();
-
-        when(expressionParser.parse("")).thenReturn(tokens);
-
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             expressionEvaluator.evaluate("");
         });
@@ -135,13 +87,6 @@ public class ExpressionEvaluatorTest {
     // Edge Case: Invalid operator placement
     @Test
     void testInvalidOperatorPlacement() {
-        List<Token> tokens = Arrays.asList(
-                new Token(TokenType.OPERATOR, "+"),
-                new Token(TokenType.NUMBER, "2")
-        );
-
-        when(expressionParser.parse("+2")).thenReturn(tokens);
-
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
             expressionEvaluator.evaluate("+2");
         });
@@ -152,13 +97,6 @@ public class ExpressionEvaluatorTest {
     // Edge Case: Out of range input
     @Test
     void testOutOfRangeInput() {
-        List<Token> tokens = Arrays.asList(
-                new Token(TokenType.NUMBER, "1000001"),
-                new Token(TokenType.OPERATOR, "+"),
-                new Token(TokenType.NUMBER, "1")
-        );
-
-        when(expressionParser.parse("1000001+1")).thenReturn(tokens);
         doThrow(new IllegalArgumentException("Input value out of range: 1000001.0"))
                 .when(rangeValidator).validateInput(1000001.0);
 
@@ -172,13 +110,6 @@ public class ExpressionEvaluatorTest {
     // Edge Case: Out of range output
     @Test
     void testOutOfRangeOutput() {
-        List<Token> tokens = Arrays.asList(
-                new Token(TokenType.NUMBER, "1000000"),
-                new Token(TokenType.OPERATOR, "+"),
-                new Token(TokenType.NUMBER, "1")
-        );
-
-        when(expressionParser.parse("1000000+1")).thenReturn(tokens);
         doThrow(new IllegalArgumentException("Output value out of range: 1000001.0"))
                 .when(rangeValidator).validateOutput(1000001.0);
 
@@ -192,22 +123,6 @@ public class ExpressionEvaluatorTest {
     // Edge Case: Nested parentheses
     @Test
     void testNestedParentheses() {
-        List<Token> tokens = Arrays.asList(
-                new Token(TokenType.PARENTHESIS, "("),
-                new Token(TokenType.NUMBER, "3"),
-                new Token(TokenType.OPERATOR, "+"),
-                new Token(TokenType.PARENTHESIS, "("),
-                new Token(TokenType.NUMBER, "2"),
-                new Token(TokenType.OPERATOR, "*"),
-                new Token(TokenType.NUMBER, "2"),
-                new Token(TokenType.PARENTHESIS, ")"),
-                new Token(TokenType.PARENTHESIS, ")"),
-                new Token(TokenType.OPERATOR, "*"),
-                new Token(TokenType.NUMBER, "2")
-        );
-
-        when(expressionParser.parse("(3+(2*2))*2")).thenReturn(tokens);
-
         double result = expressionEvaluator.evaluate("(3+(2*2))*2");
 
         verify(rangeValidator).validateInput(3.0);
@@ -219,11 +134,6 @@ public class ExpressionEvaluatorTest {
     // Edge Case: Single number without operator
     @Test
     void testSingleNumber() {
-        List<Token> tokens = Arrays.asList(
-                new Token(TokenType.NUMBER, "5")
-        );
-
-        when(expressionParser.parse("5")).thenReturn(tokens);
         double result = expressionEvaluator.evaluate("5");
         verify(rangeValidator).validateInput(5.0);
         assertEquals(5.0, result);
@@ -0,0 +1,137 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.OptimizationReport;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangePolicy;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpressionOptimizerTest {
+    private ExpressionEvaluator plainEvaluator;
+    private ExpressionEvaluator strictEvaluator;
+    private ExpressionEvaluator relaxedEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        plainEvaluator = evaluator("off");
+        strictEvaluator = evaluator("strict");
+        relaxedEvaluator = evaluator("relaxed");
+    }
+
+    @AfterEach
+    void tearDown() {
+        plainEvaluator.shutdown();
+        strictEvaluator.shutdown();
+        relaxedEvaluator.shutdown();
+    }
+
+    private static ExpressionEvaluator evaluator(String mode) {
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getOptimizer().setMode(mode);
+        properties.getMetrics().setEnabled(false);
+        return new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(properties), properties);
+    }
+
+    // Normal Case: the optimizer is off by default
+    @Test
+    void testOffByDefault() {
+        assertNull(plainEvaluator.compile("2 * 3 + x").getOptimization());
+    }
+
+    // Normal Case: constant subtrees are folded and node counts reported
+    @Test
+    void testConstantFolding() {
+        CompiledExpression expression = strictEvaluator.compile("(2 + 3) * 4 + x");
+        OptimizationReport report = expression.getOptimization();
+
+        assertEquals(7, report.getNodesBefore());
+        assertEquals(3, report.getNodesAfter());
+        assertEquals(2, report.getFoldedConstants());
+        assertEquals(21.5, expression.evaluate(new double[]{1.5}));
+        assertEquals(20.0, strictEvaluator.evaluate("(2 + 3) * 4"));
+    }
+
+    // Normal Case: IEEE-safe identities are dropped, x + 0 is kept for -0.0
+    @Test
+    void testIdentities() {
+        CompiledExpression identity = strictEvaluator.compile("x * 1 / 1 - 0");
+        assertEquals(1, identity.getOptimization().getNodesAfter());
+        assertEquals(3, identity.getOptimization().getIdentities());
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(identity.evaluate(new double[]{-0.0})));
+
+        CompiledExpression plusZero = strictEvaluator.compile("x + 0");
+        assertEquals(3, plusZero.getOptimization().getNodesAfter());
+        assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(plusZero.evaluate(new double[]{-0.0})));
+    }
+
+    // Edge Case: division by zero is not folded and still fails at evaluation time
+    @Test
+    void testDivisionByZeroNotFolded() {
+        CompiledExpression expression = strictEvaluator.compile("x + 1 / 0");
+
+        assertEquals(0, expression.getOptimization().getFoldedConstants());
+        ArithmeticException exception = assertThrows(ArithmeticException.class,
+                () -> expression.evaluate(new double[]{1}));
+        assertEquals("Cannot divide by zero", exception.getMessage());
+    }
+
+    // Edge Case: folded literals and results are still range checked, in the original order
+    @Test
+    void testRangeErrorsPreserved() {
+        String[] expressions = {"x * 1 + (2000000 - 1999999)", "(1000 * 1000 * 2) + x", "x / 0.5 * 1 + (3 - 1)"};
+        double[] values = {1, 5e6, 999999};
+        for (String text : expressions) {
+            for (double value : values) {
+                CompiledExpression plain = plainEvaluator.compile(text);
+                CompiledExpression optimized = strictEvaluator.compile(text);
+                double[] slots = {value};
+                assertEquals(outcome(plain, slots), outcome(optimized, slots), text + " with x = " + value);
+            }
+        }
+    }
+
+    // Edge Case: obligations are checked against the policy in force when evaluated
+    @Test
+    void testPolicyChange() {
+        CompiledExpression expression = strictEvaluator.compile("600 * 600 + x");
+        assertEquals(360001.0, expression.evaluate(new double[]{1}));
+
+        RangePolicy narrow = new RangePolicy("narrow", -1000, 1000, -1e5, 1e5);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> expression.evaluate(new double[]{1}, narrow));
+        assertEquals("Output value out of range: 360000.0. Valid range: -100000.0 to 100000.0", exception.getMessage());
+    }
+
+    // Normal Case: relaxed mode gathers constants and rewrites polynomials into Horner form
+    @Test
+    void testRelaxedRewrites() {
+        CompiledExpression chain = relaxedEvaluator.compile("x + 1 + 2 + 3");
+        assertEquals(3, chain.getOptimization().getNodesAfter());
+        assertEquals(1, chain.getOptimization().getReassociatedChains());
+        assertEquals(10.0, chain.evaluate(new double[]{4}));
+
+        CompiledExpression polynomial = relaxedEvaluator.compile("3 * x * x + 2 * x + 1");
+        assertEquals(11, polynomial.getOptimization().getNodesBefore());
+        assertEquals(9, polynomial.getOptimization().getNodesAfter());
+        assertEquals(1, polynomial.getOptimization().getHornerRewrites());
+        assertEquals(17.0, polynomial.evaluate(new double[]{2}));
+
+        // Strict mode leaves both alone
+        assertEquals(7, strictEvaluator.compile("x + 1 + 2 + 3").getOptimization().getNodesAfter());
+    }
+
+    private static String outcome(CompiledExpression expression, double[] slots) {
+        try {
+            return String.valueOf(expression.evaluate(slots));
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+}
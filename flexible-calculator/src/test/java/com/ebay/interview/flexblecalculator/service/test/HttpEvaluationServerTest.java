@@ -0,0 +1,123 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import com.ebay.interview.flexiblecalculator.web.HttpEvaluationServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpEvaluationServerTest {
+    private ExpressionEvaluator expressionEvaluator;
+    private HttpEvaluationServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getHttp().setPort(0);
+        properties.getHttp().setMaxRequestBytes(256);
+        properties.getRange().getProfiles().put("strict", new CalculatorProperties.Profile());
+        properties.getRange().getProfiles().get("strict").setMaxInput(10);
+        RangeValidator rangeValidator = new RangeValidator(properties);
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), rangeValidator, properties);
+        server = new HttpEvaluationServer(expressionEvaluator, rangeValidator, properties);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+        expressionEvaluator.shutdown();
+    }
+
+    // Normal Case: an expression is evaluated
+    @Test
+    void testEvaluate() throws IOException {
+        Response response = post("/evaluate", "{\"expression\": \"3 + 2 * 4\"}");
+
+        assertEquals(200, response.status);
+        assertEquals("{\"expression\":\"3 + 2 * 4\",\"value\":11.0}", response.body);
+    }
+
+    // Normal Case: each expression of a batch gets its own result
+    @Test
+    void testBatch() throws IOException {
+        Response response = post("/evaluate/batch", "{\"expressions\": [\"1+1\", \"10/0\"]}");
+
+        assertEquals(200, response.status);
+        assertEquals("{\"results\":[{\"value\":2.0},{\"error\":{\"type\":\"ArithmeticException\","
+                + "\"code\":\"DIVISION_BY_ZERO\",\"offset\":-1,\"message\":\"Cannot divide by zero\"}}]}", response.body);
+    }
+
+    // Edge Case: evaluation errors are reported as 422 with the evaluator's message
+    @Test
+    void testEvaluationError() throws IOException {
+        Response response = post("/evaluate", "{\"expression\": \"10 / 0\"}");
+
+        assertEquals(422, response.status);
+        assertTrue(response.body.contains("\"message\":\"Cannot divide by zero\""), response.body);
+
+        Response syntax = post("/evaluate", "{\"expression\": \"1 + * 2\"}");
+        assertEquals(422, syntax.status);
+        assertTrue(syntax.body.contains("\"code\":\"INVALID_SYNTAX\",\"offset\":2"), syntax.body);
+    }
+
+    // Edge Case: a named range profile applies to that request only
+    @Test
+    void testProfile() throws IOException {
+        assertEquals(422, post("/evaluate", "{\"expression\": \"20 + 1\", \"profile\": \"strict\"}").status);
+        assertEquals(200, post("/evaluate", "{\"expression\": \"20 + 1\"}").status);
+        assertEquals(400, post("/evaluate", "{\"expression\": \"20 + 1\", \"profile\": \"missing\"}").status);
+    }
+
+    // Edge Case: malformed, oversized and misrouted requests are rejected
+    @Test
+    void testInvalidRequests() throws IOException {
+        assertEquals(400, post("/evaluate", "{\"expression\": ").status);
+        assertEquals(400, post("/evaluate", "{\"expression\": 5}").status);
+        assertEquals(400, post("/evaluate/batch", "{\"expressions\": [1]}").status);
+        assertEquals(413, post("/evaluate", "{\"expression\": \"" + "1+".repeat(200) + "1\"}").status);
+        assertEquals(404, post("/evaluate/other", "{}").status);
+
+        HttpURLConnection connection = open("/evaluate");
+        assertEquals(405, connection.getResponseCode());
+    }
+
+    private Response post(String path, String body) throws IOException {
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new Response(status, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        return (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.HybridResult;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.HybridEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangePolicy;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HybridEvaluatorTest {
+    private ExpressionEvaluator expressionEvaluator;
+    private HybridEvaluator hybridEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        CalculatorProperties properties = new CalculatorProperties();
+        RangeValidator rangeValidator = new RangeValidator(properties);
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), rangeValidator, properties);
+        hybridEvaluator = new HybridEvaluator(expressionEvaluator, new ExpressionParser(), rangeValidator, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expressionEvaluator.shutdown();
+    }
+
+    // Normal Case: exact expressions stay in double
+    @Test
+    void testDoublePath() {
+        HybridResult result = hybridEvaluator.evaluate("(1 + 2) * 0.75 - 10 / 4");
+
+        assertEquals(HybridResult.Path.DOUBLE, result.getPath());
+        assertEquals(0, new BigDecimal("-0.25").compareTo(result.getValue()));
+        assertEquals(1, hybridEvaluator.getDoubleEvaluations());
+    }
+
+    // Normal Case: decimal literals and inexact operations are promoted to BigDecimal
+    @Test
+    void testDecimalPath() {
+        HybridResult sum = hybridEvaluator.evaluate("0.1 + 0.2");
+        assertEquals(HybridResult.Path.DECIMAL, sum.getPath());
+        assertEquals("0.3", sum.getValue().toPlainString());
+
+        HybridResult third = hybridEvaluator.evaluate("1 / 3");
+        assertEquals(HybridResult.Path.DECIMAL, third.getPath());
+        assertEquals("0.3333333333333333333333333333333333", third.getValue().toPlainString());
+        assertEquals(2, hybridEvaluator.getDecimalEvaluations());
+    }
+
+    // Edge Case: errors match the double evaluator on both paths
+    @Test
+    void testErrors() {
+        ArithmeticException division = assertThrows(ArithmeticException.class, () -> hybridEvaluator.evaluate("0.1 / 0"));
+        assertEquals("Cannot divide by zero", division.getMessage());
+
+        IllegalArgumentException input = assertThrows(IllegalArgumentException.class,
+                () -> hybridEvaluator.evaluate("2000000.5 + 1"));
+        assertEquals("Input value out of range: 2000000.5. Valid range: -1000000.0 to 1000000.0", input.getMessage());
+
+        RangePolicy narrow = new RangePolicy("narrow", -100, 100, -100, 100);
+        assertThrows(IllegalArgumentException.class, () -> hybridEvaluator.evaluate("50 * 3", narrow));
+        assertThrows(IllegalArgumentException.class, () -> hybridEvaluator.evaluate("x + 1"));
+    }
+}
@@ -0,0 +1,255 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.model.HybridResult;
+import com.ebay.interview.flexiblecalculator.operator.Operator;
+import com.ebay.interview.flexiblecalculator.operator.OperatorProvider;
+import com.ebay.interview.flexiblecalculator.operator.OperatorRegistry;
+import com.ebay.interview.flexiblecalculator.service.Calculator;
+import com.ebay.interview.flexiblecalculator.service.ColumnarEvaluator;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionBatch;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.HybridEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.service.SinglePassEvaluator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.Operation;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperatorRegistryTest {
+    private ExpressionEvaluator interpreting;
+    private ExpressionEvaluator generating;
+
+    // Registered in operators/META-INF/services, which is on the classpath of the operator-tests run only
+    public static class TestOperators implements OperatorProvider {
+        static int ticks;
+
+        @Override
+        public List<Operator> operators() {
+            return Arrays.asList(
+                    Operator.function("hypot", Math::hypot),
+                    Operator.infix('^', 3, Operator.Associativity.RIGHT, Math::pow),
+                    Operator.function("tick", x -> x + ++ticks).impure());
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        CalculatorProperties disabled = new CalculatorProperties();
+        disabled.getCodegen().setThreshold(0);
+        disabled.getMetrics().setEnabled(false);
+        interpreting = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), disabled);
+
+        CalculatorProperties eager = new CalculatorProperties();
+        eager.getCodegen().setThreshold(1);
+        eager.getMetrics().setEnabled(false);
+        generating = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), eager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        interpreting.shutdown();
+        generating.shutdown();
+    }
+
+    // Normal Case: built-in operators keep their ids and plugins are appended after them
+    @Test
+    void testStandardRegistry() {
+        ClassLoader operators = new URLClassLoader(new URL[]{getClass().getResource("/operators/")},
+                getClass().getClassLoader());
+        OperatorRegistry registry = OperatorRegistry.load(operators);
+
+        assertEquals(0, registry.infixId('+'));
+        assertEquals(3, registry.infixId('/'));
+        assertEquals(-1, registry.infixId('&'));
+        assertTrue(registry.isInfix('^'));
+        assertTrue(registry.functionId("hypot") > registry.functionId("max"));
+        assertEquals(registry.functionId("sqrt"), registry.functionId("x + sqrt(4)", 4, 8));
+        assertEquals(registry.functionId("hypot"), registry.functionId("hypot(3, 4)", 0, 5));
+        assertEquals(-1, registry.functionId("sqr"));
+        assertEquals(-1, registry.functionId("x + sqrt(4)", 4, 7));
+        assertEquals(-1, registry.functionId("é(1)", 0, 1));
+
+        Operator pow = registry.get(registry.functionId("pow"));
+        assertEquals(2, pow.getArity());
+        assertTrue(pow.isPure());
+        assertFalse(registry.get(registry.functionId("tick")).isPure());
+
+        // Outside the operator-tests run the standard registry holds only the built-ins
+        if (OperatorRegistry.standard().functionId("hypot") < 0) {
+            assertEquals(OperatorRegistry.ARITHMETIC_OPERATORS + 4, OperatorRegistry.standard().size());
+            assertFalse(OperatorRegistry.standard().isInfix('^'));
+        }
+    }
+
+    // Normal Case: built-in functions, interpreted and generated
+    @Test
+    void testBuiltInFunctions() {
+        String[] expressions = {"sqrt(16) + 1", "pow(2, 10)", "min(3, 1 + 1) * max(0, 4)",
+                "2 * sqrt(x * x) - pow(x, 2)", "max ( 1 , min(2, 3) )"};
+        double[] expected = {5, 1024, 8, -3, 2};
+        for (int i = 0; i < expressions.length; i++) {
+            CompiledExpression interpreted = interpreting.compile(expressions[i]);
+            CompiledExpression generated = generating.compile(expressions[i]);
+            double[] slots = new double[interpreted.getVariables().size()];
+            Arrays.fill(slots, 3);
+
+            assertEquals(expected[i], interpreted.evaluate(slots), expressions[i]);
+            assertEquals(expected[i], generated.evaluate(slots), expressions[i]);
+            assertTrue(generated.isGenerated(), expressions[i]);
+        }
+    }
+
+    // Normal Case: plugin operators take part in precedence and associativity
+    @Test
+    @Tag("operators")
+    void testPluginOperators() {
+        assertEquals(5.0, interpreting.evaluate("hypot(3, 4)"));
+        assertEquals(512.0, interpreting.evaluate("2 ^ 3 ^ 2"));
+        assertEquals(19.0, interpreting.evaluate("1 + 2 * 3 ^ 2"));
+        assertEquals(64.0, generating.compile("(2 ^ 3) ^ 2").evaluate());
+    }
+
+    // Edge Case: malformed calls are reported like other syntax errors
+    @Test
+    void testInvalidCalls() {
+        EvaluationResult unknown = interpreting.evaluateSafely("1 + foo(2)");
+        assertEquals(ErrorCode.UNKNOWN_FUNCTION, unknown.getErrorCode());
+        assertEquals(4, unknown.getErrorOffset());
+        assertEquals("Unknown function 'foo' at offset 4", unknown.getErrorMessage());
+
+        assertEquals("Function pow expects 2 arguments but got 1",
+                interpreting.evaluateSafely("pow(2)").getErrorMessage());
+        assertEquals("Function sqrt expects 1 argument but got 2",
+                interpreting.evaluateSafely("sqrt(4, 9)").getErrorMessage());
+        assertEquals(ErrorCode.INVALID_SYNTAX, interpreting.evaluateSafely("1, 2").getErrorCode());
+        assertEquals(ErrorCode.INVALID_SYNTAX, interpreting.evaluateSafely("max(1 +, 2)").getErrorCode());
+        assertEquals(ErrorCode.OUTPUT_OUT_OF_RANGE, interpreting.evaluateSafely("pow(10, 7)").getErrorCode());
+    }
+
+    // Edge Case: calls without a real result fail on every path instead of returning NaN
+    @Test
+    void testCallsWithoutFiniteResult() throws IOException {
+        String[] expressions = {"sqrt(0 - 1)", "pow(0 - 8, 0.5)"};
+        String[] messages = {"sqrt has no finite result for these arguments",
+                "pow has no finite result for these arguments"};
+        SinglePassEvaluator singlePassEvaluator = new SinglePassEvaluator(new RangeValidator(), new CalculatorProperties());
+        for (int i = 0; i < expressions.length; i++) {
+            EvaluationResult interpreted = interpreting.evaluateSafely(expressions[i]);
+            assertFalse(interpreted.isSuccess(), expressions[i]);
+            assertEquals(ErrorCode.INVALID_ARGUMENT, interpreted.getErrorCode(), expressions[i]);
+            assertEquals(messages[i], interpreted.getErrorMessage(), expressions[i]);
+
+            String expression = expressions[i];
+            Exception singlePass = assertThrows(IllegalArgumentException.class,
+                    () -> singlePassEvaluator.evaluate(new StringReader(expression)));
+            assertEquals(messages[i], singlePass.getMessage(), expressions[i]);
+        }
+
+        CompiledExpression generated = generating.compile("sqrt(x) + pow(x, 0.5)");
+        assertEquals(4.0, generated.evaluate(new double[]{4}));
+        assertTrue(generated.isGenerated());
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> generated.evaluate(new double[]{-4}));
+        assertEquals(messages[0], exception.getMessage());
+
+        EvaluationResult[] batch = interpreting.compileBatch(Arrays.asList("sqrt(x)", "pow(x, 0.5)"))
+                .evaluate(new double[]{-4});
+        assertEquals(messages[0], batch[0].getErrorMessage());
+        assertEquals(messages[1], batch[1].getErrorMessage());
+
+        double[] x = new double[40];
+        x[25] = -4;
+        CompiledExpression expression = interpreting.compile("pow(x, 0.5)");
+        exception = assertThrows(IllegalArgumentException.class,
+                () -> new ColumnarEvaluator(16, false).evaluate(expression, new double[][]{x}, new double[x.length]));
+        assertEquals(messages[1], exception.getMessage());
+    }
+
+    // Normal Case: columnar evaluation calls functions once per block
+    @Test
+    void testColumnarCalls() {
+        CompiledExpression expression = interpreting.compile("max(x, 10) + sqrt(x)");
+        double[] x = new double[100];
+        for (int row = 0; row < x.length; row++) {
+            x[row] = row;
+        }
+
+        double[] results = new double[x.length];
+        new ColumnarEvaluator(16, false).evaluate(expression, new double[][]{x}, results);
+        for (int row = 0; row < x.length; row++) {
+            assertEquals(expression.evaluate(new double[]{x[row]}), results[row]);
+        }
+    }
+
+    // Edge Case: pure calls are shared across a batch, impure calls never are
+    @Test
+    @Tag("operators")
+    void testBatchSharing() {
+        ExpressionBatch pure = interpreting.compileBatch(Arrays.asList("sqrt(x) + 1", "sqrt(x) * 2"));
+        assertEquals(2, pure.getReport().deduplicatedNodes());
+
+        ExpressionBatch impure = interpreting.compileBatch(Arrays.asList("tick(x) + 1", "tick(x) * 2"));
+        assertEquals(1, impure.getReport().deduplicatedNodes());
+    }
+
+    // Edge Case: the optimizer folds pure calls on constants but leaves impure ones alone
+    @Test
+    @Tag("operators")
+    void testOptimizerFolding() {
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getOptimizer().setMode("strict");
+        properties.getMetrics().setEnabled(false);
+        ExpressionEvaluator strict = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties);
+        try {
+            CompiledExpression folded = strict.compile("x + sqrt(16)");
+            assertEquals(3, folded.getOptimization().getNodesAfter());
+            assertEquals(7.0, folded.evaluate(new double[]{3}));
+
+            CompiledExpression impure = strict.compile("tick(0)");
+            assertEquals(2, impure.getOptimization().getNodesAfter());
+            assertTrue(impure.evaluate() < impure.evaluate());
+        } finally {
+            strict.shutdown();
+        }
+    }
+
+    // Normal Case: hybrid results stay exact when a function returns one of its arguments
+    @Test
+    void testHybridFunctions() {
+        CalculatorProperties properties = new CalculatorProperties();
+        RangeValidator rangeValidator = new RangeValidator(properties);
+        HybridEvaluator hybridEvaluator = new HybridEvaluator(interpreting, new ExpressionParser(), rangeValidator, properties);
+
+        HybridResult min = hybridEvaluator.evaluate("min(0.1, 0.2) + 0.2");
+        assertEquals(new BigDecimal("0.3"), min.getValue());
+
+        assertEquals(new BigDecimal("3"), hybridEvaluator.evaluate("sqrt(9)").getValue());
+        assertThrows(IllegalArgumentException.class, () -> hybridEvaluator.evaluate("sqrt(-1)"));
+    }
+
+    // Normal Case: the Calculator reads the same registry
+    @Test
+    @Tag("operators")
+    void testCalculatorUsesRegistry() {
+        Calculator calculator = new Calculator();
+
+        assertEquals(8.0, calculator.calculate(Operation.POWER, 2.0, 3.0));
+        assertThrows(IllegalArgumentException.class, () -> calculator.calculate(Operation.MODULUS, 6.0, 3.0));
+    }
+}
@@ -0,0 +1,95 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.service.CompiledExpression;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangePolicy;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RangePolicyTest {
+    private RangeValidator rangeValidator;
+    private ExpressionEvaluator expressionEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        CalculatorProperties properties = new CalculatorProperties();
+        CalculatorProperties.Profile strict = new CalculatorProperties.Profile();
+        strict.setMaxOutput(100);
+        properties.getRange().getProfiles().put("strict", strict);
+        rangeValidator = new RangeValidator(properties);
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), rangeValidator, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expressionEvaluator.shutdown();
+    }
+
+    // Normal Case: the active profile is installed at startup
+    @Test
+    void testDefaultProfile() {
+        assertEquals("default", rangeValidator.getPolicy().getName());
+        assertEquals(1e6, rangeValidator.getMaxOutput());
+        assertTrue(rangeValidator.getProfileNames().contains("strict"));
+    }
+
+    // Normal Case: policies are immutable; changing a range creates a new one
+    @Test
+    void testPolicyIsImmutable() {
+        RangePolicy before = rangeValidator.getPolicy();
+        rangeValidator.setOutputRange(-10, 10);
+
+        assertEquals(1e6, before.getMaxOutput());
+        assertEquals(10, rangeValidator.getMaxOutput());
+        assertNotSame(before, rangeValidator.getPolicy());
+    }
+
+    // Normal Case: a policy passed per call does not affect other evaluations
+    @Test
+    void testPerCallPolicy() {
+        RangePolicy strict = rangeValidator.profile("strict");
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> expressionEvaluator.evaluate("50*3", strict));
+        assertEquals("Output value out of range: 150.0. Valid range: -1000000.0 to 100.0", exception.getMessage());
+        assertEquals(150.0, expressionEvaluator.evaluate("50*3"));
+    }
+
+    // Normal Case: a policy bound into a compiled expression
+    @Test
+    void testBoundPolicy() {
+        CompiledExpression compiled = expressionEvaluator.compile("x * 3");
+        CompiledExpression strict = compiled.withPolicy(rangeValidator.profile("strict"));
+
+        assertEquals(150.0, compiled.evaluate(new double[]{50}));
+        assertThrows(IllegalArgumentException.class, () -> strict.evaluate(new double[]{50}));
+        assertEquals(30.0, strict.evaluate(new double[]{10}));
+    }
+
+    // Normal Case: swapping the active profile applies to compiled expressions immediately
+    @Test
+    void testHotSwap() {
+        CompiledExpression compiled = expressionEvaluator.compile("50 * 3");
+        assertEquals(150.0, compiled.evaluate());
+
+        rangeValidator.useProfile("strict");
+        assertThrows(IllegalArgumentException.class, compiled::evaluate);
+
+        rangeValidator.setPolicy(RangePolicy.UNBOUNDED);
+        assertEquals(150.0, compiled.evaluate());
+    }
+
+    // Edge Case: unknown profiles and null policies
+    @Test
+    void testInvalidPolicy() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> rangeValidator.useProfile("missing"));
+        assertEquals("Unknown range profile: missing", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> rangeValidator.setPolicy(null));
+        assertThrows(IllegalArgumentException.class, () -> expressionEvaluator.compile("1+1").withPolicy(null));
+    }
+}
@@ -0,0 +1,136 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.model.InvalidExpressionException;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangePolicy;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.service.SinglePassEvaluator;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SinglePassEvaluatorTest {
+    private CalculatorProperties properties;
+    private SinglePassEvaluator singlePassEvaluator;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CalculatorProperties();
+        properties.getMetrics().setEnabled(false);
+        singlePassEvaluator = new SinglePassEvaluator(new RangeValidator(), properties);
+    }
+
+    private EvaluationResult evaluate(String expression) throws IOException {
+        try {
+            return EvaluationResult.success(singlePassEvaluator.evaluate(new StringReader(expression)));
+        } catch (RuntimeException e) {
+            return EvaluationResult.failure(e);
+        }
+    }
+
+    // Normal Case: same results and errors as the evaluator that parses the whole expression first
+    @Test
+    void testMatchesExpressionEvaluator() throws IOException {
+        ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(),
+                properties);
+        String[] expressions = {"1 + 2 * 3", "(1 + 2) * 3", "10 / 4 - 1", "max(1, sqrt(16)) * 2", "pow(2, 10) / 4",
+                "", "1 2", "1 + * 2", "max(1)", "(1 + 2", "1 + 2)", "x + 1 / 0", "1 / 0 + &", "1.2.3", "foo(1)",
+                "2000000 + 1", "999999 + 999999", "min (1 , , 2)"};
+        for (String expression : expressions) {
+            EvaluationResult expected = expressionEvaluator.evaluateSafely(expression);
+            EvaluationResult actual = evaluate(expression);
+            assertEquals(expected.getValue(), actual.getValue(), expression);
+            assertEquals(expected.getErrorCode(), actual.getErrorCode(), expression);
+            assertEquals(expected.getErrorOffset(), actual.getErrorOffset(), expression);
+            assertEquals(expected.getErrorMessage(), actual.getErrorMessage(), expression);
+        }
+    }
+
+    // Normal Case: an expression far larger than the read buffer, generated as it is read
+    @Test
+    void testLongExpressionIsNotMaterialized() throws IOException {
+        Reader expression = new Reader() {
+            private static final String TERM = " + (3 - 2) * 1";
+            private final int terms = 200_000;
+            private long position;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                long end = (long) terms * TERM.length() + 1;
+                if (position == end) {
+                    return -1;
+                }
+                int count = (int) Math.min(length, end - position);
+                for (int i = 0; i < count; i++, position++) {
+                    buffer[offset + i] = position == 0 ? '0' : TERM.charAt((int) ((position - 1) % TERM.length()));
+                }
+                return count;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        assertEquals(200_000.0, singlePassEvaluator.evaluate(expression));
+    }
+
+    // Normal Case: UTF-8 bytes from a channel
+    @Test
+    void testChannelInput() throws IOException {
+        byte[] bytes = "2 * (3 + 4)\n".getBytes(StandardCharsets.UTF_8);
+
+        EvaluationResult result = singlePassEvaluator.evaluateSafely(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        assertEquals(14.0, result.getValue());
+    }
+
+    // Edge Case: nesting past the limit fails with its offset instead of growing without bound
+    @Test
+    void testNestingLimit() throws IOException {
+        properties.getSinglePass().setMaxDepth(4);
+        singlePassEvaluator = new SinglePassEvaluator(new RangeValidator(), properties);
+
+        assertEquals(4.0, singlePassEvaluator.evaluate(new StringReader("(((1 + 3)))")));
+        // A flat sum never holds more than two operands
+        assertEquals(6.0, singlePassEvaluator.evaluate(new StringReader("1 + 1 + 1 + 1 + 1 + 1")));
+
+        InvalidExpressionException thrown = assertThrows(InvalidExpressionException.class,
+                () -> singlePassEvaluator.evaluate(new StringReader("((((( 1 )))))")));
+        assertEquals(ErrorCode.LIMIT_EXCEEDED, thrown.getCode());
+        assertEquals(4, thrown.getOffset());
+        assertEquals("Expression nesting exceeds the limit of 4 at offset 4", thrown.getMessage());
+    }
+
+    // Edge Case: numbers and names longer than the token limit
+    @Test
+    void testTokenLengthLimit() throws IOException {
+        properties.getSinglePass().setMaxTokenLength(8);
+        singlePassEvaluator = new SinglePassEvaluator(new RangeValidator(), properties);
+
+        assertEquals(1.5, singlePassEvaluator.evaluate(new StringReader("0.500000 + 1")));
+        InvalidExpressionException thrown = assertThrows(InvalidExpressionException.class,
+                () -> singlePassEvaluator.evaluate(new StringReader("1 + 0.5000000")));
+        assertEquals(ErrorCode.LIMIT_EXCEEDED, thrown.getCode());
+        assertEquals("Token at offset 4 is longer than the limit of 8 characters", thrown.getMessage());
+    }
+
+    // Edge Case: integers beyond 2^53 stay exact under wide range policies
+    @Test
+    void testExactIntegers() throws IOException {
+        RangePolicy wide = new RangePolicy("wide", -1e19, 1e19, -1e19, 1e19, true);
+
+        assertEquals(1.0, singlePassEvaluator.evaluate(new StringReader("9007199254740993 - 9007199254740992"), wide));
+    }
+}
@@ -0,0 +1,126 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.sheet.Spreadsheet;
+import com.ebay.interview.flexiblecalculator.sheet.SpreadsheetSnapshot;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpreadsheetTest {
+    private ExpressionEvaluator expressionEvaluator;
+    private Spreadsheet spreadsheet;
+
+    @BeforeEach
+    void setUp() {
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), new CalculatorProperties());
+        spreadsheet = new Spreadsheet(expressionEvaluator);
+        spreadsheet.setValue("price", 10);
+        spreadsheet.setValue("qty", 3);
+        spreadsheet.setValue("tax", 0.2);
+        spreadsheet.setFormula("subtotal", "price * qty");
+        spreadsheet.setFormula("total", "subtotal * (1 + tax)");
+        spreadsheet.setFormula("taxRate", "tax * 100");
+    }
+
+    @AfterEach
+    void tearDown() {
+        expressionEvaluator.shutdown();
+    }
+
+    // Normal Case: changing an input recomputes only the cells downstream of it
+    @Test
+    void testIncrementalRecalculation() {
+        assertEquals(36.0, spreadsheet.getValue("total"), 1e-9);
+        assertEquals(0, spreadsheet.recalculate());
+
+        spreadsheet.setValue("price", 20);
+        // price, subtotal and total; taxRate is untouched
+        assertEquals(3, spreadsheet.recalculate());
+        assertEquals(72.0, spreadsheet.getValue("total"), 1e-9);
+
+        spreadsheet.setFormula("subtotal", "price * qty - 5");
+        assertEquals(66.0, spreadsheet.getValue("total"), 1e-9);
+    }
+
+    // Edge Case: a definition that closes a cycle is rejected and changes nothing
+    @Test
+    void testCycleRejected() {
+        spreadsheet.setFormula("a", "b + 1");
+        spreadsheet.setFormula("b", "c + 1");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> spreadsheet.setFormula("c", "a + 1"));
+        assertEquals("Circular reference: c -> a -> b -> c", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> spreadsheet.setFormula("x", "x * 2"));
+        assertThrows(IllegalArgumentException.class, () -> spreadsheet.setFormula("price", "total"));
+
+        assertEquals("Undefined cell: c", spreadsheet.getResult("a").getErrorMessage());
+        spreadsheet.setValue("c", 1);
+        assertEquals(3.0, spreadsheet.getValue("a"));
+    }
+
+    // Edge Case: errors are held by the failing cell and the cells that use it
+    @Test
+    void testErrorsPropagate() {
+        spreadsheet.setValue("qty", 0);
+        spreadsheet.setFormula("unitPrice", "total / qty");
+        spreadsheet.setFormula("margin", "unitPrice - 1");
+
+        assertEquals("Cannot divide by zero", spreadsheet.getResult("margin").getErrorMessage());
+        assertThrows(IllegalStateException.class, () -> spreadsheet.getValue("unitPrice"));
+
+        spreadsheet.remove("tax");
+        assertEquals("Undefined cell: tax", spreadsheet.getResult("total").getErrorMessage());
+        assertThrows(IllegalArgumentException.class, () -> spreadsheet.getValue("tax"));
+    }
+
+    // Normal Case: a restored snapshot brings back formulas, numbers and values
+    @Test
+    void testSnapshotRestore() {
+        SpreadsheetSnapshot snapshot = spreadsheet.snapshot();
+        assertEquals("price * qty", snapshot.getFormula("subtotal"));
+
+        spreadsheet.setValue("price", 50);
+        spreadsheet.setFormula("extra", "total + 1");
+        assertEquals(180.0, spreadsheet.getValue("total"), 1e-9);
+
+        spreadsheet.restore(snapshot);
+        assertEquals(36.0, spreadsheet.getValue("total"), 1e-9);
+        assertFalse(spreadsheet.getNames().contains("extra"));
+        assertEquals(0, spreadsheet.recalculate());
+
+        spreadsheet.setValue("qty", 1);
+        assertEquals(12.0, spreadsheet.getValue("total"), 1e-9);
+    }
+
+    // Normal Case: a wide level of dirty cells is evaluated in parallel
+    @Test
+    void testParallelRecalculation() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Spreadsheet wide = new Spreadsheet(expressionEvaluator, pool, 8);
+            wide.setValue("x", 1);
+            for (int i = 0; i < 500; i++) {
+                wide.setFormula("c" + i, "x * " + i);
+            }
+            wide.setFormula("sum", "c1 + c499");
+            assertEquals(502, wide.recalculate());
+
+            wide.setValue("x", 2);
+            assertEquals(1000.0, wide.getValue("sum"));
+            for (int i = 0; i < 500; i++) {
+                assertEquals(2.0 * i, wide.getValue("c" + i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.BulkEvaluationSummary;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.HybridEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.service.StreamEvaluationService;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class StreamEvaluationServiceTest {
+    private CalculatorProperties properties;
+    private ExpressionEvaluator expressionEvaluator;
+    private StreamEvaluationService streamEvaluationService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CalculatorProperties();
+        properties.getBatch().setParallelism(3);
+        properties.getStream().setBlockSize(64);
+        properties.getMetrics().setEnabled(false);
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties);
+        streamEvaluationService = new StreamEvaluationService(expressionEvaluator, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expressionEvaluator.shutdown();
+    }
+
+    private String evaluate(String input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        streamEvaluationService.evaluate(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    // Normal Case: one result line per input line, in input order across many blocks
+    @Test
+    void testResultsKeepInputOrder() throws IOException {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            input.append(i).append(" + 1\n");
+            expected.append(i + 1.0).append('\n');
+        }
+
+        assertEquals(expected.toString(), evaluate(input.toString()));
+    }
+
+    // Edge Case: errors, blank lines, CRLF and a last line without a newline
+    @Test
+    void testErrorsAndLineEndings() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BulkEvaluationSummary summary = streamEvaluationService.evaluate(
+                new ByteArrayInputStream("1/0\r\n\n2*3".getBytes(StandardCharsets.UTF_8)), output);
+
+        assertEquals("ERROR: Cannot divide by zero\nERROR: Expression cannot be empty\n6.0\n",
+                output.toString(StandardCharsets.UTF_8));
+        assertEquals(3, summary.getLines());
+        assertEquals(2, summary.getErrors());
+    }
+
+    // Edge Case: a line longer than the read block
+    @Test
+    void testLineLongerThanBlock() throws IOException {
+        StringBuilder expression = new StringBuilder("0");
+        for (int i = 0; i < 100; i++) {
+            expression.append(" + 1");
+        }
+
+        assertEquals("100.0\n1.0\n", evaluate(expression + "\n1\n"));
+    }
+
+    // Edge Case: "exit" ends the input like in the interactive console
+    @Test
+    void testExitStopsEvaluation() throws IOException {
+        assertEquals("3.0\n", evaluate("1+2\nEXIT\n4+4\n"));
+    }
+
+    // Normal Case: results of a slow producer are written before its input ends
+    @Test
+    void testResultsAreFlushedWhileInputIsOpen() throws Exception {
+        PipedOutputStream producer = new PipedOutputStream();
+        PipedInputStream input = new PipedInputStream(producer);
+        PipedInputStream results = new PipedInputStream();
+        PipedOutputStream output = new PipedOutputStream(results);
+        CompletableFuture<BulkEvaluationSummary> run = CompletableFuture.supplyAsync(() -> {
+            try {
+                return streamEvaluationService.evaluate(input, output);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(results, StandardCharsets.UTF_8));
+        producer.write("1+2\n".getBytes(StandardCharsets.UTF_8));
+        producer.flush();
+        assertEquals("3.0", reader.readLine());
+
+        producer.write("2*5\n".getBytes(StandardCharsets.UTF_8));
+        producer.close();
+        assertEquals("10.0", reader.readLine());
+        assertEquals(2, run.get(10, TimeUnit.SECONDS).getLines());
+    }
+
+    // Normal Case: exact decimal results when hybrid precision is on
+    @Test
+    void testHybridResults() throws IOException {
+        properties.getPrecision().setMode("hybrid");
+        RangeValidator rangeValidator = new RangeValidator(properties);
+        HybridEvaluator hybridEvaluator = new HybridEvaluator(expressionEvaluator, new ExpressionParser(), rangeValidator,
+                properties);
+        streamEvaluationService = new StreamEvaluationService(expressionEvaluator, hybridEvaluator, properties);
+
+        assertEquals("0.3\nERROR: Cannot divide by zero\n", evaluate("0.1 + 0.2\n1/0\n"));
+    }
+
+    // Edge Case: piped input is recognised from the file type, not from data already waiting
+    @Test
+    void testPipedInputDetection(@TempDir Path directory) throws Exception {
+        Path file = Files.writeString(directory.resolve("expressions.txt"), "");
+        assertTrue(StreamEvaluationService.isPipedInput(file));
+
+        Path device = Paths.get("/dev/null");
+        assumeTrue(Files.exists(device) && !System.getProperty("os.name").startsWith("Windows"));
+        assertFalse(StreamEvaluationService.isPipedInput(device));
+
+        // An empty pipe whose producer has not written anything yet
+        Path fifo = directory.resolve("fifo");
+        assumeTrue(new ProcessBuilder("mkfifo", fifo.toString()).start().waitFor() == 0);
+        assertTrue(StreamEvaluationService.isPipedInput(fifo));
+    }
+}
@@ -0,0 +1,141 @@
+package com.ebay.interview.flexblecalculator.service.test;
+
+import com.ebay.interview.flexiblecalculator.config.CalculatorProperties;
+import com.ebay.interview.flexiblecalculator.model.ErrorCode;
+import com.ebay.interview.flexiblecalculator.model.EvaluationResult;
+import com.ebay.interview.flexiblecalculator.service.ExpressionEvaluator;
+import com.ebay.interview.flexiblecalculator.service.RangeValidator;
+import com.ebay.interview.flexiblecalculator.tcp.EvaluationClient;
+import com.ebay.interview.flexiblecalculator.tcp.TcpEvaluationServer;
+import com.ebay.interview.flexiblecalculator.utils.ExpressionParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TcpEvaluationServerTest {
+    private ExpressionEvaluator expressionEvaluator;
+    private TcpEvaluationServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        CalculatorProperties properties = new CalculatorProperties();
+        properties.getTcp().setPort(0);
+        properties.getTcp().setLoops(2);
+        properties.getTcp().setMaxFrameBytes(1024);
+        expressionEvaluator = new ExpressionEvaluator(new ExpressionParser(), new RangeValidator(), properties);
+        server = new TcpEvaluationServer(expressionEvaluator, properties);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+        expressionEvaluator.shutdown();
+    }
+
+    // Normal Case: an expression is evaluated
+    @Test
+    void testEvaluate() throws IOException {
+        try (EvaluationClient client = EvaluationClient.connect("127.0.0.1", server.getPort())) {
+            EvaluationResult result = client.evaluate("3 + 2 * 4");
+
+            assertTrue(result.isSuccess());
+            assertEquals(11.0, result.getValue());
+        }
+    }
+
+    // Edge Case: evaluation errors come back with the evaluator's code, offset, type and message
+    @Test
+    void testEvaluationError() throws IOException {
+        try (EvaluationClient client = EvaluationClient.connect("127.0.0.1", server.getPort())) {
+            EvaluationResult result = client.evaluate("10 / 0");
+
+            assertFalse(result.isSuccess());
+            assertEquals(ErrorCode.DIVISION_BY_ZERO, result.getErrorCode());
+            assertEquals(-1, result.getErrorOffset());
+            assertEquals("ArithmeticException", result.getErrorType());
+            assertEquals("Cannot divide by zero", result.getErrorMessage());
+
+            EvaluationResult syntax = client.evaluate("1 + * 2");
+            assertEquals(ErrorCode.INVALID_SYNTAX, syntax.getErrorCode());
+            assertEquals(2, syntax.getErrorOffset());
+            assertEquals("IllegalArgumentException", syntax.getErrorType());
+        }
+    }
+
+    // Normal Case: many pipelined requests are each answered with their own result
+    @Test
+    void testPipelining() throws IOException {
+        String[] expressions = new String[5000];
+        for (int i = 0; i < expressions.length; i++) {
+            expressions[i] = i + " * 2";
+        }
+        try (EvaluationClient client = EvaluationClient.connect("127.0.0.1", server.getPort())) {
+            CompletableFuture<EvaluationResult>[] results = client.submitAll(expressions);
+
+            for (int i = 0; i < results.length; i++) {
+                assertEquals(i * 2.0, results[i].join().getValue());
+            }
+            assertEquals(0, client.inFlight());
+        }
+    }
+
+    // Edge Case: a frame split across several writes is reassembled
+    @Test
+    void testPartialFrames() throws IOException {
+        byte[] expression = "1 + 1".getBytes(StandardCharsets.UTF_8);
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(8 + expression.length);
+            out.flush();
+            out.writeLong(42);
+            out.flush();
+            out.write(expression);
+            out.flush();
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            assertEquals(17, in.readInt());
+            assertEquals(42, in.readLong());
+            assertEquals(0, in.readByte());
+            assertEquals(2.0, in.readDouble());
+        }
+    }
+
+    // Edge Case: a negative or too short length closes the connection as soon as the length arrives
+    @Test
+    void testInvalidFrameLength() throws IOException {
+        for (int length : new int[]{-5, 3}) {
+            try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+                socket.setSoTimeout(5000);
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeInt(length);
+                out.write(new byte[100]);
+                out.flush();
+
+                try {
+                    assertEquals(-1, socket.getInputStream().read());
+                } catch (SocketException e) {
+                    // A reset also means the server closed the connection
+                }
+            }
+        }
+    }
+
+    // Edge Case: a frame over the size limit closes the connection
+    @Test
+    void testOversizedFrame() throws IOException {
+        try (EvaluationClient client = EvaluationClient.connect("127.0.0.1", server.getPort())) {
+            assertThrows(IOException.class, () -> client.evaluate("1+".repeat(1000) + "1"));
+        }
+    }
+}